@@ -1,9 +1,7 @@
 package com.shared.audit;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -12,10 +10,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shared.audit.model.AuditEventRequest;
 import com.shared.audit.service.AuditTrailService;
+import com.shared.audit.service.ResponseHasher;
+import com.shared.config.AuditProperties;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -25,11 +24,18 @@ import jakarta.servlet.http.HttpServletRequest;
 public class AuditHelper {
 
     private final AuditTrailService auditTrailService;
-    private final ObjectMapper objectMapper;
+    private final ResponseHasher responseHasher;
+    private final AuditProperties.DetailsProperties detailsProperties;
 
     public AuditHelper(AuditTrailService auditTrailService, ObjectMapper objectMapper) {
+        this(auditTrailService, objectMapper, new AuditProperties.DetailsProperties());
+    }
+
+    public AuditHelper(AuditTrailService auditTrailService, ObjectMapper objectMapper,
+                       AuditProperties.DetailsProperties detailsProperties) {
         this.auditTrailService = auditTrailService;
-        this.objectMapper = objectMapper;
+        this.responseHasher = new ResponseHasher(objectMapper);
+        this.detailsProperties = detailsProperties;
     }
 
     public void recordAudit(String action,
@@ -49,10 +55,15 @@ public class AuditHelper {
             // Compute response hash if result is present
             if (details.containsKey("result")) {
                 try {
-                    String resultJson = objectMapper.writeValueAsString(details.get("result"));
-                    String responseHash = computeHash(resultJson);
-                    event.setResponseHash(responseHash);
-                } catch (JsonProcessingException e) {
+                    ResponseHasher.ResponseDigest digest = responseHasher.digest(details.get("result"));
+                    event.setResponseHash(digest.hash());
+                    if (detailsProperties.getResultStorage() == AuditProperties.DetailsProperties.ResultStorage.HASH_ONLY) {
+                        Map<String, Object> withoutResult = new LinkedHashMap<>(details);
+                        withoutResult.remove("result");
+                        withoutResult.put("resultSize", digest.size());
+                        event.setDetails(withoutResult);
+                    }
+                } catch (IOException e) {
                     // Ignore, responseHash remains null
                 }
             }
@@ -69,7 +80,7 @@ public class AuditHelper {
             // For now, leaving it null or set based on logic
         }
 
-        auditTrailService.recordEvent(event);
+        auditTrailService.submitEvent(event);
     }
 
     private HttpServletRequest getCurrentHttpRequest() {
@@ -84,14 +95,4 @@ public class AuditHelper {
         }
         return authentication.getName();
     }
-
-    private String computeHash(String data) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] result = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(result);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 not available", e);
-        }
-    }
 }
@@ -0,0 +1,106 @@
+package com.shared.audit.actuate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import com.shared.audit.model.AuditChainVerificationReport;
+import com.shared.audit.service.AuditChainVerifier;
+
+/**
+ * Actuator endpoint ({@code /actuator/auditchain}) that runs {@link AuditChainVerifier} in the
+ * background. {@code POST} starts a run unless one is in progress; {@code GET} returns the state
+ * of the current or most recent run.
+ */
+@Endpoint(id = "auditchain")
+public class AuditChainVerificationEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditChainVerificationEndpoint.class);
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record Status(State state,
+                         OffsetDateTime startedAt,
+                         OffsetDateTime finishedAt,
+                         AuditChainVerificationReport report,
+                         String error) {
+    }
+
+    private final AuditChainVerifier verifier;
+    private final Executor executor;
+    private final AtomicReference<Status> status =
+            new AtomicReference<>(new Status(State.IDLE, null, null, null, null));
+
+    public AuditChainVerificationEndpoint(AuditChainVerifier verifier) {
+        this(verifier, runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-audit-verifier");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    public AuditChainVerificationEndpoint(AuditChainVerifier verifier, Executor executor) {
+        this.verifier = Objects.requireNonNull(verifier, "verifier must not be null");
+        this.executor = Objects.requireNonNull(executor, "executor must not be null");
+    }
+
+    @ReadOperation
+    public Status status() {
+        return status.get();
+    }
+
+    @WriteOperation
+    public Status verify() {
+        Status current = status.get();
+        if (current.state() == State.RUNNING) {
+            return current;
+        }
+        Status running = new Status(State.RUNNING, now(), null, null, null);
+        if (!status.compareAndSet(current, running)) {
+            return status.get();
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    AuditChainVerificationReport report = verifier.verify();
+                    status.set(new Status(State.COMPLETED, running.startedAt(), now(), report, null));
+                } catch (Throwable ex) {
+                    log.error("Audit chain verification failed", ex);
+                    status.set(failed(running, ex));
+                    if (ex instanceof Error error) {
+                        throw error;
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.error("Audit chain verification could not be started", ex);
+            Status rejected = failed(running, ex);
+            status.set(rejected);
+            return rejected;
+        }
+        return running;
+    }
+
+    private static Status failed(Status running, Throwable cause) {
+        String error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName();
+        return new Status(State.FAILED, running.startedAt(), now(), null, error);
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+}
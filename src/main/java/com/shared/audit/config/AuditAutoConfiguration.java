@@ -1,13 +1,29 @@
 package com.shared.audit.config;
 
 import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shared.audit.AuditHelper;
+import com.shared.audit.actuate.AuditChainVerificationEndpoint;
+import com.shared.audit.repository.AuditChainAnchorRepository;
+import com.shared.audit.repository.AuditChainHeadRepository;
+import com.shared.audit.repository.AuditDetailsOverflowRepository;
 import com.shared.audit.repository.AuditEventRepository;
+import com.shared.audit.repository.AuditPartitionRepository;
+import com.shared.audit.service.AuditArchiveReader;
+import com.shared.audit.service.AuditChainAnchorService;
+import com.shared.audit.service.AuditChainHeadManager;
+import com.shared.audit.service.AuditChainSelector;
+import com.shared.audit.service.AuditChainVerifier;
+import com.shared.audit.service.AuditDetailsBudget;
 import com.shared.audit.service.AuditHashService;
+import com.shared.audit.service.AuditPartitionArchiver;
+import com.shared.audit.service.AuditPartitionManager;
 import com.shared.audit.service.AuditTrailService;
+import com.shared.config.AuditProperties;
 import com.shared.config.SharedLibConfigurationProperties;
 
 import javax.sql.DataSource;
@@ -20,6 +36,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Auto configuration wiring the audit utility when explicitly enabled.
@@ -55,20 +75,147 @@ public class AuditAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
+    public AuditChainHeadManager auditChainHeadManager(
+            AuditEventRepository auditEventRepository,
+            AuditHashService auditHashService,
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<PlatformTransactionManager> transactionManagerProvider) {
+        NamedParameterJdbcTemplate jdbcTemplate = resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider);
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfUnique(
+                () -> new DataSourceTransactionManager(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AuditChainHeadRepository headRepository = new AuditChainHeadRepository(jdbcTemplate, sharedLibProperties.getAudit());
+        AuditChainHeadManager headManager = new AuditChainHeadManager(auditEventRepository, auditHashService,
+                headRepository, transactionTemplate, sharedLibProperties.getAudit().getChain());
+        headManager.checkCoordination();
+        return headManager;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditChainSelector auditChainSelector() {
+        return new AuditChainSelector(sharedLibProperties.getAudit());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditDetailsBudget auditDetailsBudget(
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<ObjectMapper> objectMapperProvider) {
+        AuditProperties.DetailsProperties details = sharedLibProperties.getAudit().getDetails();
+        AuditDetailsOverflowRepository overflowRepository = details.getOverflow() == AuditProperties.DetailsProperties.Overflow.OFFLOAD
+                ? new AuditDetailsOverflowRepository(resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider),
+                        sharedLibProperties.getAudit())
+                : null;
+        return new AuditDetailsBudget(objectMapperProvider.getIfAvailable(this::defaultObjectMapper), details,
+                overflowRepository);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
     public AuditTrailService auditTrailService(
             AuditEventRepository auditEventRepository,
             AuditHashService auditHashService,
+            AuditChainHeadManager auditChainHeadManager,
+            AuditChainSelector auditChainSelector,
+            AuditDetailsBudget auditDetailsBudget,
             ObjectProvider<Clock> clockProvider) {
 
         Clock clock = clockProvider.getIfAvailable(Clock::systemUTC);
-        return new AuditTrailService(auditEventRepository, auditHashService, clock);
+        return new AuditTrailService(auditEventRepository, auditHashService, clock, auditChainHeadManager,
+                auditChainSelector, sharedLibProperties.getAudit().getAsync(), auditDetailsBudget);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "shared-lib.audit.chain", name = "anchor-interval")
+    public AuditChainAnchorService auditChainAnchorService(
+            AuditEventRepository auditEventRepository,
+            AuditHashService auditHashService,
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<ObjectMapper> objectMapperProvider,
+            ObjectProvider<Clock> clockProvider) {
+        NamedParameterJdbcTemplate jdbcTemplate = resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider);
+        ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(this::defaultObjectMapper);
+        AuditChainAnchorRepository anchorRepository =
+                new AuditChainAnchorRepository(jdbcTemplate, sharedLibProperties.getAudit(), objectMapper);
+        AuditChainAnchorService anchorService = new AuditChainAnchorService(auditEventRepository, anchorRepository,
+                auditHashService, sharedLibProperties.getAudit(), clockProvider.getIfAvailable(Clock::systemUTC));
+        anchorService.start();
+        return anchorService;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "shared-lib.audit.partitioning", name = "enabled", havingValue = "true")
+    public AuditPartitionManager auditPartitionManager(
+            AuditEventRepository auditEventRepository,
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<PlatformTransactionManager> transactionManagerProvider,
+            ObjectProvider<ObjectMapper> objectMapperProvider,
+            ObjectProvider<Clock> clockProvider) {
+        AuditProperties audit = sharedLibProperties.getAudit();
+        if (audit.getChain().getCoordination() != AuditProperties.ChainProperties.Coordination.HEAD_ROW) {
+            // A partitioned table cannot carry the (chain_id, prev_hash) index LOCAL relies on.
+            throw new IllegalStateException("shared-lib.audit.partitioning.enabled requires "
+                    + "shared-lib.audit.chain.coordination=HEAD_ROW");
+        }
+        NamedParameterJdbcTemplate jdbcTemplate = resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider);
+        List<String> tables = new ArrayList<>();
+        tables.add(audit.getTableName());
+        if (sharedLibProperties.getEntityAudit().isEnabled()) {
+            tables.add(sharedLibProperties.getEntityAudit().getTableName());
+        }
+        AuditPartitionArchiver archiver = null;
+        if (audit.getPartitioning().getExpiry() == AuditProperties.PartitionProperties.Expiry.ARCHIVE) {
+            PlatformTransactionManager transactionManager = transactionManagerProvider.getIfUnique(
+                    () -> new DataSourceTransactionManager(jdbcTemplate.getJdbcTemplate().getDataSource()));
+            TransactionTemplate readOnlyTransactions = new TransactionTemplate(transactionManager);
+            readOnlyTransactions.setReadOnly(true);
+            archiver = new AuditPartitionArchiver(auditEventRepository, audit.getTableName(),
+                    objectMapperProvider.getIfAvailable(this::defaultObjectMapper), readOnlyTransactions,
+                    audit.getPartitioning().getArchiveBlockRows(), audit.getVerification().getFetchSize());
+        }
+        AuditPartitionManager partitionManager = new AuditPartitionManager(new AuditPartitionRepository(jdbcTemplate),
+                tables, audit.getPartitioning(), clockProvider.getIfAvailable(Clock::systemUTC), archiver);
+        partitionManager.start();
+        return partitionManager;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditArchiveReader auditArchiveReader(ObjectProvider<ObjectMapper> objectMapperProvider) {
+        return new AuditArchiveReader(objectMapperProvider.getIfAvailable(this::defaultObjectMapper));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AuditChainVerifier auditChainVerifier(
+            AuditEventRepository auditEventRepository,
+            AuditHashService auditHashService,
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<PlatformTransactionManager> transactionManagerProvider) {
+        NamedParameterJdbcTemplate jdbcTemplate = resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider);
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfUnique(
+                () -> new DataSourceTransactionManager(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        TransactionTemplate readOnlyTransactions = new TransactionTemplate(transactionManager);
+        readOnlyTransactions.setReadOnly(true);
+        return new AuditChainVerifier(auditEventRepository, auditHashService, readOnlyTransactions,
+                sharedLibProperties.getAudit().getVerification());
     }
 
     @Bean
     @ConditionalOnMissingBean
     public AuditHelper auditHelper(AuditTrailService auditTrailService, ObjectProvider<ObjectMapper> objectMapperProvider) {
         ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(this::defaultObjectMapper);
-        return new AuditHelper(auditTrailService, objectMapper);
+        return new AuditHelper(auditTrailService, objectMapper, sharedLibProperties.getAudit().getDetails());
     }
 
     private ObjectMapper defaultObjectMapper() {
@@ -89,4 +236,18 @@ public class AuditAutoConfiguration {
         }
         return new NamedParameterJdbcTemplate(dataSource);
     }
+
+    /**
+     * Exposes chain verification as an actuator endpoint when actuator is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class AuditChainVerificationEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AuditChainVerificationEndpoint auditChainVerificationEndpoint(AuditChainVerifier auditChainVerifier) {
+            return new AuditChainVerificationEndpoint(auditChainVerifier);
+        }
+    }
 }
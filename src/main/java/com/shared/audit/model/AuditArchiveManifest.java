@@ -0,0 +1,56 @@
+package com.shared.audit.model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes an archived audit table: a gzip-compressed JSON-lines data file made of
+ * independently compressed blocks, plus the chain state needed to verify across the archive.
+ *
+ * @param dataFile file name of the data file, relative to the manifest
+ * @param sha256   SHA-256 of the data file
+ * @param chains   first and last link of every chain in the archive, by chain id
+ * @param blocks   block index in file order
+ */
+public record AuditArchiveManifest(String table,
+                                   String dataFile,
+                                   String sha256,
+                                   long rowCount,
+                                   long firstId,
+                                   long lastId,
+                                   Instant minOccurredAt,
+                                   Instant maxOccurredAt,
+                                   List<ChainSegment> chains,
+                                   List<Block> blocks) {
+
+    public AuditArchiveManifest {
+        chains = List.copyOf(chains);
+        blocks = List.copyOf(blocks);
+    }
+
+    /**
+     * Last hash of each chain in the archive: the expected {@code prev_hash} of the chain's next row.
+     */
+    public Map<Integer, String> terminalHashes() {
+        Map<Integer, String> heads = new LinkedHashMap<>();
+        for (ChainSegment chain : chains) {
+            heads.put(chain.chainId(), chain.lastHash());
+        }
+        return heads;
+    }
+
+    /**
+     * The part of one hash chain held by the archive.
+     */
+    public record ChainSegment(int chainId, long rows, long firstId, String firstPrevHash, long lastId, String lastHash) {
+    }
+
+    /**
+     * One gzip member of the data file, readable on its own from {@code offset}.
+     */
+    public record Block(long offset, long length, long rows, long firstId, long lastId,
+                        Instant minOccurredAt, Instant maxOccurredAt) {
+    }
+}
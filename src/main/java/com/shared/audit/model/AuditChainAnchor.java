@@ -0,0 +1,21 @@
+package com.shared.audit.model;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Epoch anchor tying the heads of all audit chains together. {@code chainHeads} is indexed
+ * by chain id, {@code merkleRoot} is the Merkle root over those heads and {@code hash}
+ * chains the anchor onto {@code prevAnchorHash}.
+ */
+public record AuditChainAnchor(long id,
+                               OffsetDateTime anchoredAt,
+                               List<String> chainHeads,
+                               String merkleRoot,
+                               String prevAnchorHash,
+                               String hash) {
+
+    public AuditChainAnchor {
+        chainHeads = List.copyOf(chainHeads);
+    }
+}
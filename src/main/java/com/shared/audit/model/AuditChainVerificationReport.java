@@ -0,0 +1,39 @@
+package com.shared.audit.model;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of verifying the audit hash chains over an id range.
+ *
+ * @param breaks the first broken link found in each segment, in id order
+ */
+public record AuditChainVerificationReport(long fromId,
+                                           long toId,
+                                           long rowsChecked,
+                                           long breakCount,
+                                           int segments,
+                                           Duration elapsed,
+                                           List<ChainBreak> breaks) {
+
+    public AuditChainVerificationReport {
+        breaks = List.copyOf(breaks);
+    }
+
+    public boolean valid() {
+        return breaks.isEmpty();
+    }
+
+    /**
+     * A row whose own hash or whose link to the previous row on its chain does not verify.
+     */
+    public record ChainBreak(long id, int chainId, Kind kind, String expected, String actual) {
+
+        public enum Kind {
+            /** The stored hash does not match the hash recomputed from the row. */
+            HASH_MISMATCH,
+            /** {@code prev_hash} does not match the hash of the previous row on the same chain. */
+            LINK_MISMATCH
+        }
+    }
+}
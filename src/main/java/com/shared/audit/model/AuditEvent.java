@@ -26,6 +26,8 @@ public final class AuditEvent {
     private final String referer;
     private final String clientSource;
     private final String requestedWith;
+    private final int chainId;
+    private final int hashFormat;
 
     private AuditEvent(Builder builder) {
         this.occurredAt = builder.occurredAt;
@@ -44,6 +46,8 @@ public final class AuditEvent {
         this.referer = builder.referer;
         this.clientSource = builder.clientSource;
         this.requestedWith = builder.requestedWith;
+        this.chainId = builder.chainId;
+        this.hashFormat = builder.hashFormat;
     }
 
     public OffsetDateTime getOccurredAt() {
@@ -110,6 +114,14 @@ public final class AuditEvent {
         return Optional.ofNullable(requestedWith);
     }
 
+    public int getChainId() {
+        return chainId;
+    }
+
+    public int getHashFormat() {
+        return hashFormat;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -131,7 +143,9 @@ public final class AuditEvent {
                 .responseHash(copy.responseHash)
                 .referer(copy.referer)
                 .clientSource(copy.clientSource)
-                .requestedWith(copy.requestedWith);
+                .requestedWith(copy.requestedWith)
+                .chainId(copy.chainId)
+                .hashFormat(copy.hashFormat);
     }
 
     public static final class Builder {
@@ -151,6 +165,8 @@ public final class AuditEvent {
         private String referer;
         private String clientSource;
         private String requestedWith;
+        private int chainId;
+        private int hashFormat = 1;
 
         private Builder() {
         }
@@ -235,6 +251,16 @@ public final class AuditEvent {
             return this;
         }
 
+        public Builder chainId(int chainId) {
+            this.chainId = chainId;
+            return this;
+        }
+
+        public Builder hashFormat(int hashFormat) {
+            this.hashFormat = hashFormat;
+            return this;
+        }
+
         public AuditEvent build() {
             Objects.requireNonNull(occurredAt, "occurredAt must not be null");
             Objects.requireNonNull(traceId, "traceId must not be null");
@@ -5,5 +5,9 @@ import java.time.OffsetDateTime;
 /**
  * Result returned after persisting an audit event.
  */
-public record AuditRecord(long id, OffsetDateTime occurredAt, String hash, String prevHash) {
+public record AuditRecord(long id, OffsetDateTime occurredAt, String hash, String prevHash, int chainId) {
+
+    public AuditRecord(long id, OffsetDateTime occurredAt, String hash, String prevHash) {
+        this(id, occurredAt, hash, prevHash, 0);
+    }
 }
@@ -0,0 +1,116 @@
+package com.shared.audit.repository;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditChainAnchor;
+import com.shared.config.AuditProperties;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * Repository for the Merkle epoch anchors written across all audit chains.
+ */
+public class AuditChainAnchorRepository {
+
+    private static final TypeReference<List<String>> HEADS_TYPE = new TypeReference<>() {
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditProperties auditProperties;
+    private final ObjectMapper objectMapper;
+
+    public AuditChainAnchorRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                      AuditProperties auditProperties,
+                                      ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditProperties = auditProperties;
+        this.objectMapper = objectMapper != null ? objectMapper : new ObjectMapper();
+    }
+
+    public Optional<AuditChainAnchor> findLatest() {
+        String sql = "SELECT id, anchored_at, chain_heads, merkle_root, prev_anchor_hash, hash FROM "
+                + anchorTable() + " ORDER BY id DESC LIMIT 1";
+        try {
+            List<AuditChainAnchor> anchors = jdbcTemplate.query(sql, Map.of(), (rs, rowNum) -> new AuditChainAnchor(
+                    rs.getLong("id"),
+                    rs.getTimestamp("anchored_at").toInstant().atOffset(ZoneOffset.UTC),
+                    readHeads(rs.getString("chain_heads")),
+                    rs.getString("merkle_root"),
+                    rs.getString("prev_anchor_hash"),
+                    rs.getString("hash")));
+            return anchors.stream().findFirst();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to read latest audit chain anchor", ex);
+        }
+    }
+
+    /**
+     * Inserts the anchor unless another instance already anchored on top of the same
+     * previous anchor, which a unique index on {@code prev_anchor_hash} reports.
+     *
+     * @return the generated id, or empty if the anchor lost the race
+     */
+    public Optional<Long> insert(AuditChainAnchor anchor) {
+        String sql = "INSERT INTO " + anchorTable()
+                + " (anchored_at, chain_count, chain_heads, merkle_root, prev_anchor_hash, hash)"
+                + " VALUES (:anchored_at, :chain_count, :chain_heads, :merkle_root, :prev_anchor_hash, :hash)";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("anchored_at", toTimestamp(anchor.anchoredAt()))
+                .addValue("chain_count", anchor.chainHeads().size())
+                .addValue("chain_heads", writeHeads(anchor.chainHeads()))
+                .addValue("merkle_root", anchor.merkleRoot())
+                .addValue("prev_anchor_hash", anchor.prevAnchorHash())
+                .addValue("hash", anchor.hash());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(sql, parameters, keyHolder, new String[]{"id"});
+        } catch (DuplicateKeyException ex) {
+            return Optional.empty();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to persist audit chain anchor", ex);
+        }
+        Number key = keyHolder.getKey();
+        if (key == null) {
+            throw new AuditPersistenceException("Failed to retrieve generated audit chain anchor id");
+        }
+        return Optional.of(key.longValue());
+    }
+
+    private String writeHeads(List<String> heads) {
+        try {
+            return objectMapper.writeValueAsString(heads);
+        } catch (JsonProcessingException ex) {
+            throw new AuditPersistenceException("Failed to serialize audit chain heads", ex);
+        }
+    }
+
+    private List<String> readHeads(String json) {
+        try {
+            return objectMapper.readValue(json, HEADS_TYPE);
+        } catch (JsonProcessingException ex) {
+            throw new AuditPersistenceException("Failed to read audit chain heads", ex);
+        }
+    }
+
+    private static Timestamp toTimestamp(OffsetDateTime value) {
+        return Timestamp.from(value.toInstant());
+    }
+
+    private String anchorTable() {
+        return auditProperties.getChain().getAnchorTable();
+    }
+}
@@ -0,0 +1,83 @@
+package com.shared.audit.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.config.AuditProperties;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Repository for the single-row-per-chain head table used when chain appends
+ * are coordinated across instances with {@code SELECT ... FOR UPDATE}.
+ */
+public class AuditChainHeadRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditProperties auditProperties;
+
+    public AuditChainHeadRepository(NamedParameterJdbcTemplate jdbcTemplate, AuditProperties auditProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditProperties = auditProperties;
+    }
+
+    /**
+     * Reads the head hash and locks the row until the surrounding transaction ends.
+     */
+    public Optional<String> lockHead(int chainId) {
+        String sql = "SELECT head_hash FROM " + headTable() + " WHERE chain_id = :chain_id FOR UPDATE";
+        try {
+            List<String> heads = jdbcTemplate.queryForList(sql, Map.of("chain_id", chainId), String.class);
+            return heads.stream().findFirst();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to lock audit chain head " + chainId, ex);
+        }
+    }
+
+    /**
+     * Inserts the head row if it does not exist yet. The insert is conditional, so an
+     * existing row never raises a duplicate key error that would abort the surrounding
+     * transaction; only an instance racing on the very first insert can still see a
+     * {@link DuplicateKeyException}, which is propagated so that the caller can roll
+     * back and treat the row as present.
+     *
+     * @return {@code true} if this call created the row
+     */
+    public boolean insertHeadIfAbsent(int chainId, String headHash) {
+        String sql = "INSERT INTO " + headTable() + " (chain_id, head_hash, updated_at)"
+                + " SELECT :chain_id, :head_hash, :updated_at WHERE NOT EXISTS"
+                + " (SELECT 1 FROM " + headTable() + " WHERE chain_id = :chain_id)";
+        try {
+            return jdbcTemplate.update(sql, Map.of(
+                    "chain_id", chainId,
+                    "head_hash", headHash,
+                    "updated_at", Timestamp.from(Instant.now()))) > 0;
+        } catch (DuplicateKeyException ex) {
+            throw ex;
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to initialise audit chain head " + chainId, ex);
+        }
+    }
+
+    public void updateHead(int chainId, String headHash) {
+        String sql = "UPDATE " + headTable() + " SET head_hash = :head_hash, updated_at = :updated_at WHERE chain_id = :chain_id";
+        try {
+            jdbcTemplate.update(sql, Map.of(
+                    "chain_id", chainId,
+                    "head_hash", headHash,
+                    "updated_at", Timestamp.from(Instant.now())));
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to advance audit chain head " + chainId, ex);
+        }
+    }
+
+    private String headTable() {
+        return auditProperties.getChain().getHeadTable();
+    }
+}
@@ -0,0 +1,91 @@
+package com.shared.audit.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.config.AuditProperties;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * Content-addressed store for {@code details} values that exceeded their byte budget.
+ * Rows are keyed by the SHA-256 of the uncompressed JSON, so repeated payloads are kept once.
+ */
+public class AuditDetailsOverflowRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final AuditProperties auditProperties;
+    private volatile Boolean postgres;
+
+    public AuditDetailsOverflowRepository(NamedParameterJdbcTemplate jdbcTemplate, AuditProperties auditProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditProperties = auditProperties;
+    }
+
+    /**
+     * Stores the payload unless its content hash is already present. The statement never fails
+     * on an existing row, so it can run inside the caller's transaction: PostgreSQL aborts a
+     * transaction after any failed statement. PostgreSQL gets {@code ON CONFLICT DO NOTHING};
+     * other databases a conditional insert, where only a concurrent insert of the same content
+     * can still raise the ignored duplicate key.
+     */
+    public void save(String contentHash, long sizeBytes, byte[] compressed) {
+        String columns = "INSERT INTO " + overflowTable() + " (content_hash, size_bytes, compressed, created_at)";
+        String sql = isPostgres()
+                ? columns + " VALUES (:content_hash, :size_bytes, :compressed, :created_at) ON CONFLICT (content_hash) DO NOTHING"
+                : columns + " SELECT :content_hash, :size_bytes, :compressed, :created_at WHERE NOT EXISTS"
+                + " (SELECT 1 FROM " + overflowTable() + " WHERE content_hash = :content_hash)";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("content_hash", contentHash)
+                .addValue("size_bytes", sizeBytes)
+                .addValue("compressed", compressed)
+                .addValue("created_at", Timestamp.from(Instant.now()));
+        try {
+            jdbcTemplate.update(sql, parameters);
+        } catch (DuplicateKeyException ex) {
+            // Same content already stored.
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to store overflowing audit details " + contentHash, ex);
+        }
+    }
+
+    /**
+     * Gzipped JSON stored under the given content hash.
+     */
+    public Optional<byte[]> find(String contentHash) {
+        String sql = "SELECT compressed FROM " + overflowTable() + " WHERE content_hash = :content_hash";
+        try {
+            List<byte[]> rows = jdbcTemplate.query(sql, Map.of("content_hash", contentHash),
+                    (rs, rowNum) -> rs.getBytes("compressed"));
+            return rows.stream().findFirst();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to read overflowing audit details " + contentHash, ex);
+        }
+    }
+
+    private boolean isPostgres() {
+        Boolean detected = postgres;
+        if (detected == null) {
+            try {
+                detected = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection ->
+                        "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            } catch (DataAccessException ex) {
+                throw new AuditPersistenceException("Failed to detect the audit database", ex);
+            }
+            postgres = detected;
+        }
+        return Boolean.TRUE.equals(detected);
+    }
+
+    private String overflowTable() {
+        return auditProperties.getDetails().getOverflowTable();
+    }
+}
@@ -1,13 +1,25 @@
 package com.shared.audit.repository;
 
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shared.audit.exception.AuditPersistenceException;
@@ -15,16 +27,34 @@ import com.shared.audit.model.AuditEvent;
 import com.shared.config.AuditProperties;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.util.ClassUtils;
 
 /**
  * Repository handling persistence of audit events.
  */
 public class AuditEventRepository {
 
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {
+    };
+
+    private static final int DECIMAL_DETAILS_FORMAT = 3;
+
+    private static final List<String> INSERT_COLUMNS = List.of("occurred_at", "trace_id", "user_id", "action",
+            "resource_type", "resource_id", "outcome", "client_ip", "user_agent", "details", "prev_hash", "hash",
+            "response_hash", "referer", "client_source", "requested_with", "service_name", "source_schema",
+            "chain_id", "hash_format");
+
+    private static final boolean PG_COPY_PRESENT =
+            ClassUtils.isPresent("org.postgresql.PGConnection", AuditEventRepository.class.getClassLoader());
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final AuditProperties auditProperties;
     private final ObjectMapper objectMapper;
@@ -47,17 +77,263 @@ public class AuditEventRepository {
         this.objectMapper = objectMapper;
     }
 
+    /**
+     * Returns the hash of the most recently inserted event on the default chain.
+     *
+     * @see #findLatestHash(int)
+     */
     public Optional<String> findLatestHash() {
-        String sql = "SELECT hash FROM " + auditProperties.getTableName() + " ORDER BY occurred_at DESC, id DESC LIMIT 1";
+        return findLatestHash(0);
+    }
+
+    /**
+     * Returns the hash of the most recently inserted event on the given chain, or empty
+     * when the chain has no rows. Chain order is insertion order, so the lookup walks an
+     * index on {@code (chain_id, id)}.
+     *
+     * @throws AuditPersistenceException if the lookup fails; callers must not fall back
+     *                                   to the initial hash, which would fork the chain
+     */
+    public Optional<String> findLatestHash(int chainId) {
+        String sql = "SELECT hash FROM " + auditProperties.getTableName()
+                + " WHERE chain_id = :chain_id ORDER BY id DESC LIMIT 1";
         try {
-            return Optional.ofNullable(jdbcTemplate.queryForObject(sql, new HashMap<>(), String.class));
-        } catch (DataAccessException ex) {
+            // On a partitioned table this reads one index entry per partition; a back-dated row
+            // may carry the highest id of its chain from any partition.
+            return Optional.ofNullable(jdbcTemplate.queryForObject(sql, Map.of("chain_id", chainId), String.class));
+        } catch (EmptyResultDataAccessException ex) {
             return Optional.empty();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to read latest audit hash for chain " + chainId, ex);
+        }
+    }
+
+    /**
+     * Whether a unique index turns a second append on the same chain head into a duplicate key:
+     * one on {@code (chain_id, prev_hash)} or on {@code prev_hash} alone. Partitioned tables
+     * cannot have such an index, since {@code occurred_at} must be part of every unique key.
+     */
+    public boolean hasChainConflictIndex() {
+        String table = auditProperties.getTableName();
+        int dot = table.lastIndexOf('.');
+        try {
+            Boolean found = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                String schema = dot >= 0 ? identifier(metaData, table.substring(0, dot)) : null;
+                String name = identifier(metaData, table.substring(dot + 1));
+                Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+                try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), schema, name, true, true)) {
+                    while (indexes.next()) {
+                        String index = indexes.getString("INDEX_NAME");
+                        String column = indexes.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            uniqueIndexes.computeIfAbsent(index, key -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+                return uniqueIndexes.values().stream().anyMatch(columns -> columns.contains("prev_hash")
+                        && Set.of("chain_id", "prev_hash").containsAll(columns));
+            });
+            return Boolean.TRUE.equals(found);
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to read the indexes of " + table, ex);
+        }
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
         }
+        return metaData.storesLowerCaseIdentifiers() ? name.toLowerCase(Locale.ROOT) : name;
     }
 
     public long save(AuditEvent event) {
-        String sql = """
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(insertSql(), toParameters(event), keyHolder, new String[]{"id"});
+            Number key = keyHolder.getKey();
+            if (key == null) {
+                throw new AuditPersistenceException("Failed to retrieve generated audit id");
+            }
+            return key.longValue();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to persist audit event", ex);
+        }
+    }
+
+    /**
+     * Persists the given events in a single JDBC batch, preserving their order.
+     *
+     * @return generated identifiers, positionally aligned with {@code events}
+     */
+    public long[] saveAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return new long[0];
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            batch[i] = toParameters(events.get(i));
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.batchUpdate(insertSql(), batch, keyHolder, new String[]{"id"});
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to persist audit event batch", ex);
+        }
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != events.size()) {
+            throw new AuditPersistenceException("Failed to retrieve generated audit ids for batch");
+        }
+        long[] ids = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            ids[i] = extractId(keys.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Bulk-inserts the given events in order without returning their ids. On PostgreSQL the rows
+     * are streamed through {@code COPY ... FROM STDIN}, encoding one row at a time; other
+     * databases get a plain JDBC batch.
+     *
+     * @return number of rows written
+     */
+    public long insertAll(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            Long copied = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) connection ->
+                    PG_COPY_PRESENT && PgCopyAuditEventWriter.supports(connection)
+                            ? PgCopyAuditEventWriter.copy(connection, auditProperties.getTableName(), INSERT_COLUMNS,
+                            copyRows(events))
+                            : null);
+            if (copied != null) {
+                return copied;
+            }
+            SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+            for (int i = 0; i < events.size(); i++) {
+                batch[i] = toParameters(events.get(i));
+            }
+            jdbcTemplate.batchUpdate(insertSql(), batch);
+            return events.size();
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to bulk insert audit events", ex);
+        }
+    }
+
+    /**
+     * Returns the lowest and highest event id, or empty when the table has no rows.
+     */
+    public Optional<IdRange> findIdRange() {
+        String sql = "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM " + auditProperties.getTableName();
+        try {
+            return jdbcTemplate.query(sql, Map.of(), rs -> {
+                if (!rs.next()) {
+                    return Optional.<IdRange>empty();
+                }
+                long min = rs.getLong("min_id");
+                return rs.wasNull() ? Optional.<IdRange>empty() : Optional.of(new IdRange(min, rs.getLong("max_id")));
+            });
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to read audit id range", ex);
+        }
+    }
+
+    /**
+     * Streams events with {@code fromId <= id <= toId} in id order through a forward-only,
+     * read-only cursor. Rows are handed to {@code handler} one at a time and never collected,
+     * so memory use is bounded by {@code fetchSize}. PostgreSQL only honours the fetch size
+     * inside a transaction, so callers should wrap this in a read-only transaction.
+     */
+    public void streamEvents(long fromId, long toId, int fetchSize, StoredEventHandler handler) {
+        streamEvents(auditProperties.getTableName(), fromId, toId, fetchSize, handler);
+    }
+
+    /**
+     * Like {@link #streamEvents(long, long, int, StoredEventHandler)}, reading from {@code table},
+     * e.g. a detached partition.
+     */
+    public void streamEvents(String table, long fromId, long toId, int fetchSize, StoredEventHandler handler) {
+        String sql = "SELECT id, occurred_at, trace_id, user_id, action, resource_type, resource_id, outcome,"
+                + " client_ip, user_agent, details, prev_hash, hash, response_hash, referer, client_source,"
+                + " requested_with, chain_id, hash_format FROM " + table
+                + " WHERE id BETWEEN ? AND ? ORDER BY id";
+        try {
+            jdbcTemplate.getJdbcTemplate().query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, fromId);
+                statement.setLong(2, toId);
+                return statement;
+            }, (RowCallbackHandler) rs -> handler.handle(rs.getLong("id"), mapStoredEvent(rs)));
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to stream audit events " + fromId + ".." + toId, ex);
+        }
+    }
+
+    /**
+     * Inclusive id range of the audit table.
+     */
+    public record IdRange(long min, long max) {
+    }
+
+    /**
+     * Receives streamed audit rows in id order.
+     */
+    @FunctionalInterface
+    public interface StoredEventHandler {
+        void handle(long id, AuditEvent event);
+    }
+
+    private AuditEvent mapStoredEvent(ResultSet rs) throws SQLException {
+        return AuditEvent.builder()
+                .occurredAt(rs.getTimestamp("occurred_at").toInstant().atOffset(ZoneOffset.UTC))
+                .traceId(rs.getString("trace_id"))
+                .userId(rs.getString("user_id"))
+                .action(rs.getString("action"))
+                .resourceType(rs.getString("resource_type"))
+                .resourceId(rs.getString("resource_id"))
+                .outcome(rs.getString("outcome"))
+                .clientIp(rs.getString("client_ip"))
+                .userAgent(rs.getString("user_agent"))
+                .details(fromJson(rs.getString("details"), rs.getInt("hash_format")))
+                .prevHash(rs.getString("prev_hash"))
+                .hash(rs.getString("hash"))
+                .responseHash(rs.getString("response_hash"))
+                .referer(rs.getString("referer"))
+                .clientSource(rs.getString("client_source"))
+                .requestedWith(rs.getString("requested_with"))
+                .chainId(rs.getInt("chain_id"))
+                .hashFormat(rs.getInt("hash_format"))
+                .build();
+    }
+
+    /**
+     * Reads stored details; rows from hash format 3 on read non-integral numbers as
+     * {@link java.math.BigDecimal} so that amounts keep the precision they were hashed with.
+     */
+    private Map<String, Object> fromJson(String json, int hashFormat) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            if (hashFormat >= DECIMAL_DETAILS_FORMAT) {
+                return objectMapper.readerFor(DETAILS_TYPE)
+                        .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                        .readValue(json);
+            }
+            return objectMapper.readValue(json, DETAILS_TYPE);
+        } catch (JsonProcessingException ex) {
+            throw new AuditPersistenceException("Failed to read audit payload JSON", ex);
+        }
+    }
+
+    private String insertSql() {
+        return """
                 INSERT INTO %s (
                     occurred_at,
                     trace_id,
@@ -76,7 +352,9 @@ public class AuditEventRepository {
                     client_source,
                     requested_with,
                     service_name,
-                    source_schema
+                    source_schema,
+                    chain_id,
+                    hash_format
                 ) VALUES (
                     :occurred_at,
                     :trace_id,
@@ -95,10 +373,14 @@ public class AuditEventRepository {
                     :client_source,
                     :requested_with,
                     :service_name,
-                    :source_schema
+                    :source_schema,
+                    :chain_id,
+                    :hash_format
                 )
                 """.formatted(auditProperties.getTableName());
+    }
 
+    private MapSqlParameterSource toParameters(AuditEvent event) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("occurred_at", toTimestamp(event.getOccurredAt()));
         parameters.addValue("trace_id", event.getTraceId());
@@ -118,18 +400,59 @@ public class AuditEventRepository {
         parameters.addValue("requested_with", event.getRequestedWith().orElse(null));
         parameters.addValue("service_name", auditProperties.getServiceName());
         parameters.addValue("source_schema", auditProperties.getSourceSchema());
+        parameters.addValue("chain_id", event.getChainId());
+        parameters.addValue("hash_format", event.getHashFormat());
+        return parameters;
+    }
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        try {
-            jdbcTemplate.update(sql, parameters, keyHolder, new String[]{"id"});
-            Number key = keyHolder.getKey();
-            if (key == null) {
-                throw new AuditPersistenceException("Failed to retrieve generated audit id");
+    /**
+     * COPY rows in {@link #INSERT_COLUMNS} order, built as they are read. Timestamps use the same
+     * local-time rendering as a bound {@link Timestamp}.
+     */
+    private List<Object[]> copyRows(List<AuditEvent> events) {
+        return new AbstractList<>() {
+            @Override
+            public Object[] get(int index) {
+                AuditEvent event = events.get(index);
+                return new Object[]{
+                        toTimestamp(event.getOccurredAt()),
+                        event.getTraceId(),
+                        event.getUserId(),
+                        event.getAction(),
+                        event.getResourceType(),
+                        event.getResourceId().orElse(null),
+                        event.getOutcome(),
+                        event.getClientIp().orElse(null),
+                        event.getUserAgent().orElse(null),
+                        toJson(event.getDetails()),
+                        event.getPrevHash(),
+                        event.getHash(),
+                        event.getResponseHash().orElse(null),
+                        event.getReferer().orElse(null),
+                        event.getClientSource().orElse(null),
+                        event.getRequestedWith().orElse(null),
+                        auditProperties.getServiceName(),
+                        auditProperties.getSourceSchema(),
+                        event.getChainId(),
+                        event.getHashFormat()
+                };
             }
-            return key.longValue();
-        } catch (DataAccessException ex) {
-            throw new AuditPersistenceException("Failed to persist audit event", ex);
+
+            @Override
+            public int size() {
+                return events.size();
+            }
+        };
+    }
+
+    private long extractId(Map<String, Object> generatedKeys) {
+        Object key = generatedKeys.size() == 1
+                ? generatedKeys.values().iterator().next()
+                : generatedKeys.get("id");
+        if (!(key instanceof Number number)) {
+            throw new AuditPersistenceException("Failed to retrieve generated audit id");
         }
+        return number.longValue();
     }
 
     private Timestamp toTimestamp(OffsetDateTime occurredAt) {
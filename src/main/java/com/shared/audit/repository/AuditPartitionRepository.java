@@ -0,0 +1,114 @@
+package com.shared.audit.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.shared.audit.exception.AuditPersistenceException;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * DDL for PostgreSQL tables range-partitioned on {@code occurred_at}. Table names are
+ * configuration values and partition bounds are dates, so statements are built as text;
+ * PostgreSQL does not accept bind parameters in DDL.
+ */
+public class AuditPartitionRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public AuditPartitionRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Unqualified names of the partitions currently attached to {@code parentTable}.
+     */
+    public List<String> findPartitions(String parentTable) {
+        String sql = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                + " WHERE i.inhparent = CAST(:parent AS regclass)";
+        try {
+            return jdbcTemplate.queryForList(sql, Map.of("parent", parentTable), String.class);
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to list partitions of " + parentTable, ex);
+        }
+    }
+
+    /**
+     * Creates the partition holding {@code from <= occurred_at < to}, bounds at UTC midnight,
+     * unless it already exists.
+     */
+    public void createPartition(String parentTable, String partition, LocalDate from, LocalDate to) {
+        execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + parentTable
+                + " FOR VALUES FROM ('" + from + " 00:00:00+00') TO ('" + to + " 00:00:00+00')", "create partition " + partition);
+    }
+
+    public void detachPartition(String parentTable, String partition) {
+        execute("ALTER TABLE " + parentTable + " DETACH PARTITION " + partition, "detach partition " + partition);
+    }
+
+    public void moveToSchema(String table, String schema) {
+        execute("ALTER TABLE " + table + " SET SCHEMA " + schema, "move " + table + " to schema " + schema);
+    }
+
+    public long countRows(String table) {
+        try {
+            Long count = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+            return count == null ? 0L : count;
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to count rows of " + table, ex);
+        }
+    }
+
+    /**
+     * Runs {@code work} while holding the session-level advisory lock {@code key} on a connection
+     * of its own, unless another session holds it.
+     *
+     * @return {@code false}, without running {@code work}, when the lock is held elsewhere
+     */
+    public boolean runWithAdvisoryLock(long key, Runnable work) {
+        try {
+            Boolean ran = jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection -> {
+                if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)", key)) {
+                    return false;
+                }
+                try {
+                    work.run();
+                    return true;
+                } finally {
+                    advisoryLock(connection, "SELECT pg_advisory_unlock(?)", key);
+                }
+            });
+            return Boolean.TRUE.equals(ran);
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to take the partition maintenance lock", ex);
+        }
+    }
+
+    public void dropTable(String table) {
+        execute("DROP TABLE IF EXISTS " + table, "drop " + table);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql, long key) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void execute(String sql, String description) {
+        try {
+            jdbcTemplate.getJdbcTemplate().execute(sql);
+        } catch (DataAccessException ex) {
+            throw new AuditPersistenceException("Failed to " + description, ex);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.shared.audit.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditEventRequest;
+import com.shared.audit.model.AuditRecord;
+import com.shared.config.AuditProperties;
+
+/**
+ * Bounded queue plus a single writer thread that persists audit events in batches.
+ * <p>
+ * Callers enqueue events and receive a future; the writer thread drains up to
+ * {@code flush-size} events, waiting at most {@code linger} for a batch to fill,
+ * and hands each batch to the configured {@link BatchHandler}. Every chain is fed
+ * by exactly one writer, so chain order equals queue order.
+ */
+public class AsyncAuditEventWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAuditEventWriter.class);
+
+    /**
+     * Persists a batch of pending events and returns one result per event, in the same order.
+     * Parts of a batch may commit separately; an event whose part failed carries that failure,
+     * while events already committed still complete with their records.
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+        List<WriteResult> write(List<PendingAuditEvent> batch);
+    }
+
+    /**
+     * Outcome of one event in a batch: its record, or the failure that kept it from being written.
+     */
+    public record WriteResult(AuditRecord record, RuntimeException failure) {
+
+        public static WriteResult written(AuditRecord record) {
+            return new WriteResult(Objects.requireNonNull(record, "record must not be null"), null);
+        }
+
+        public static WriteResult failed(RuntimeException failure) {
+            return new WriteResult(null, Objects.requireNonNull(failure, "failure must not be null"));
+        }
+    }
+
+    /**
+     * An accepted event waiting to be written.
+     */
+    public record PendingAuditEvent(AuditEventRequest request,
+                                    OffsetDateTime occurredAt,
+                                    int chainId,
+                                    CompletableFuture<AuditRecord> completion) {
+    }
+
+    private final BlockingQueue<PendingAuditEvent> queue;
+    private final BatchHandler batchHandler;
+    private final AuditProperties.AsyncProperties properties;
+    private final int flushSize;
+    private final long lingerNanos;
+    private final Thread writerThread;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public AsyncAuditEventWriter(BatchHandler batchHandler, AuditProperties.AsyncProperties properties) {
+        this(batchHandler, properties, "shared-lib-audit-writer");
+    }
+
+    public AsyncAuditEventWriter(BatchHandler batchHandler, AuditProperties.AsyncProperties properties, String threadName) {
+        this.batchHandler = Objects.requireNonNull(batchHandler, "batchHandler must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        if (properties.getQueueCapacity() <= 0) {
+            throw new IllegalStateException("audit.async.queue-capacity must be positive");
+        }
+        if (properties.getFlushSize() <= 0) {
+            throw new IllegalStateException("audit.async.flush-size must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.flushSize = properties.getFlushSize();
+        this.lingerNanos = nanos(properties.getLinger());
+        this.writerThread = new Thread(this::runLoop, threadName);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public CompletableFuture<AuditRecord> submit(AuditEventRequest request, OffsetDateTime occurredAt) {
+        return submit(request, occurredAt, 0);
+    }
+
+    public CompletableFuture<AuditRecord> submit(AuditEventRequest request, OffsetDateTime occurredAt, int chainId) {
+        CompletableFuture<AuditRecord> completion = new CompletableFuture<>();
+        if (!running) {
+            completion.completeExceptionally(new AuditPersistenceException("Audit writer is shut down"));
+            return completion;
+        }
+
+        PendingAuditEvent pending = new PendingAuditEvent(request, occurredAt, chainId, completion);
+        if (!enqueue(pending)) {
+            dropped.increment();
+            completion.completeExceptionally(new AuditPersistenceException(
+                    "Audit queue is full (capacity " + properties.getQueueCapacity() + "); event dropped"));
+            if (log.isWarnEnabled()) {
+                log.warn("Audit queue full; dropped event action={} resourceType={} (total dropped: {})",
+                        request.getAction(), request.getResourceType(), dropped.sum());
+            }
+        }
+        return completion;
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    public long failedCount() {
+        return failed.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting events, flushes what is already queued and waits up to
+     * {@code shutdown-timeout} for the writer thread to finish.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(Math.max(1L, properties.getShutdownTimeout().toMillis()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            writerThread.interrupt();
+        }
+
+        List<PendingAuditEvent> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        if (!abandoned.isEmpty()) {
+            log.error("Audit writer shut down with {} unflushed events", abandoned.size());
+            fail(abandoned, new AuditPersistenceException("Audit writer shut down before event was flushed"));
+        }
+    }
+
+    private boolean enqueue(PendingAuditEvent pending) {
+        if (properties.getOverflowPolicy() == AuditProperties.AsyncProperties.OverflowPolicy.DROP) {
+            return queue.offer(pending);
+        }
+        try {
+            return queue.offer(pending, nanos(properties.getOfferTimeout()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runLoop() {
+        List<PendingAuditEvent> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAuditEvent first = queue.poll(Math.max(lingerNanos, 1L), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+            } catch (InterruptedException ex) {
+                if (running) {
+                    continue;
+                }
+                queue.drainTo(batch, flushSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingAuditEvent> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            if (batch.size() >= flushSize || !running) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingAuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingAuditEvent> batch) {
+        List<WriteResult> results;
+        try {
+            results = batchHandler.write(batch);
+        } catch (RuntimeException ex) {
+            log.error("Failed to persist audit batch of {} events", batch.size(), ex);
+            fail(batch, ex);
+            return;
+        }
+        RuntimeException logged = null;
+        for (int i = 0; i < batch.size(); i++) {
+            WriteResult result = results.get(i);
+            if (result.failure() != null) {
+                if (result.failure() != logged) {
+                    logged = result.failure();
+                    log.error("Failed to persist part of an audit batch of {} events", batch.size(), logged);
+                }
+                failed.increment();
+                batch.get(i).completion().completeExceptionally(result.failure());
+            } else {
+                written.increment();
+                batch.get(i).completion().complete(result.record());
+            }
+        }
+    }
+
+    private void fail(List<PendingAuditEvent> events, RuntimeException cause) {
+        failed.add(events.size());
+        for (PendingAuditEvent event : events) {
+            event.completion().completeExceptionally(cause);
+        }
+    }
+
+    private static long nanos(Duration duration) {
+        return duration != null ? Math.max(0L, duration.toNanos()) : 0L;
+    }
+}
@@ -0,0 +1,164 @@
+package com.shared.audit.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditArchiveManifest;
+import com.shared.audit.model.AuditEvent;
+import com.shared.audit.repository.AuditEventRepository;
+
+/**
+ * Reads archives written by {@link AuditPartitionArchiver}. Time-range scans use the block
+ * index to decompress only the blocks that may hold matching rows, one block at a time.
+ */
+public class AuditArchiveReader {
+
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    // Manifests hold Instants whatever modules the caller's mapper has.
+    private final ObjectMapper manifestMapper;
+
+    public AuditArchiveReader(ObjectMapper objectMapper) {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        this.manifestMapper = objectMapper.copy().registerModule(new JavaTimeModule());
+    }
+
+    public AuditArchiveManifest readManifest(Path manifestFile) {
+        try {
+            return manifestMapper.readValue(manifestFile.toFile(), AuditArchiveManifest.class);
+        } catch (IOException ex) {
+            throw new AuditPersistenceException("Failed to read audit archive manifest " + manifestFile, ex);
+        }
+    }
+
+    /**
+     * Manifests of every archive in {@code directory}, ordered by their first id.
+     */
+    public List<Path> findManifests(Path directory) {
+        Map<Path, Long> firstIds = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + AuditPartitionArchiver.MANIFEST_SUFFIX)) {
+            files.forEach(manifest -> firstIds.put(manifest, readManifest(manifest).firstId()));
+        } catch (IOException ex) {
+            throw new AuditPersistenceException("Failed to list audit archives in " + directory, ex);
+        }
+        List<Path> manifests = new ArrayList<>(firstIds.keySet());
+        manifests.sort(Comparator.comparing(firstIds::get));
+        return manifests;
+    }
+
+    /**
+     * Streams the archived rows of every archive in {@code directory} with
+     * {@code from <= occurred_at < to}, archive by archive in id order. Either bound may be {@code null}.
+     */
+    public void scanDirectory(Path directory, @Nullable OffsetDateTime from, @Nullable OffsetDateTime to,
+                              AuditEventRepository.StoredEventHandler handler) {
+        for (Path manifest : findManifests(directory)) {
+            scan(manifest, from, to, handler);
+        }
+    }
+
+    /**
+     * Streams the rows of one archive with {@code from <= occurred_at < to} in id order. Either
+     * bound may be {@code null}.
+     */
+    public void scan(Path manifestFile, @Nullable OffsetDateTime from, @Nullable OffsetDateTime to,
+                     AuditEventRepository.StoredEventHandler handler) {
+        AuditArchiveManifest manifest = readManifest(manifestFile);
+        Instant fromInstant = from != null ? from.toInstant() : null;
+        Instant toInstant = to != null ? to.toInstant() : null;
+        Path dataFile = manifestFile.resolveSibling(manifest.dataFile());
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            for (AuditArchiveManifest.Block block : manifest.blocks()) {
+                if ((fromInstant != null && block.maxOccurredAt().isBefore(fromInstant))
+                        || (toInstant != null && !block.minOccurredAt().isBefore(toInstant))) {
+                    continue;
+                }
+                readBlock(channel, block, fromInstant, toInstant, handler);
+            }
+        } catch (IOException ex) {
+            throw new AuditPersistenceException("Failed to read audit archive " + dataFile, ex);
+        }
+    }
+
+    private void readBlock(FileChannel channel, AuditArchiveManifest.Block block, Instant from, Instant to,
+                           AuditEventRepository.StoredEventHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(block.length()));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, block.offset() + buffer.position()) < 0) {
+                throw new IOException("Audit archive block at " + block.offset() + " is truncated");
+            }
+        }
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonNode row = objectMapper.readTree(line);
+                Instant occurredAt = Instant.parse(row.get("occurredAt").asText());
+                if ((from != null && occurredAt.isBefore(from)) || (to != null && !occurredAt.isBefore(to))) {
+                    continue;
+                }
+                handler.handle(row.get("id").asLong(), toEvent(row, occurredAt));
+            }
+        }
+    }
+
+    private AuditEvent toEvent(JsonNode row, Instant occurredAt) {
+        JsonNode details = row.get("details");
+        return AuditEvent.builder()
+                .occurredAt(occurredAt.atOffset(ZoneOffset.UTC))
+                .traceId(text(row, "traceId"))
+                .userId(text(row, "userId"))
+                .action(text(row, "action"))
+                .resourceType(text(row, "resourceType"))
+                .resourceId(text(row, "resourceId"))
+                .outcome(text(row, "outcome"))
+                .clientIp(text(row, "clientIp"))
+                .userAgent(text(row, "userAgent"))
+                .details(details != null ? objectMapper.convertValue(details, DETAILS_TYPE) : null)
+                .prevHash(text(row, "prevHash"))
+                .hash(text(row, "hash"))
+                .responseHash(text(row, "responseHash"))
+                .referer(text(row, "referer"))
+                .clientSource(text(row, "clientSource"))
+                .requestedWith(text(row, "requestedWith"))
+                .chainId(row.get("chainId").asInt())
+                .hashFormat(row.get("hashFormat").asInt())
+                .build();
+    }
+
+    private static String text(JsonNode row, String field) {
+        JsonNode value = row.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+}
@@ -0,0 +1,158 @@
+package com.shared.audit.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditChainAnchor;
+import com.shared.audit.repository.AuditChainAnchorRepository;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.config.AuditProperties;
+
+/**
+ * Periodically writes a Merkle epoch anchor over the heads of all audit chains.
+ * <p>
+ * Each anchor commits to every chain head at that moment and to the previous anchor,
+ * so removing or reordering rows on any chain is detectable even though the chains
+ * themselves are independent.
+ */
+public class AuditChainAnchorService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditChainAnchorService.class);
+
+    private final AuditEventRepository auditEventRepository;
+    private final AuditChainAnchorRepository anchorRepository;
+    private final AuditHashService auditHashService;
+    private final AuditProperties auditProperties;
+    private final Clock clock;
+    private ScheduledExecutorService scheduler;
+
+    public AuditChainAnchorService(AuditEventRepository auditEventRepository,
+                                   AuditChainAnchorRepository anchorRepository,
+                                   AuditHashService auditHashService,
+                                   AuditProperties auditProperties,
+                                   Clock clock) {
+        this.auditEventRepository = Objects.requireNonNull(auditEventRepository, "auditEventRepository must not be null");
+        this.anchorRepository = Objects.requireNonNull(anchorRepository, "anchorRepository must not be null");
+        this.auditHashService = Objects.requireNonNull(auditHashService, "auditHashService must not be null");
+        this.auditProperties = Objects.requireNonNull(auditProperties, "auditProperties must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Starts anchoring every {@code shared-lib.audit.chain.anchor-interval}; does nothing
+     * when no interval is configured.
+     */
+    public synchronized void start() {
+        Duration interval = auditProperties.getChain().getAnchorInterval();
+        if (interval == null || interval.isZero() || interval.isNegative() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-audit-anchor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(this::anchorQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the current head of every chain and writes an anchor over them.
+     *
+     * @return the anchor, or empty if another instance anchored concurrently
+     */
+    public Optional<AuditChainAnchor> anchor() {
+        int chainCount = Math.max(1, auditProperties.getChain().getCount());
+        List<String> heads = new ArrayList<>(chainCount);
+        for (int chainId = 0; chainId < chainCount; chainId++) {
+            heads.add(auditEventRepository.findLatestHash(chainId).orElseGet(auditHashService::initialHashValue));
+        }
+
+        String prevAnchorHash = anchorRepository.findLatest()
+                .map(AuditChainAnchor::hash)
+                .orElseGet(auditHashService::initialHashValue);
+        OffsetDateTime anchoredAt = OffsetDateTime.now(clock).truncatedTo(ChronoUnit.MICROS);
+        String merkleRoot = merkleRoot(heads);
+        String hash = hex(digest(prevAnchorHash.getBytes(StandardCharsets.UTF_8),
+                merkleRoot.getBytes(StandardCharsets.UTF_8),
+                anchoredAt.toInstant().toString().getBytes(StandardCharsets.UTF_8)));
+
+        AuditChainAnchor anchor = new AuditChainAnchor(0L, anchoredAt, heads, merkleRoot, prevAnchorHash, hash);
+        return anchorRepository.insert(anchor)
+                .map(id -> new AuditChainAnchor(id, anchoredAt, heads, merkleRoot, prevAnchorHash, hash));
+    }
+
+    /**
+     * Computes the Merkle root over hex-encoded leaves, duplicating the last node of odd levels.
+     */
+    public String merkleRoot(List<String> leaves) {
+        if (leaves.isEmpty()) {
+            throw new IllegalArgumentException("At least one chain head is required");
+        }
+        HexFormat hex = HexFormat.of();
+        List<byte[]> level = new ArrayList<>(leaves.size());
+        for (String leaf : leaves) {
+            level.add(hex.parseHex(leaf));
+        }
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                byte[] left = level.get(i);
+                byte[] right = i + 1 < level.size() ? level.get(i + 1) : left;
+                next.add(digest(left, right));
+            }
+            level = next;
+        }
+        return hex(level.get(0));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void anchorQuietly() {
+        try {
+            anchor().ifPresent(anchor -> log.debug("Wrote audit chain anchor {} over {} chains",
+                    anchor.hash(), anchor.chainHeads().size()));
+        } catch (RuntimeException ex) {
+            log.error("Failed to write audit chain anchor", ex);
+        }
+    }
+
+    private byte[] digest(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(auditProperties.getHashingAlgorithm());
+            for (byte[] part : parts) {
+                digest.update(part);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new AuditPersistenceException("Unsupported hashing algorithm: " + auditProperties.getHashingAlgorithm(), ex);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
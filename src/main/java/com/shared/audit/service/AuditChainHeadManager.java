@@ -0,0 +1,225 @@
+package com.shared.audit.service;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.repository.AuditChainHeadRepository;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.config.AuditProperties;
+
+/**
+ * Owns the heads of the audit hash chains and serialises appends to each of them.
+ * Chains are independent: appends to different chains never wait on each other.
+ * <p>
+ * In {@link AuditProperties.ChainProperties.Coordination#LOCAL LOCAL} mode the head is
+ * loaded from the database once, kept in memory and advanced only after the append
+ * has committed. A unique index on {@code (chain_id, prev_hash)} turns a concurrent
+ * append from another instance into a {@link DuplicateKeyException}; the head is then
+ * reloaded and the append retried. Without that index, concurrent instances fork the
+ * chain silently; {@link #checkCoordination()} warns about it at startup.
+ * <p>
+ * In {@link AuditProperties.ChainProperties.Coordination#HEAD_ROW HEAD_ROW} mode the
+ * head lives in a dedicated table and each append locks its row with
+ * {@code SELECT ... FOR UPDATE}, so instances share the chain without scanning the
+ * audit table.
+ * <p>
+ * Appends run in their own transaction when a {@link TransactionOperations} is
+ * supplied, so the head never points at a row that a caller later rolls back. The
+ * flip side is that an audit row stays committed when the caller's transaction rolls back.
+ */
+public class AuditChainHeadManager {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditChainHeadManager.class);
+
+    /**
+     * Writes one or more chained events on top of the supplied head.
+     */
+    @FunctionalInterface
+    public interface ChainAppend<T> {
+        Appended<T> append(String headHash);
+    }
+
+    /**
+     * Outcome of a {@link ChainAppend}: the new chain head and a caller-defined result.
+     */
+    public record Appended<T>(String headHash, T result) {
+    }
+
+    private final AuditEventRepository auditEventRepository;
+    private final AuditHashService auditHashService;
+    private final AuditChainHeadRepository headRepository;
+    private final TransactionOperations transactionOperations;
+    private final AuditProperties.ChainProperties properties;
+    private final ChainState[] chains;
+
+    /**
+     * Creates an in-memory, non-transactional manager suitable for a single instance.
+     */
+    public AuditChainHeadManager(AuditEventRepository auditEventRepository, AuditHashService auditHashService) {
+        this(auditEventRepository, auditHashService, null, null, new AuditProperties.ChainProperties());
+    }
+
+    public AuditChainHeadManager(AuditEventRepository auditEventRepository,
+                                 AuditHashService auditHashService,
+                                 AuditChainHeadRepository headRepository,
+                                 TransactionOperations transactionOperations,
+                                 AuditProperties.ChainProperties properties) {
+        this.auditEventRepository = Objects.requireNonNull(auditEventRepository, "auditEventRepository must not be null");
+        this.auditHashService = Objects.requireNonNull(auditHashService, "auditHashService must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        if (properties.getCoordination() == AuditProperties.ChainProperties.Coordination.HEAD_ROW
+                && (headRepository == null || transactionOperations == null)) {
+            throw new IllegalStateException("audit.chain.coordination=HEAD_ROW requires a head repository and transaction manager");
+        }
+        this.headRepository = headRepository;
+        this.transactionOperations = transactionOperations;
+        this.chains = new ChainState[Math.max(1, properties.getCount())];
+        for (int i = 0; i < chains.length; i++) {
+            chains[i] = new ChainState(i);
+        }
+    }
+
+    /**
+     * Warns when {@code LOCAL} coordination has no unique index to detect appends made by
+     * other instances, which would then fork chains without any error.
+     */
+    public void checkCoordination() {
+        if (properties.getCoordination() != AuditProperties.ChainProperties.Coordination.LOCAL) {
+            return;
+        }
+        if (!auditEventRepository.hasChainConflictIndex()) {
+            log.warn("audit.chain.coordination=LOCAL without a unique index on (chain_id, prev_hash): appends from "
+                    + "several instances will fork the audit chain undetected. Add the index or use HEAD_ROW.");
+        }
+    }
+
+    public int chainCount() {
+        return chains.length;
+    }
+
+    /**
+     * Runs {@code append} against the current head of the chain and advances the head on success.
+     */
+    public <T> T append(int chainId, ChainAppend<T> append) {
+        ChainState chain = chain(chainId);
+        chain.lock.lock();
+        try {
+            if (properties.getCoordination() == AuditProperties.ChainProperties.Coordination.HEAD_ROW) {
+                return appendWithHeadRow(chain, append);
+            }
+            return appendLocal(chain, append);
+        } finally {
+            chain.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the head of the chain as currently known to this instance, loading it if necessary.
+     */
+    public String currentHead(int chainId) {
+        ChainState chain = chain(chainId);
+        String current = chain.head;
+        return current != null ? current : loadHead(chain);
+    }
+
+    /**
+     * Discards the in-memory head of every chain so the next append reloads it from the database.
+     */
+    public void resync() {
+        for (ChainState chain : chains) {
+            chain.head = null;
+        }
+    }
+
+    private <T> T appendLocal(ChainState chain, ChainAppend<T> append) {
+        int maxAttempts = Math.max(1, properties.getMaxAppendAttempts());
+        for (int attempt = 1; ; attempt++) {
+            String current = currentHead(chain.id);
+            try {
+                Appended<T> appended = inTransaction(() -> append.append(current));
+                chain.head = appended.headHash();
+                return appended.result();
+            } catch (RuntimeException ex) {
+                chain.head = null;
+                if (!isChainConflict(ex) || attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.warn("Audit chain {} head moved concurrently (attempt {}/{}); reloading head and retrying",
+                        chain.id, attempt, maxAttempts);
+            }
+        }
+    }
+
+    private <T> T appendWithHeadRow(ChainState chain, ChainAppend<T> append) {
+        ensureHeadRow(chain);
+        return inTransaction(() -> {
+            String current = headRepository.lockHead(chain.id)
+                    .orElseThrow(() -> new AuditPersistenceException("Audit chain head row " + chain.id + " is missing"));
+            Appended<T> appended = append.append(current);
+            headRepository.updateHead(chain.id, appended.headHash());
+            chain.head = appended.headHash();
+            return appended.result();
+        });
+    }
+
+    private void ensureHeadRow(ChainState chain) {
+        if (chain.headRowInitialised) {
+            return;
+        }
+        try {
+            inTransaction(() -> headRepository.insertHeadIfAbsent(chain.id, loadHead(chain)));
+        } catch (DuplicateKeyException ex) {
+            // Another instance created the row concurrently; this transaction rolled back.
+            log.debug("Audit chain head row {} was created concurrently", chain.id);
+        }
+        chain.headRowInitialised = true;
+    }
+
+    private String loadHead(ChainState chain) {
+        String loaded = auditEventRepository.findLatestHash(chain.id)
+                .orElseGet(auditHashService::initialHashValue);
+        chain.head = loaded;
+        return loaded;
+    }
+
+    private ChainState chain(int chainId) {
+        if (chainId < 0 || chainId >= chains.length) {
+            throw new IllegalArgumentException("Audit chain id " + chainId + " is outside [0, " + chains.length + ")");
+        }
+        return chains[chainId];
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        if (transactionOperations == null) {
+            return work.get();
+        }
+        return transactionOperations.execute(status -> work.get());
+    }
+
+    private static boolean isChainConflict(Throwable ex) {
+        for (Throwable current = ex; current != null; current = current.getCause()) {
+            if (current instanceof DuplicateKeyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class ChainState {
+        private final int id;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String head;
+        private volatile boolean headRowInitialised;
+
+        private ChainState(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.shared.audit.service;
+
+import java.util.Objects;
+
+import com.shared.audit.model.AuditEventRequest;
+import com.shared.config.AuditProperties;
+
+/**
+ * Maps audit events onto one of the configured independent hash chains.
+ */
+public class AuditChainSelector {
+
+    private final AuditProperties auditProperties;
+
+    public AuditChainSelector(AuditProperties auditProperties) {
+        this.auditProperties = Objects.requireNonNull(auditProperties, "auditProperties must not be null");
+    }
+
+    public int chainCount() {
+        return Math.max(1, auditProperties.getChain().getCount());
+    }
+
+    /**
+     * Returns the chain id in {@code [0, chainCount())} for the request. Events with the same
+     * partition key always land on the same chain.
+     */
+    public int chainFor(AuditEventRequest request) {
+        int count = chainCount();
+        if (count == 1) {
+            return 0;
+        }
+        String key = switch (auditProperties.getChain().getPartitionKey()) {
+            case SERVICE_NAME -> auditProperties.getServiceName();
+            case RESOURCE_TYPE -> request.getResourceType();
+            case TRACE_ID -> request.getTraceId();
+        };
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), count);
+    }
+}
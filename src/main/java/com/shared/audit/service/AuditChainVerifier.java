@@ -0,0 +1,239 @@
+package com.shared.audit.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditChainVerificationReport;
+import com.shared.audit.model.AuditChainVerificationReport.ChainBreak;
+import com.shared.audit.model.AuditEvent;
+import com.shared.audit.model.AuditEventRequest;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.config.AuditProperties;
+
+/**
+ * Verifies the audit hash chains by recomputing every row's hash and checking its link
+ * to the previous row on the same chain.
+ * <p>
+ * The id range is split into segments of {@code verification.segment-size} ids that are
+ * checked in parallel on a {@link ForkJoinPool}. Each segment streams its rows through a
+ * forward-only cursor in a read-only transaction and keeps only the first and last hash
+ * per chain, so memory does not grow with the table. Links across segment boundaries are
+ * stitched once all segments have finished.
+ */
+public class AuditChainVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditChainVerifier.class);
+
+    private final AuditEventRepository auditEventRepository;
+    private final AuditHashService auditHashService;
+    private final TransactionOperations readOnlyTransactions;
+    private final AuditProperties.VerificationProperties properties;
+
+    public AuditChainVerifier(AuditEventRepository auditEventRepository,
+                              AuditHashService auditHashService,
+                              TransactionOperations readOnlyTransactions,
+                              AuditProperties.VerificationProperties properties) {
+        this.auditEventRepository = Objects.requireNonNull(auditEventRepository, "auditEventRepository must not be null");
+        this.auditHashService = Objects.requireNonNull(auditHashService, "auditHashService must not be null");
+        this.readOnlyTransactions = Objects.requireNonNull(readOnlyTransactions, "readOnlyTransactions must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+    }
+
+    /**
+     * Verifies the whole table; the first row of every chain must link to the initial hash.
+     */
+    public AuditChainVerificationReport verify() {
+        return auditEventRepository.findIdRange()
+                .map(range -> verify(range.min(), range.max(), true))
+                .orElseGet(() -> new AuditChainVerificationReport(0L, 0L, 0L, 0L, 0, Duration.ZERO, List.of()));
+    }
+
+    /**
+     * Verifies rows with {@code fromId <= id <= toId}. The first row of each chain in the range
+     * is trusted as its starting point, so the range may begin anywhere in the table.
+     */
+    public AuditChainVerificationReport verify(long fromId, long toId) {
+        return verify(fromId, toId, false);
+    }
+
+    /**
+     * Verifies rows with {@code fromId <= id <= toId}, expecting the first row of each chain listed
+     * in {@code chainHeads} to link to that hash, e.g. the terminal hashes of the newest archive.
+     * Chains not listed are trusted as in {@link #verify(long, long)}.
+     */
+    public AuditChainVerificationReport verify(long fromId, long toId, Map<Integer, String> chainHeads) {
+        return verify(fromId, toId, false, chainHeads);
+    }
+
+    private AuditChainVerificationReport verify(long fromId, long toId, boolean fromGenesis) {
+        return verify(fromId, toId, fromGenesis, Map.of());
+    }
+
+    private AuditChainVerificationReport verify(long fromId, long toId, boolean fromGenesis,
+                                                Map<Integer, String> chainHeads) {
+        long started = System.nanoTime();
+        long segmentSize = Math.max(1L, properties.getSegmentSize());
+        List<Callable<SegmentResult>> tasks = new ArrayList<>();
+        for (long start = fromId; start <= toId; start += segmentSize) {
+            long segmentStart = start;
+            long end = Math.min(toId, start + segmentSize - 1);
+            int index = tasks.size();
+            tasks.add(() -> verifySegment(index, segmentStart, end));
+            if (end == toId) {
+                break;
+            }
+        }
+
+        int parallelism = properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        List<SegmentResult> results = new ArrayList<>(tasks.size());
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, Math.max(1, tasks.size())));
+        try {
+            for (Future<SegmentResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AuditPersistenceException("Audit chain verification was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new AuditPersistenceException("Audit chain verification failed", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        stitch(results, fromGenesis, chainHeads);
+
+        long rows = 0L;
+        long broken = 0L;
+        List<ChainBreak> breaks = new ArrayList<>();
+        for (SegmentResult result : results) {
+            rows += result.rows;
+            broken += result.breakCount;
+            if (result.firstBreak != null) {
+                breaks.add(result.firstBreak);
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Verified {} audit rows in {} segments in {} ({} broken)", rows, results.size(), elapsed, broken);
+        return new AuditChainVerificationReport(fromId, toId, rows, broken, results.size(), elapsed, breaks);
+    }
+
+    private SegmentResult verifySegment(int index, long fromId, long toId) {
+        SegmentResult result = new SegmentResult();
+        readOnlyTransactions.executeWithoutResult(status ->
+                auditEventRepository.streamEvents(fromId, toId, properties.getFetchSize(), (id, event) -> {
+                    result.rows++;
+                    ChainSpan span = result.chains.get(event.getChainId());
+                    if (span == null) {
+                        result.chains.put(event.getChainId(), new ChainSpan(id, event.getPrevHash(), event.getHash()));
+                    } else {
+                        if (!span.lastHash.equals(event.getPrevHash())) {
+                            result.record(new ChainBreak(id, event.getChainId(),
+                                    ChainBreak.Kind.LINK_MISMATCH, span.lastHash, event.getPrevHash()));
+                        }
+                        span.lastHash = event.getHash();
+                    }
+                    String recomputed = recompute(event);
+                    if (recomputed != null) {
+                        result.record(new ChainBreak(id, event.getChainId(),
+                                ChainBreak.Kind.HASH_MISMATCH, recomputed, event.getHash()));
+                    }
+                }));
+        log.debug("Verified audit segment {} ({}..{}): {} rows", index, fromId, toId, result.rows);
+        return result;
+    }
+
+    /**
+     * Returns {@code null} when the stored hash verifies, otherwise the recomputed hash.
+     */
+    private String recompute(AuditEvent event) {
+        AuditEventRequest request = toRequest(event);
+        String recomputed = auditHashService.computeHash(event.getPrevHash(), request, event.getHashFormat());
+        if (recomputed.equals(event.getHash())) {
+            return null;
+        }
+        if (event.getHashFormat() < AuditHashService.NORMALIZED_FORMAT && request.getDetails() == null) {
+            // Formats 1 and 2 hashed empty details as {} but stored them as NULL.
+            request.setDetails(Map.of());
+            if (auditHashService.computeHash(event.getPrevHash(), request, event.getHashFormat()).equals(event.getHash())) {
+                return null;
+            }
+        }
+        return recomputed;
+    }
+
+    private void stitch(List<SegmentResult> results, boolean fromGenesis, Map<Integer, String> chainHeads) {
+        Map<Integer, String> heads = new HashMap<>(chainHeads);
+        for (SegmentResult result : results) {
+            result.chains.forEach((chainId, span) -> {
+                String expected = heads.containsKey(chainId)
+                        ? heads.get(chainId)
+                        : fromGenesis ? auditHashService.initialHashValue() : null;
+                if (expected != null && !expected.equals(span.firstPrevHash)) {
+                    result.record(new ChainBreak(span.firstId, chainId,
+                            ChainBreak.Kind.LINK_MISMATCH, expected, span.firstPrevHash));
+                }
+                heads.put(chainId, span.lastHash);
+            });
+        }
+    }
+
+    private static AuditEventRequest toRequest(AuditEvent event) {
+        AuditEventRequest request = new AuditEventRequest();
+        request.setOccurredAt(event.getOccurredAt());
+        request.setTraceId(event.getTraceId());
+        request.setUserId(event.getUserId());
+        request.setAction(event.getAction());
+        request.setResourceType(event.getResourceType());
+        request.setResourceId(event.getResourceId().orElse(null));
+        request.setOutcome(event.getOutcome());
+        request.setClientIp(event.getClientIp().orElse(null));
+        request.setUserAgent(event.getUserAgent().orElse(null));
+        request.setDetails(event.getDetails());
+        request.setResponseHash(event.getResponseHash().orElse(null));
+        request.setReferer(event.getReferer().orElse(null));
+        request.setClientSource(event.getClientSource().orElse(null));
+        request.setRequestedWith(event.getRequestedWith().orElse(null));
+        return request;
+    }
+
+    private static final class SegmentResult {
+        private final Map<Integer, ChainSpan> chains = new HashMap<>();
+        private long rows;
+        private long breakCount;
+        private ChainBreak firstBreak;
+
+        private void record(ChainBreak chainBreak) {
+            breakCount++;
+            if (firstBreak == null || chainBreak.id() < firstBreak.id()) {
+                firstBreak = chainBreak;
+            }
+        }
+    }
+
+    private static final class ChainSpan {
+        private final long firstId;
+        private final String firstPrevHash;
+        private String lastHash;
+
+        private ChainSpan(long firstId, String firstPrevHash, String lastHash) {
+            this.firstId = firstId;
+            this.firstPrevHash = firstPrevHash;
+            this.lastHash = lastHash;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.shared.audit.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.repository.AuditDetailsOverflowRepository;
+import com.shared.config.AuditProperties;
+
+/**
+ * Keeps the {@code details} of an audit event within its configured byte budgets.
+ * <p>
+ * Each top-level value is measured as JSON against its own budget ({@code field-budgets}, else
+ * {@code max-field-bytes}). Values over budget are replaced by a marker holding their size and the
+ * SHA-256 of their full JSON, plus either a preview ({@code TRUNCATE}) or a reference to the gzipped
+ * copy in the overflow table ({@code OFFLOAD}). If the whole map still exceeds
+ * {@code max-total-bytes}, the largest remaining values are replaced the same way, ties broken by
+ * key. The budget is applied before hashing, so the chain hash covers the marker and with it the
+ * hash of the original content.
+ */
+public class AuditDetailsBudget {
+
+    public static final String TRUNCATED = "_truncated";
+    public static final String OFFLOADED = "_offloaded";
+
+    private static final Logger log = LoggerFactory.getLogger(AuditDetailsBudget.class);
+    // Serialized size of a marker without its preview.
+    private static final int MARKER_BYTES = 160;
+
+    private final ObjectMapper objectMapper;
+    private final AuditProperties.DetailsProperties properties;
+    private final AuditDetailsOverflowRepository overflowRepository;
+
+    public AuditDetailsBudget(ObjectMapper objectMapper,
+                              AuditProperties.DetailsProperties properties,
+                              @Nullable AuditDetailsOverflowRepository overflowRepository) {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        this.overflowRepository = overflowRepository;
+        if (properties.getOverflow() == AuditProperties.DetailsProperties.Overflow.OFFLOAD && overflowRepository == null) {
+            throw new IllegalArgumentException("OFFLOAD overflow requires an AuditDetailsOverflowRepository");
+        }
+    }
+
+    /**
+     * Returns {@code details} itself when it fits, otherwise a copy with over-budget values replaced.
+     */
+    public Map<String, Object> apply(@Nullable Map<String, Object> details) {
+        if (details == null || details.isEmpty() || !hasBudgets()) {
+            return details;
+        }
+        long maxTotal = properties.getMaxTotalBytes();
+        Map<String, Object> budgeted = null;
+        List<Measured> kept = new ArrayList<>(details.size());
+        long total = 2; // braces
+        for (Map.Entry<String, Object> entry : details.entrySet()) {
+            int budget = budgetFor(entry.getKey());
+            long size = measure(entry.getValue(), Math.max(budget, maxTotal));
+            if (budget > 0 && size > budget) {
+                budgeted = budgeted != null ? budgeted : new LinkedHashMap<>(details);
+                Map<String, Object> marker = overflow(entry.getKey(), entry.getValue());
+                budgeted.put(entry.getKey(), marker);
+                size = measure(marker, Long.MAX_VALUE);
+            } else {
+                kept.add(new Measured(entry.getKey(), size));
+            }
+            total += size + entry.getKey().length() + 4; // quotes, colon, comma
+        }
+
+        if (maxTotal > 0 && total > maxTotal) {
+            kept.sort(Comparator.comparingLong(Measured::size).reversed().thenComparing(Measured::key));
+            long replaceable = MARKER_BYTES + (properties.getOverflow() == AuditProperties.DetailsProperties.Overflow.TRUNCATE
+                    ? Math.max(0, properties.getPreviewBytes()) : 0);
+            for (Measured measured : kept) {
+                if (total <= maxTotal || measured.size() <= replaceable) {
+                    // Values no larger than a marker would not shrink the map.
+                    break;
+                }
+                budgeted = budgeted != null ? budgeted : new LinkedHashMap<>(details);
+                Map<String, Object> marker = overflow(measured.key(), details.get(measured.key()));
+                budgeted.put(measured.key(), marker);
+                total += measure(marker, Long.MAX_VALUE) - measured.size();
+            }
+        }
+        return budgeted != null ? budgeted : details;
+    }
+
+    private boolean hasBudgets() {
+        return properties.getMaxFieldBytes() > 0 || properties.getMaxTotalBytes() > 0
+                || !properties.getFieldBudgets().isEmpty();
+    }
+
+    private int budgetFor(String key) {
+        Integer budget = properties.getFieldBudgets().get(key);
+        return budget != null ? budget : properties.getMaxFieldBytes();
+    }
+
+    private Map<String, Object> overflow(String key, Object value) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new AuditPersistenceException("Failed to serialize audit details field " + key, ex);
+        }
+        String sha256 = sha256(json);
+        Map<String, Object> marker = new LinkedHashMap<>();
+        if (properties.getOverflow() == AuditProperties.DetailsProperties.Overflow.OFFLOAD) {
+            overflowRepository.save(sha256, json.length, gzip(json));
+            marker.put(OFFLOADED, true);
+        } else {
+            marker.put(TRUNCATED, true);
+        }
+        marker.put("sizeBytes", json.length);
+        marker.put("sha256", sha256);
+        if (properties.getOverflow() == AuditProperties.DetailsProperties.Overflow.TRUNCATE && properties.getPreviewBytes() > 0) {
+            marker.put("preview", preview(json, properties.getPreviewBytes()));
+        }
+        log.debug("Audit details field '{}' of {} bytes exceeded its budget ({})", key, json.length, properties.getOverflow());
+        return marker;
+    }
+
+    /**
+     * JSON byte length of {@code value}, or {@code limit + 1} once it is known to exceed {@code limit}.
+     */
+    private long measure(Object value, long limit) {
+        CountingOutputStream output = new CountingOutputStream(limit > 0 ? limit : Long.MAX_VALUE);
+        try {
+            objectMapper.writeValue(output, value);
+        } catch (IOException ex) {
+            if (output.exceeded) {
+                return output.limit + 1;
+            }
+            throw new AuditPersistenceException("Failed to serialize audit details", ex);
+        }
+        return output.count;
+    }
+
+    private static String preview(byte[] json, int maxBytes) {
+        if (json.length <= maxBytes) {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+        int end = maxBytes;
+        while (end > 0 && (json[end] & 0xC0) == 0x80) {
+            end--; // do not split a multi-byte character
+        }
+        return new String(json, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(data);
+        } catch (IOException ex) {
+            throw new AuditPersistenceException("Failed to compress audit details", ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private record Measured(String key, long size) {
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final long limit;
+        private long count;
+        private boolean exceeded;
+
+        private CountingOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            add(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            add(len);
+        }
+
+        private void add(int len) throws IOException {
+            count += len;
+            if (count > limit) {
+                // Stop serializing: the exact size of an over-budget value is not needed.
+                exceeded = true;
+                throw new IOException("Audit details budget of " + limit + " bytes exceeded");
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.shared.audit.service;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -18,16 +20,45 @@ import org.springframework.util.StringUtils;
 
 /**
  * Computes chained hashes for audit events.
+ * <p>
+ * New events are hashed with the format configured in {@code shared-lib.audit.hash-format}
+ * and store that format alongside the hash, so rows written with an older format still verify:
+ * <ul>
+ *     <li>{@code 1} - key-sorted JSON of the event, encoded as UTF-8;</li>
+ *     <li>{@code 2} - the canonical binary encoding of {@link CanonicalAuditEncoder}, streamed
+ *     into a per-thread digest without building intermediate strings;</li>
+ *     <li>{@code 3} - the canonical encoding with empty details hashed like {@code null}, small
+ *     {@code BigInteger}s like {@code long} and non-integral numbers as canonical decimal strings,
+ *     matching what is read back from storage.</li>
+ * </ul>
  */
 public class AuditHashService {
 
+    public static final int LEGACY_JSON_FORMAT = 1;
+    public static final int CANONICAL_FORMAT = CanonicalAuditEncoder.FORMAT;
+    public static final int NORMALIZED_FORMAT = CanonicalAuditEncoder.NORMALIZED_FORMAT;
+
     private final AuditProperties auditProperties;
     private final ObjectMapper objectMapper;
+    private final ThreadLocal<CanonicalAuditEncoder> encoders;
 
     public AuditHashService(AuditProperties auditProperties, ObjectMapper objectMapper) {
         this.auditProperties = auditProperties;
         ObjectMapper mapper = objectMapper != null ? objectMapper : new ObjectMapper();
         this.objectMapper = mapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        int format = auditProperties.getHashFormat();
+        if (format != LEGACY_JSON_FORMAT && format != CANONICAL_FORMAT && format != NORMALIZED_FORMAT) {
+            throw new IllegalStateException("audit.hash-format must be " + LEGACY_JSON_FORMAT + ", " + CANONICAL_FORMAT
+                    + " or " + NORMALIZED_FORMAT);
+        }
+        this.encoders = ThreadLocal.withInitial(() -> new CanonicalAuditEncoder(newDigest(), this.objectMapper));
+    }
+
+    /**
+     * Format applied by {@link #computeHash(String, AuditEventRequest)} and recorded in {@code hash_format}.
+     */
+    public int hashFormat() {
+        return auditProperties.getHashFormat();
     }
 
     public String initialHashValue() {
@@ -38,12 +69,52 @@ public class AuditHashService {
         return configured;
     }
 
+    /**
+     * Copies {@code details} into values that no longer reference caller objects: strings,
+     * numbers and booleans are kept, everything else is converted to a JSON tree with the
+     * mapper used for hashing. The copy hashes and serializes like the original, so it can
+     * be queued and hashed later on another thread.
+     */
+    public Map<String, Object> snapshotDetails(Map<String, Object> details) {
+        if (details == null) {
+            return null;
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>(details.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> entry : details.entrySet()) {
+            Object value = entry.getValue();
+            snapshot.put(entry.getKey(), value == null || isImmutableScalar(value) ? value : objectMapper.valueToTree(value));
+        }
+        return snapshot;
+    }
+
+    private static boolean isImmutableScalar(Object value) {
+        return value instanceof String || value instanceof Boolean || value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte || value instanceof Double || value instanceof Float
+                || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
     public String computeHash(String prevHash, AuditEventRequest request) {
+        return computeHash(prevHash, request, hashFormat());
+    }
+
+    /**
+     * Computes the hash with an explicit format, e.g. to verify a row written by an older release.
+     */
+    public String computeHash(String prevHash, AuditEventRequest request, int format) {
+        if (format == CANONICAL_FORMAT || format == NORMALIZED_FORMAT) {
+            return encoders.get().hash(prevHash, request, format);
+        }
+        if (format != LEGACY_JSON_FORMAT) {
+            throw new AuditPersistenceException("Unsupported audit hash format: " + format);
+        }
+        String serialized = serialize(prevHash, request);
+        byte[] result = newDigest().digest(serialized.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(result);
+    }
+
+    private MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance(auditProperties.getHashingAlgorithm());
-            String serialized = serialize(prevHash, request);
-            byte[] result = digest.digest(serialized.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(result);
+            return MessageDigest.getInstance(auditProperties.getHashingAlgorithm());
         } catch (NoSuchAlgorithmException ex) {
             throw new AuditPersistenceException("Unsupported hashing algorithm: " + auditProperties.getHashingAlgorithm(), ex);
         }
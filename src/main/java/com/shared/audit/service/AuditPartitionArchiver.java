@@ -0,0 +1,345 @@
+package com.shared.audit.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditArchiveManifest;
+import com.shared.audit.model.AuditEvent;
+import com.shared.audit.repository.AuditEventRepository;
+
+/**
+ * Streams a closed audit table, typically a detached partition, into a cold-tier archive.
+ * <p>
+ * Rows are written in id order as JSON lines into {@code <table>.jsonl.gz}. Every
+ * {@code blockRows} rows the gzip member is finished and a new one started, so each block
+ * can be decompressed on its own; the block index with id and time ranges goes into
+ * {@code <table>.manifest.json} together with the first and last link of every chain.
+ * Both files are synced to disk and renamed into place, and the manifest is written last,
+ * so its presence marks a complete archive.
+ */
+public class AuditPartitionArchiver {
+
+    public static final String DATA_SUFFIX = ".jsonl.gz";
+    public static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionArchiver.class);
+
+    private final AuditEventRepository auditEventRepository;
+    private final String auditTable;
+    private final ObjectMapper objectMapper;
+    // Manifests hold Instants whatever modules the caller's mapper has.
+    private final ObjectMapper manifestMapper;
+    private final TransactionOperations readOnlyTransactions;
+    private final int blockRows;
+    private final int fetchSize;
+
+    public AuditPartitionArchiver(AuditEventRepository auditEventRepository,
+                                  String auditTable,
+                                  ObjectMapper objectMapper,
+                                  TransactionOperations readOnlyTransactions,
+                                  int blockRows,
+                                  int fetchSize) {
+        this.auditEventRepository = Objects.requireNonNull(auditEventRepository, "auditEventRepository must not be null");
+        this.auditTable = Objects.requireNonNull(auditTable, "auditTable must not be null");
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        this.manifestMapper = objectMapper.copy().registerModule(new JavaTimeModule());
+        this.readOnlyTransactions = Objects.requireNonNull(readOnlyTransactions, "readOnlyTransactions must not be null");
+        this.blockRows = Math.max(1, blockRows);
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    /**
+     * Whether partitions of {@code parentTable} have the audit event layout this archiver reads.
+     */
+    public boolean supports(String parentTable) {
+        return auditTable.equals(parentTable);
+    }
+
+    /**
+     * Archives every row of {@code table} into {@code directory}, replacing an earlier archive of it.
+     */
+    public AuditArchiveManifest archive(String table, Path directory) {
+        String name = table.substring(table.lastIndexOf('.') + 1);
+        Path dataFile = directory.resolve(name + DATA_SUFFIX);
+        Path tempFile = directory.resolve(name + DATA_SUFFIX + ".tmp");
+        ArchiveSink sink;
+        try {
+            Files.createDirectories(directory);
+            sink = new ArchiveSink(FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            try (sink) {
+                readOnlyTransactions.executeWithoutResult(status ->
+                        auditEventRepository.streamEvents(table, Long.MIN_VALUE, Long.MAX_VALUE, fetchSize, sink::write));
+                sink.finishBlock();
+            }
+            Files.move(tempFile, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException ex) {
+            deleteQuietly(tempFile);
+            throw new AuditPersistenceException("Failed to archive audit table " + table, ex);
+        } catch (RuntimeException ex) {
+            deleteQuietly(tempFile);
+            throw ex;
+        }
+
+        AuditArchiveManifest manifest = sink.manifest(table, dataFile.getFileName().toString());
+        Path manifestFile = directory.resolve(name + MANIFEST_SUFFIX);
+        Path tempManifest = directory.resolve(name + MANIFEST_SUFFIX + ".tmp");
+        try {
+            ByteBuffer content = ByteBuffer.wrap(manifestMapper.writer().without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .withDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            try (FileChannel channel = FileChannel.open(tempManifest, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(tempManifest, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+        } catch (IOException ex) {
+            deleteQuietly(tempManifest);
+            throw new AuditPersistenceException("Failed to write audit archive manifest " + manifestFile, ex);
+        }
+        log.info("Archived {} audit rows of {} into {} ({} blocks)", manifest.rowCount(), table, dataFile,
+                manifest.blocks().size());
+        return manifest;
+    }
+
+    /**
+     * Makes the renames in {@code directory} durable. Not every platform can open a
+     * directory for sync, in which case the renames rely on the file system.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            log.debug("Could not sync directory {}", directory, ex);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Failed to delete {}", file, ex);
+        }
+    }
+
+    /**
+     * Writes rows into gzip blocks while tracking the block index and chain links.
+     */
+    private final class ArchiveSink implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final CountingOutputStream file;
+        private final MessageDigest digest;
+        private final Map<Integer, ChainState> chains = new TreeMap<>();
+        private final List<AuditArchiveManifest.Block> blocks = new ArrayList<>();
+        private GZIPOutputStream gzip;
+        private JsonGenerator generator;
+        private long blockOffset;
+        private long blockRowCount;
+        private long blockFirstId;
+        private long blockLastId;
+        private Instant blockMin;
+        private Instant blockMax;
+        private long rowCount;
+        private Instant minOccurredAt;
+        private Instant maxOccurredAt;
+
+        private ArchiveSink(FileChannel channel) {
+            this.channel = channel;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 not available", ex);
+            }
+            this.file = new CountingOutputStream(new DigestOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), digest));
+        }
+
+        private void write(long id, AuditEvent event) {
+            try {
+                if (generator == null) {
+                    startBlock(id);
+                }
+                writeRow(id, event);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            Instant occurredAt = event.getOccurredAt().toInstant();
+            blockRowCount++;
+            blockLastId = id;
+            blockMin = blockMin == null || occurredAt.isBefore(blockMin) ? occurredAt : blockMin;
+            blockMax = blockMax == null || occurredAt.isAfter(blockMax) ? occurredAt : blockMax;
+            rowCount++;
+            minOccurredAt = minOccurredAt == null || occurredAt.isBefore(minOccurredAt) ? occurredAt : minOccurredAt;
+            maxOccurredAt = maxOccurredAt == null || occurredAt.isAfter(maxOccurredAt) ? occurredAt : maxOccurredAt;
+            chains.computeIfAbsent(event.getChainId(), chainId -> new ChainState(id, event.getPrevHash()))
+                    .advance(id, event.getHash());
+            if (blockRowCount >= blockRows) {
+                try {
+                    finishBlock();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+
+        private void startBlock(long id) throws IOException {
+            blockOffset = file.count;
+            blockFirstId = id;
+            gzip = new GZIPOutputStream(new FilterOutputStream(file) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    // Keep the data file open for the next block.
+                }
+            }, 8192);
+            generator = objectMapper.getFactory().createGenerator(gzip);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        private void writeRow(long id, AuditEvent event) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("occurredAt", event.getOccurredAt().toInstant().toString());
+            generator.writeStringField("traceId", event.getTraceId());
+            generator.writeStringField("userId", event.getUserId());
+            generator.writeStringField("action", event.getAction());
+            generator.writeStringField("resourceType", event.getResourceType());
+            writeOptional("resourceId", event.getResourceId().orElse(null));
+            generator.writeStringField("outcome", event.getOutcome());
+            writeOptional("clientIp", event.getClientIp().orElse(null));
+            writeOptional("userAgent", event.getUserAgent().orElse(null));
+            if (event.getDetails() != null) {
+                generator.writeObjectField("details", event.getDetails());
+            }
+            generator.writeStringField("prevHash", event.getPrevHash());
+            generator.writeStringField("hash", event.getHash());
+            writeOptional("responseHash", event.getResponseHash().orElse(null));
+            writeOptional("referer", event.getReferer().orElse(null));
+            writeOptional("clientSource", event.getClientSource().orElse(null));
+            writeOptional("requestedWith", event.getRequestedWith().orElse(null));
+            generator.writeNumberField("chainId", event.getChainId());
+            generator.writeNumberField("hashFormat", event.getHashFormat());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeOptional(String field, String value) throws IOException {
+            if (value != null) {
+                generator.writeStringField(field, value);
+            }
+        }
+
+        private void finishBlock() throws IOException {
+            if (generator == null) {
+                return;
+            }
+            generator.close();
+            gzip.close();
+            blocks.add(new AuditArchiveManifest.Block(blockOffset, file.count - blockOffset, blockRowCount,
+                    blockFirstId, blockLastId, blockMin, blockMax));
+            generator = null;
+            gzip = null;
+            blockRowCount = 0;
+            blockMin = null;
+            blockMax = null;
+        }
+
+        private AuditArchiveManifest manifest(String table, String dataFile) {
+            List<AuditArchiveManifest.ChainSegment> segments = new ArrayList<>(chains.size());
+            chains.forEach((chainId, state) -> segments.add(new AuditArchiveManifest.ChainSegment(chainId, state.rows,
+                    state.firstId, state.firstPrevHash, state.lastId, state.lastHash)));
+            long firstId = blocks.isEmpty() ? 0L : blocks.get(0).firstId();
+            long lastId = blocks.isEmpty() ? 0L : blocks.get(blocks.size() - 1).lastId();
+            return new AuditArchiveManifest(table, dataFile, HexFormat.of().formatHex(digest.digest()), rowCount,
+                    firstId, lastId, minOccurredAt, maxOccurredAt, segments, blocks);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                file.flush();
+                channel.force(true);
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    private static final class ChainState {
+
+        private final long firstId;
+        private final String firstPrevHash;
+        private long rows;
+        private long lastId;
+        private String lastHash;
+
+        private ChainState(long firstId, String firstPrevHash) {
+            this.firstId = firstId;
+            this.firstPrevHash = firstPrevHash;
+        }
+
+        private void advance(long id, String hash) {
+            rows++;
+            lastId = id;
+            lastHash = hash;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.shared.audit.service;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import com.shared.audit.model.AuditArchiveManifest;
+import com.shared.audit.repository.AuditPartitionRepository;
+import com.shared.config.AuditProperties;
+
+/**
+ * Maintains the {@code occurred_at} range partitions of the audit tables.
+ * <p>
+ * Each run makes sure the partition for the current period and the next {@code premake}
+ * periods exist, and expires partitions that ended more than {@code retention} ago by
+ * detaching (and optionally moving), archiving with an {@link AuditPartitionArchiver} or
+ * dropping them. Partitions are named
+ * {@code <table>_p<yyyyMMdd>} after their first day; other partitions are left alone.
+ * <p>
+ * Every instance schedules the runs, but each run first takes a PostgreSQL advisory lock keyed
+ * by the managed tables and is skipped while another instance holds it, so only one instance
+ * creates, archives or drops partitions at a time.
+ */
+public class AuditPartitionManager implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionManager.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final AuditPartitionRepository repository;
+    private final List<String> tables;
+    private final AuditProperties.PartitionProperties properties;
+    private final Clock clock;
+    private final AuditPartitionArchiver archiver;
+    private final long lockKey;
+    private ScheduledExecutorService scheduler;
+
+    public AuditPartitionManager(AuditPartitionRepository repository,
+                                 List<String> tables,
+                                 AuditProperties.PartitionProperties properties,
+                                 Clock clock) {
+        this(repository, tables, properties, clock, null);
+    }
+
+    public AuditPartitionManager(AuditPartitionRepository repository,
+                                 List<String> tables,
+                                 AuditProperties.PartitionProperties properties,
+                                 Clock clock,
+                                 @Nullable AuditPartitionArchiver archiver) {
+        this.repository = Objects.requireNonNull(repository, "repository must not be null");
+        this.tables = List.copyOf(Objects.requireNonNull(tables, "tables must not be null"));
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.archiver = archiver;
+        this.lockKey = String.join(",", this.tables).hashCode();
+        if (properties.getExpiry() == AuditProperties.PartitionProperties.Expiry.ARCHIVE
+                && (archiver == null || !StringUtils.hasText(properties.getArchiveDirectory()))) {
+            throw new IllegalArgumentException("ARCHIVE expiry requires an AuditPartitionArchiver and an archive-directory");
+        }
+    }
+
+    /**
+     * Runs {@link #maintain()} now and then every {@code check-interval}.
+     */
+    public synchronized void start() {
+        Duration interval = properties.getCheckInterval();
+        if (interval == null || interval.isZero() || interval.isNegative() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-audit-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, 0L, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates missing upcoming partitions and expires old ones on every managed table. Returns an
+     * empty result without touching any table while another instance is maintaining them.
+     */
+    public Maintenance maintain() {
+        List<String> created = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+        boolean ran = repository.runWithAdvisoryLock(lockKey, () -> {
+            for (String table : tables) {
+                maintain(table, created, expired);
+            }
+        });
+        if (!ran) {
+            log.debug("Skipped audit partition maintenance; another instance holds the lock");
+        }
+        return new Maintenance(List.copyOf(created), List.copyOf(expired));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void maintain(String table, List<String> created, List<String> expired) {
+        int dot = table.lastIndexOf('.');
+        String schemaPrefix = dot >= 0 ? table.substring(0, dot + 1) : "";
+        String prefix = table.substring(dot + 1) + "_p";
+        AuditProperties.PartitionProperties.Interval interval = properties.getInterval();
+        Set<String> existing = new TreeSet<>(repository.findPartitions(table));
+
+        LocalDate start = interval.startOf(LocalDate.now(clock.withZone(ZoneOffset.UTC)));
+        for (int i = 0; i <= Math.max(0, properties.getPremake()); i++) {
+            LocalDate end = interval.next(start);
+            String partition = prefix + SUFFIX.format(start);
+            if (!existing.contains(partition)) {
+                repository.createPartition(table, schemaPrefix + partition, start, end);
+                created.add(schemaPrefix + partition);
+                log.info("Created audit partition {} for [{}, {})", schemaPrefix + partition, start, end);
+            }
+            start = end;
+        }
+
+        Duration retention = properties.getRetention();
+        if (retention == null || retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        Instant cutoff = clock.instant().minus(retention);
+        for (String partition : existing) {
+            LocalDate partitionStart = parseStart(partition, prefix);
+            if (partitionStart == null
+                    || interval.next(partitionStart).atStartOfDay().toInstant(ZoneOffset.UTC).isAfter(cutoff)) {
+                continue;
+            }
+            expire(table, schemaPrefix + partition);
+            expired.add(schemaPrefix + partition);
+        }
+    }
+
+    private void expire(String table, String partition) {
+        if (properties.getExpiry() == AuditProperties.PartitionProperties.Expiry.DROP) {
+            repository.dropTable(partition);
+            log.info("Dropped expired audit partition {}", partition);
+            return;
+        }
+        if (properties.getExpiry() == AuditProperties.PartitionProperties.Expiry.ARCHIVE && archiver.supports(table)) {
+            archive(table, partition);
+            return;
+        }
+        // Tables the archiver cannot read, such as the entity audit table, are detached instead.
+        repository.detachPartition(table, partition);
+        if (StringUtils.hasText(properties.getArchiveSchema())) {
+            repository.moveToSchema(partition, properties.getArchiveSchema());
+        }
+        log.info("Detached expired audit partition {}", partition);
+    }
+
+    /**
+     * Archives {@code partition} while it is still attached, so a failed archive leaves it in
+     * place for the next run, then detaches and drops it.
+     */
+    private void archive(String table, String partition) {
+        Path directory = Path.of(properties.getArchiveDirectory());
+        AuditArchiveManifest manifest = archiver.archive(partition, directory);
+        repository.detachPartition(table, partition);
+        // A back-dated event may have landed between the archive and the detach.
+        if (repository.countRows(partition) != manifest.rowCount()) {
+            try {
+                archiver.archive(partition, directory);
+            } catch (RuntimeException ex) {
+                log.error("Expired audit partition {} is detached but not archived; archive and drop it manually",
+                        partition, ex);
+                throw ex;
+            }
+        }
+        repository.dropTable(partition);
+        log.info("Archived and dropped expired audit partition {}", partition);
+    }
+
+    private static LocalDate parseStart(String partition, String prefix) {
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(prefix.length()), SUFFIX);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (RuntimeException ex) {
+            log.error("Failed to maintain audit partitions", ex);
+        }
+    }
+
+    /**
+     * Qualified names of the partitions created and expired by one run.
+     */
+    public record Maintenance(List<String> created, List<String> expired) {
+    }
+}
@@ -2,41 +2,281 @@ package com.shared.audit.service;
 
 import java.time.Clock;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 import com.shared.audit.exception.AuditPersistenceException;
 import com.shared.audit.model.AuditEvent;
 import com.shared.audit.model.AuditEventRequest;
 import com.shared.audit.model.AuditRecord;
 import com.shared.audit.repository.AuditEventRepository;
+import com.shared.config.AuditProperties;
 
 /**
  * Facade used by client applications to record audit trail entries.
+ * <p>
+ * When {@code shared-lib.audit.async.enabled=true} events are handed to an
+ * {@link AsyncAuditEventWriter} and persisted in batches off the caller's thread;
+ * otherwise every event is written synchronously.
+ * <p>
+ * Events are spread over {@code shared-lib.audit.chain.count} independent hash chains by
+ * the {@link AuditChainSelector}; each chain has its own head, so appends to different
+ * chains proceed in parallel.
  */
-public class AuditTrailService {
+public class AuditTrailService implements AutoCloseable {
+
+    /**
+     * Requests held in memory at once by {@link #ingest(Iterator)}.
+     */
+    public static final int DEFAULT_INGEST_CHUNK_SIZE = 10_000;
 
     private final AuditEventRepository auditEventRepository;
     private final AuditHashService auditHashService;
     private final Clock clock;
+    private final AuditChainHeadManager chainHeadManager;
+    private final AuditChainSelector chainSelector;
+    private final AsyncAuditEventWriter[] asyncWriters;
+    private final AuditDetailsBudget detailsBudget;
 
     public AuditTrailService(AuditEventRepository auditEventRepository,
                              AuditHashService auditHashService,
                              Clock clock) {
+        this(auditEventRepository, auditHashService, clock, null);
+    }
+
+    public AuditTrailService(AuditEventRepository auditEventRepository,
+                             AuditHashService auditHashService,
+                             Clock clock,
+                             AuditProperties.AsyncProperties asyncProperties) {
+        this(auditEventRepository, auditHashService, clock,
+                new AuditChainHeadManager(auditEventRepository, auditHashService), asyncProperties);
+    }
+
+    public AuditTrailService(AuditEventRepository auditEventRepository,
+                             AuditHashService auditHashService,
+                             Clock clock,
+                             AuditChainHeadManager chainHeadManager,
+                             AuditProperties.AsyncProperties asyncProperties) {
+        this(auditEventRepository, auditHashService, clock, chainHeadManager,
+                new AuditChainSelector(new AuditProperties()), asyncProperties);
+    }
+
+    public AuditTrailService(AuditEventRepository auditEventRepository,
+                             AuditHashService auditHashService,
+                             Clock clock,
+                             AuditChainHeadManager chainHeadManager,
+                             AuditChainSelector chainSelector,
+                             AuditProperties.AsyncProperties asyncProperties) {
+        this(auditEventRepository, auditHashService, clock, chainHeadManager, chainSelector, asyncProperties, null);
+    }
+
+    public AuditTrailService(AuditEventRepository auditEventRepository,
+                             AuditHashService auditHashService,
+                             Clock clock,
+                             AuditChainHeadManager chainHeadManager,
+                             AuditChainSelector chainSelector,
+                             AuditProperties.AsyncProperties asyncProperties,
+                             AuditDetailsBudget detailsBudget) {
         this.auditEventRepository = Objects.requireNonNull(auditEventRepository, "auditEventRepository must not be null");
         this.auditHashService = Objects.requireNonNull(auditHashService, "auditHashService must not be null");
         this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.chainHeadManager = Objects.requireNonNull(chainHeadManager, "chainHeadManager must not be null");
+        this.chainSelector = Objects.requireNonNull(chainSelector, "chainSelector must not be null");
+        if (chainSelector.chainCount() > chainHeadManager.chainCount()) {
+            throw new IllegalStateException("audit.chain.count (" + chainSelector.chainCount()
+                    + ") exceeds the chains managed by the head manager (" + chainHeadManager.chainCount() + ")");
+        }
+        this.detailsBudget = detailsBudget;
+        this.asyncWriters = asyncProperties != null && asyncProperties.isEnabled()
+                ? createWriters(asyncProperties)
+                : null;
     }
 
+    /**
+     * Records the event and waits until it is persisted.
+     */
     public AuditRecord recordEvent(AuditEventRequest request) {
+        if (asyncWriters != null) {
+            return await(submitEvent(request));
+        }
+
         validate(request);
+        applyDetailsBudget(request);
+        OffsetDateTime occurredAt = resolveOccurredAt(request);
+        int chainId = chainSelector.chainFor(request);
 
-        String previousHash = auditEventRepository.findLatestHash()
-                .orElseGet(auditHashService::initialHashValue);
+        return chainHeadManager.append(chainId, previousHash -> {
+            String hash = auditHashService.computeHash(previousHash, request);
+            long id = auditEventRepository.save(toEvent(request, occurredAt, chainId, previousHash, hash));
+            return new AuditChainHeadManager.Appended<>(hash, new AuditRecord(id, occurredAt, hash, previousHash, chainId));
+        });
+    }
 
-        String hash = auditHashService.computeHash(previousHash, request);
-        OffsetDateTime occurredAt = request.getOccurredAt() != null ? request.getOccurredAt() : OffsetDateTime.now(clock);
+    /**
+     * Records the event without waiting for persistence when the async writer is enabled.
+     * The details are copied with {@link AuditHashService#snapshotDetails(Map)} and budgeted
+     * on the caller's thread before the event is queued, so lazy associations are read while
+     * their session is open and later changes by the caller do not alter the audited event.
+     * In synchronous mode this behaves exactly like {@link #recordEvent(AuditEventRequest)}
+     * and returns an already completed future.
+     */
+    public CompletableFuture<AuditRecord> submitEvent(AuditEventRequest request) {
+        if (asyncWriters == null) {
+            return CompletableFuture.completedFuture(recordEvent(request));
+        }
+        validate(request);
+        request.setDetails(auditHashService.snapshotDetails(request.getDetails()));
+        applyDetailsBudget(request);
+        int chainId = chainSelector.chainFor(request);
+        return asyncWriters[chainId % asyncWriters.length].submit(request, resolveOccurredAt(request), chainId);
+    }
+
+    /**
+     * Bulk-loads events, e.g. a backfill or an import, bypassing the async writer.
+     *
+     * @return number of events written
+     * @see #ingest(Iterator, int)
+     */
+    public long ingest(Stream<AuditEventRequest> requests) {
+        return ingest(requests.iterator(), DEFAULT_INGEST_CHUNK_SIZE);
+    }
 
-        AuditEvent event = AuditEvent.builder()
+    /**
+     * @see #ingest(Iterator, int)
+     */
+    public long ingest(Iterator<AuditEventRequest> requests) {
+        return ingest(requests, DEFAULT_INGEST_CHUNK_SIZE);
+    }
+
+    /**
+     * Bulk-loads events read from {@code requests}, at most {@code chunkSize} at a time. Each chunk
+     * is split by chain, hashed on top of the chain heads as it is written and inserted with
+     * {@link AuditEventRepository#insertAll(List)}, which streams the rows through {@code COPY} on
+     * PostgreSQL. Each chain's share of a chunk commits on its own, so a failure leaves the earlier
+     * chunks in place, together with the shares of the failing chunk already written to other
+     * chains, and every chain intact.
+     *
+     * @return number of events written
+     */
+    public long ingest(Iterator<AuditEventRequest> requests, int chunkSize) {
+        Objects.requireNonNull(requests, "requests must not be null");
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        long written = 0;
+        Map<Integer, List<IngestedEvent>> byChain = new LinkedHashMap<>();
+        while (requests.hasNext()) {
+            byChain.clear();
+            for (int i = 0; i < chunkSize && requests.hasNext(); i++) {
+                AuditEventRequest request = requests.next();
+                validate(request);
+                applyDetailsBudget(request);
+                int chainId = chainSelector.chainFor(request);
+                byChain.computeIfAbsent(chainId, id -> new ArrayList<>())
+                        .add(new IngestedEvent(request, resolveOccurredAt(request)));
+            }
+            for (Map.Entry<Integer, List<IngestedEvent>> chain : byChain.entrySet()) {
+                written += ingestChain(chain.getKey(), chain.getValue());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Flushes queued events and stops the async writer, if one is running.
+     */
+    @Override
+    public void close() {
+        if (asyncWriters != null) {
+            for (AsyncAuditEventWriter writer : asyncWriters) {
+                writer.close();
+            }
+        }
+    }
+
+    private AsyncAuditEventWriter[] createWriters(AuditProperties.AsyncProperties asyncProperties) {
+        int count = Math.max(1, Math.min(asyncProperties.getWriterThreads(), chainSelector.chainCount()));
+        AsyncAuditEventWriter[] writers = new AsyncAuditEventWriter[count];
+        for (int i = 0; i < count; i++) {
+            String threadName = count == 1 ? "shared-lib-audit-writer" : "shared-lib-audit-writer-" + i;
+            writers[i] = new AsyncAuditEventWriter(this::writeBatch, asyncProperties, threadName);
+        }
+        return writers;
+    }
+
+    private List<AsyncAuditEventWriter.WriteResult> writeBatch(List<AsyncAuditEventWriter.PendingAuditEvent> batch) {
+        Map<Integer, List<AsyncAuditEventWriter.PendingAuditEvent>> byChain = new LinkedHashMap<>();
+        for (AsyncAuditEventWriter.PendingAuditEvent pending : batch) {
+            byChain.computeIfAbsent(pending.chainId(), id -> new ArrayList<>()).add(pending);
+        }
+
+        // Each chain commits on its own, so a failing chain fails only its own events.
+        Map<AsyncAuditEventWriter.PendingAuditEvent, AsyncAuditEventWriter.WriteResult> results =
+                new IdentityHashMap<>(batch.size());
+        byChain.forEach((chainId, chainBatch) -> {
+            try {
+                List<AuditRecord> records = writeChainBatch(chainId, chainBatch);
+                for (int i = 0; i < chainBatch.size(); i++) {
+                    results.put(chainBatch.get(i), AsyncAuditEventWriter.WriteResult.written(records.get(i)));
+                }
+            } catch (RuntimeException ex) {
+                AsyncAuditEventWriter.WriteResult failure = AsyncAuditEventWriter.WriteResult.failed(ex);
+                chainBatch.forEach(pending -> results.put(pending, failure));
+            }
+        });
+
+        List<AsyncAuditEventWriter.WriteResult> ordered = new ArrayList<>(batch.size());
+        for (AsyncAuditEventWriter.PendingAuditEvent pending : batch) {
+            ordered.add(results.get(pending));
+        }
+        return ordered;
+    }
+
+    private List<AuditRecord> writeChainBatch(int chainId, List<AsyncAuditEventWriter.PendingAuditEvent> batch) {
+        return chainHeadManager.append(chainId, headHash -> {
+            String previousHash = headHash;
+            List<AuditEvent> events = new ArrayList<>(batch.size());
+            for (AsyncAuditEventWriter.PendingAuditEvent pending : batch) {
+                String hash = auditHashService.computeHash(previousHash, pending.request());
+                events.add(toEvent(pending.request(), pending.occurredAt(), chainId, previousHash, hash));
+                previousHash = hash;
+            }
+
+            long[] ids = auditEventRepository.saveAll(events);
+
+            List<AuditRecord> records = new ArrayList<>(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                AuditEvent event = events.get(i);
+                records.add(new AuditRecord(ids[i], event.getOccurredAt(), event.getHash(), event.getPrevHash(), chainId));
+            }
+            return new AuditChainHeadManager.Appended<>(previousHash, records);
+        });
+    }
+
+    private long ingestChain(int chainId, List<IngestedEvent> batch) {
+        return chainHeadManager.append(chainId, headHash -> {
+            String previousHash = headHash;
+            List<AuditEvent> events = new ArrayList<>(batch.size());
+            for (IngestedEvent ingested : batch) {
+                String hash = auditHashService.computeHash(previousHash, ingested.request());
+                events.add(toEvent(ingested.request(), ingested.occurredAt(), chainId, previousHash, hash));
+                previousHash = hash;
+            }
+            return new AuditChainHeadManager.Appended<>(previousHash, auditEventRepository.insertAll(events));
+        });
+    }
+
+    private AuditEvent toEvent(AuditEventRequest request, OffsetDateTime occurredAt, int chainId,
+                               String previousHash, String hash) {
+        return AuditEvent.builder()
                 .occurredAt(occurredAt)
                 .traceId(request.getTraceId())
                 .userId(request.getUserId())
@@ -47,6 +287,8 @@ public class AuditTrailService {
                 .clientIp(request.getClientIp().orElse(null))
                 .userAgent(request.getUserAgent().orElse(null))
                 .details(request.getDetails())
+                .chainId(chainId)
+                .hashFormat(auditHashService.hashFormat())
                 .prevHash(previousHash)
                 .hash(hash)
                 .responseHash(request.getResponseHash().orElse(null))
@@ -54,9 +296,27 @@ public class AuditTrailService {
                 .clientSource(request.getClientSource().orElse(null))
                 .requestedWith(request.getRequestedWith().orElse(null))
                 .build();
+    }
+
+    private void applyDetailsBudget(AuditEventRequest request) {
+        if (detailsBudget != null) {
+            request.setDetails(detailsBudget.apply(request.getDetails()));
+        }
+    }
 
-        long id = auditEventRepository.save(event);
-        return new AuditRecord(id, occurredAt, hash, previousHash);
+    private OffsetDateTime resolveOccurredAt(AuditEventRequest request) {
+        return request.getOccurredAt() != null ? request.getOccurredAt() : OffsetDateTime.now(clock);
+    }
+
+    private AuditRecord await(CompletableFuture<AuditRecord> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new AuditPersistenceException("Failed to persist audit event", ex.getCause());
+        }
     }
 
     private void validate(AuditEventRequest request) {
@@ -83,4 +343,7 @@ public class AuditTrailService {
     private boolean hasText(String value) {
         return value != null && !value.isBlank();
     }
+
+    private record IngestedEvent(AuditEventRequest request, OffsetDateTime occurredAt) {
+    }
 }
@@ -1,5 +1,6 @@
 package com.shared.audit.service;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,14 +8,13 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.stereotype.Component;
 
 import com.shared.audit.AuditHelper;
 import com.shared.common.annotation.Auditable;
+import com.shared.common.expression.MethodExpressionEvaluator;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
@@ -27,7 +27,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 public class AuditableAspect {
 
     private final AuditHelper auditHelper;
-    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final MethodExpressionEvaluator expressionEvaluator = new MethodExpressionEvaluator();
 
     public AuditableAspect(AuditHelper auditHelper) {
         this.auditHelper = auditHelper;
@@ -52,9 +52,13 @@ public class AuditableAspect {
             details.put("error", throwable.getMessage());
             throw throwable;
         } finally {
-            // Evaluate SpEL expressions for resourceId and details
-            String resourceId = evaluateSpel(auditable.resourceId(), joinPoint);
-            Map<String, Object> additionalDetails = evaluateDetailsSpel(auditable.details(), joinPoint);
+            // Evaluate SpEL expressions for resourceId and details against one shared context
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            Class<?> targetClass = joinPoint.getTarget() != null
+                    ? AopUtils.getTargetClass(joinPoint.getTarget()) : method.getDeclaringClass();
+            EvaluationContext context = expressionEvaluator.createContext(method, joinPoint.getArgs());
+            String resourceId = evaluateSpel(auditable.resourceId(), method, targetClass, context);
+            Map<String, Object> additionalDetails = evaluateDetailsSpel(auditable.details(), method, targetClass, context);
 
             if (additionalDetails != null) {
                 details.putAll(additionalDetails);
@@ -72,53 +76,31 @@ public class AuditableAspect {
         return result;
     }
 
-    private String evaluateSpel(String spelExpression, ProceedingJoinPoint joinPoint) {
+    private String evaluateSpel(String spelExpression, Method method, Class<?> targetClass, EvaluationContext context) {
         if (spelExpression == null || spelExpression.isBlank()) {
             return null;
         }
 
         try {
-            Expression expression = expressionParser.parseExpression(spelExpression);
-            StandardEvaluationContext context = createEvaluationContext(joinPoint);
-            return expression.getValue(context, String.class);
+            return expressionEvaluator.evaluate(spelExpression, method, targetClass, context, String.class);
         } catch (Exception e) {
             // If SpEL evaluation fails, return the expression as is or log error
             return spelExpression;
         }
     }
 
-    private Map<String, Object> evaluateDetailsSpel(String spelExpression, ProceedingJoinPoint joinPoint) {
+    private Map<String, Object> evaluateDetailsSpel(String spelExpression, Method method, Class<?> targetClass,
+                                                    EvaluationContext context) {
         if (spelExpression == null || spelExpression.isBlank()) {
             return null;
         }
 
         try {
-            Expression expression = expressionParser.parseExpression(spelExpression);
-            StandardEvaluationContext context = createEvaluationContext(joinPoint);
             @SuppressWarnings("unchecked")
-            Map<String, Object> details = expression.getValue(context, Map.class);
+            Map<String, Object> details = expressionEvaluator.evaluate(spelExpression, method, targetClass, context, Map.class);
             return details;
         } catch (Exception e) {
             return null;
         }
     }
-
-    private StandardEvaluationContext createEvaluationContext(ProceedingJoinPoint joinPoint) {
-        StandardEvaluationContext context = new StandardEvaluationContext();
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String[] paramNames = signature.getParameterNames();
-        Object[] args = joinPoint.getArgs();
-
-        if (paramNames != null && args != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
-        }
-
-        // Add method name and class
-        context.setVariable("methodName", signature.getName());
-        context.setVariable("className", signature.getDeclaringType().getSimpleName());
-
-        return context;
-    }
 }
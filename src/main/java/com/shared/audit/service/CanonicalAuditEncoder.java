@@ -0,0 +1,332 @@
+package com.shared.audit.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditEventRequest;
+
+/**
+ * Streams the canonical binary form of an audit event straight into a reusable
+ * {@link MessageDigest} (hash formats 2 and 3).
+ * <p>
+ * Every value is written as a one-byte type tag followed by its payload; strings are
+ * length-prefixed UTF-8, map entries are ordered by key and numbers are normalised
+ * to {@code long}, {@code double} or a decimal string. Values that are not plain
+ * maps, collections, strings, numbers or booleans are converted with Jackson first,
+ * which yields the same encoding as their persisted JSON form.
+ * <p>
+ * Format 3 also hashes empty details like {@code null}, as they are persisted as NULL,
+ * encodes a {@link BigInteger} that fits a {@code long} as a {@code long}, as it reads back
+ * from JSON, and writes every non-integral number as its canonical decimal string, so a
+ * {@link BigDecimal} amount hashes the same as the value read back from the stored JSON.
+ * Format 2 keeps its original encoding so that rows written with it still verify.
+ * <p>
+ * Instances are not thread-safe; {@link AuditHashService} keeps one per thread.
+ */
+final class CanonicalAuditEncoder {
+
+    static final int FORMAT = 2;
+    static final int NORMALIZED_FORMAT = 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_TRUE = 4;
+    private static final byte TAG_FALSE = 5;
+    private static final byte TAG_MAP = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_DECIMAL = 8;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+    private final ObjectMapper objectMapper;
+    private final byte[] buffer = new byte[1024];
+    private final byte[] result;
+    private final char[] hex;
+    private int position;
+    private int format;
+
+    CanonicalAuditEncoder(MessageDigest digest, ObjectMapper objectMapper) {
+        this.digest = digest;
+        this.objectMapper = objectMapper;
+        this.result = new byte[digest.getDigestLength()];
+        this.hex = new char[result.length * 2];
+    }
+
+    String hash(String prevHash, AuditEventRequest request, int format) {
+        digest.reset();
+        position = 0;
+        this.format = format;
+        writeByte(format);
+        writeString(prevHash);
+        writeString(request.getTraceId());
+        writeString(request.getUserId());
+        writeString(request.getAction());
+        writeString(request.getResourceType());
+        writeString(request.getResourceId().orElse(null));
+        writeString(request.getOutcome());
+        writeString(request.getClientIp().orElse(null));
+        writeString(request.getUserAgent().orElse(null));
+        writeString(request.getReferer().orElse(null));
+        writeString(request.getClientSource().orElse(null));
+        writeString(request.getRequestedWith().orElse(null));
+        Map<String, Object> details = request.getDetails();
+        writeValue(format >= NORMALIZED_FORMAT && details != null && details.isEmpty() ? null : details);
+        writeString(request.getResponseHash().orElse(null));
+        return finish();
+    }
+
+    private String finish() {
+        flush();
+        try {
+            digest.digest(result, 0, result.length);
+        } catch (DigestException ex) {
+            throw new AuditPersistenceException("Failed to complete audit hash", ex);
+        }
+        for (int i = 0; i < result.length; i++) {
+            hex[i * 2] = HEX[(result[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = HEX[result[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof CharSequence text) {
+            writeString(text);
+        } else if (value instanceof Boolean bool) {
+            writeByte(bool ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            writeByte(TAG_LONG);
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double number && format >= NORMALIZED_FORMAT) {
+            writeDecimal(number);
+        } else if (value instanceof Double number) {
+            writeDouble(number);
+        } else if (value instanceof Float number && format >= NORMALIZED_FORMAT) {
+            writeDecimal(Float.isFinite(number) ? new BigDecimal(Float.toString(number)) : null, number);
+        } else if (value instanceof Float number) {
+            // Widen through the decimal form so 1.1f encodes like the 1.1 read back from JSON.
+            writeDouble(Double.parseDouble(Float.toString(number)));
+        } else if (value instanceof BigInteger number && number.bitLength() < Long.SIZE && format >= NORMALIZED_FORMAT) {
+            writeByte(TAG_LONG);
+            writeLong(number.longValue());
+        } else if (value instanceof BigDecimal number && format >= NORMALIZED_FORMAT) {
+            writeDecimal(number, number);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writeByte(TAG_DECIMAL);
+            writeString(value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(map);
+        } else if (value instanceof Collection<?> collection) {
+            writeByte(TAG_LIST);
+            writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        } else if (value instanceof Object[] array) {
+            writeByte(TAG_LIST);
+            writeInt(array.length);
+            for (Object element : array) {
+                writeValue(element);
+            }
+        } else if (value instanceof JsonNode node) {
+            writeNode(node);
+        } else {
+            writeNode(objectMapper.valueToTree(value));
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        writeByte(TAG_MAP);
+        writeInt(map.size());
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (Object key : map.keySet()) {
+            keys[i++] = String.valueOf(key);
+        }
+        Arrays.sort(keys);
+        boolean stringKeys = map.isEmpty() || map.keySet().iterator().next() instanceof String;
+        for (String key : keys) {
+            writeString(key);
+            writeValue(stringKeys ? map.get(key) : lookup(map, key));
+        }
+    }
+
+    private static Object lookup(Map<?, ?> map, String key) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (key.equals(String.valueOf(entry.getKey()))) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeNode(JsonNode node) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            writeByte(TAG_NULL);
+        } else if (node.isTextual()) {
+            writeString(node.textValue());
+        } else if (node.isBoolean()) {
+            writeByte(node.booleanValue() ? TAG_TRUE : TAG_FALSE);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            writeByte(TAG_LONG);
+            writeLong(node.longValue());
+        } else if (node.isFloat() && format >= NORMALIZED_FORMAT) {
+            float number = node.floatValue();
+            writeDecimal(Float.isFinite(number) ? new BigDecimal(Float.toString(number)) : null, number);
+        } else if (node.isFloatingPointNumber() && !node.isBigDecimal() && format >= NORMALIZED_FORMAT) {
+            writeDecimal(node.doubleValue());
+        } else if (node.isBigDecimal() && format >= NORMALIZED_FORMAT) {
+            writeDecimal(node.decimalValue(), node.decimalValue());
+        } else if (node.isFloatingPointNumber() && !node.isBigDecimal()) {
+            writeDouble(node.doubleValue());
+        } else if (node.isNumber()) {
+            writeByte(TAG_DECIMAL);
+            writeString(node.numberValue().toString());
+        } else if (node.isObject()) {
+            writeByte(TAG_MAP);
+            writeInt(node.size());
+            String[] names = new String[node.size()];
+            Iterator<String> fieldNames = node.fieldNames();
+            for (int i = 0; fieldNames.hasNext(); i++) {
+                names[i] = fieldNames.next();
+            }
+            Arrays.sort(names);
+            for (String name : names) {
+                writeString(name);
+                writeNode(node.get(name));
+            }
+        } else if (node.isArray()) {
+            writeByte(TAG_LIST);
+            writeInt(node.size());
+            for (JsonNode element : node) {
+                writeNode(element);
+            }
+        } else {
+            writeString(node.asText());
+        }
+    }
+
+    private void writeDecimal(double value) {
+        writeDecimal(Double.isFinite(value) ? BigDecimal.valueOf(value) : null, value);
+    }
+
+    /**
+     * Writes a number without trailing zeros, so {@code 12.50}, {@code 12.5} and the
+     * double {@code 12.5} encode alike. NaN and infinities have no decimal form and are
+     * written as the strings Jackson persists them as.
+     */
+    private void writeDecimal(BigDecimal value, Number original) {
+        if (value == null) {
+            writeString(original.toString());
+            return;
+        }
+        writeByte(TAG_DECIMAL);
+        writeString(value.stripTrailingZeros().toString());
+    }
+
+    private void writeDouble(double value) {
+        writeByte(TAG_DOUBLE);
+        writeLong(Double.doubleToLongBits(value == 0.0d ? 0.0d : value));
+    }
+
+    private void writeString(CharSequence value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+            return;
+        }
+        writeByte(TAG_STRING);
+        int length = value.length();
+        writeInt(utf8Length(value, length));
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                // Lone surrogates are replaced with '?', matching String.getBytes(UTF_8).
+                char encoded = Character.isSurrogate(c) ? '?' : c;
+                if (encoded < 0x80) {
+                    writeByte(encoded);
+                    continue;
+                }
+                ensure(3);
+                buffer[position++] = (byte) (0xe0 | (encoded >> 12));
+                buffer[position++] = (byte) (0x80 | ((encoded >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (encoded & 0x3f));
+            }
+        }
+    }
+
+    private static int utf8Length(CharSequence value, int length) {
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return bytes;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensure(int bytes) {
+        if (position + bytes > buffer.length) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (position > 0) {
+            digest.update(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.shared.audit.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Computes the SHA-256 of a value's JSON form by streaming the serializer output straight
+ * into the digest, without building the JSON string. The hash equals that of
+ * {@code objectMapper.writeValueAsString(value)} encoded as UTF-8.
+ */
+public class ResponseHasher {
+
+    private final ObjectMapper objectMapper;
+
+    public ResponseHasher(ObjectMapper objectMapper) {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+    }
+
+    /**
+     * Hex-encoded hash and the number of JSON bytes it covers.
+     */
+    public record ResponseDigest(String hash, long size) {
+    }
+
+    public ResponseDigest digest(Object value) throws IOException {
+        DigestingOutputStream output = new DigestingOutputStream(newDigest());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+            objectMapper.writeValue(generator, value);
+        }
+        return new ResponseDigest(HexFormat.of().formatHex(output.digest.digest()), output.size);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class DigestingOutputStream extends OutputStream {
+
+        private final MessageDigest digest;
+        private long size;
+
+        private DigestingOutputStream(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(int b) {
+            digest.update((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+            size += len;
+        }
+    }
+}
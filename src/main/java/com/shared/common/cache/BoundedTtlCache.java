@@ -0,0 +1,156 @@
+package com.shared.common.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small in-process cache bounded by entry count and time to live.
+ * <p>
+ * Entries are kept in least-recently-used order and the eldest entry is evicted once
+ * {@code maximumSize} is exceeded. Expired entries are dropped when they are read.
+ * Absent results are cached as negative entries for {@code negativeTtl}, which may be
+ * shorter than {@code ttl} or zero to disable them. Loaders run outside the cache lock,
+ * so concurrent misses for the same key may load it more than once.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maximumSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maximumSize, Duration ttl, Duration negativeTtl, Clock clock) {
+        this.maximumSize = Math.max(0, maximumSize);
+        this.ttlMillis = toMillis(ttl);
+        this.negativeTtlMillis = toMillis(negativeTtl);
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedTtlCache.this.maximumSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for {@code key}, or loads it with {@code loader} and caches the result.
+     */
+    public Optional<V> get(K key, Function<? super K, Optional<V>> loader) {
+        Entry<V> entry = lookup(key);
+        if (entry != null) {
+            if (entry.value() == null) {
+                negativeHits.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(entry.value());
+        }
+        misses.increment();
+        Optional<V> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            store(key, loaded.get(), ttlMillis);
+        } else {
+            store(key, null, negativeTtlMillis);
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached value without loading it; negative and expired entries read as empty.
+     */
+    public Optional<V> getIfPresent(K key) {
+        Entry<V> entry = lookup(key);
+        return entry != null ? Optional.ofNullable(entry.value()) : Optional.empty();
+    }
+
+    public void put(K key, V value) {
+        store(key, Objects.requireNonNull(value, "value must not be null"), ttlMillis);
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum() + negativeHits.sum();
+    }
+
+    public long negativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Entry<V> lookup(K key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void store(K key, V value, long ttl) {
+        if (ttl <= 0L || maximumSize == 0) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, clock.millis() + ttl);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        puts.increment();
+    }
+
+    private static long toMillis(Duration duration) {
+        return duration == null || duration.isNegative() ? 0L : duration.toMillis();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
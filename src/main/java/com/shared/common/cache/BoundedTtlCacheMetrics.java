@@ -0,0 +1,59 @@
+package com.shared.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the standard Micrometer {@code cache.*} meters for a {@link BoundedTtlCache},
+ * plus {@code cache.negative.hits} for hits on cached absent results.
+ */
+public class BoundedTtlCacheMetrics extends CacheMeterBinder<BoundedTtlCache<?, ?>> {
+
+    public BoundedTtlCacheMetrics(BoundedTtlCache<?, ?> cache, String cacheName, Iterable<Tag> tags) {
+        super(cache, cacheName, tags);
+    }
+
+    @Override
+    protected Long size() {
+        BoundedTtlCache<?, ?> cache = getCache();
+        return cache != null ? (long) cache.size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        BoundedTtlCache<?, ?> cache = getCache();
+        return cache != null ? cache.hitCount() : 0L;
+    }
+
+    @Override
+    protected Long missCount() {
+        BoundedTtlCache<?, ?> cache = getCache();
+        return cache != null ? cache.missCount() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        BoundedTtlCache<?, ?> cache = getCache();
+        return cache != null ? cache.evictionCount() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        BoundedTtlCache<?, ?> cache = getCache();
+        return cache != null ? cache.putCount() : 0L;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        BoundedTtlCache<?, ?> cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        FunctionCounter.builder("cache.negative.hits", cache, BoundedTtlCache::negativeHitCount)
+                .tags(getTagsWithCacheName())
+                .description("Hits on cached absent results")
+                .register(registry);
+    }
+}
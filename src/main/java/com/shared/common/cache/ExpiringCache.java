@@ -0,0 +1,133 @@
+package com.shared.common.cache;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * In-process cache whose entries each carry their own expiry time.
+ * <p>
+ * Reads are plain {@link ConcurrentHashMap} lookups and take no lock, unlike
+ * {@link BoundedTtlCache}. Expired entries are dropped when read. Once more than
+ * {@code maximumSize} entries are held, one writer at a time sweeps out expired entries
+ * and then arbitrary ones until the cache is down to 90% of its bound, so the full scan
+ * runs once per tenth of {@code maximumSize} inserts rather than on every insert at the
+ * bound; there is no LRU order.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maximumSize;
+    private final int lowWaterMark;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maximumSize, Clock clock) {
+        this.maximumSize = Math.max(0, maximumSize);
+        this.lowWaterMark = this.maximumSize - Math.max(1, this.maximumSize / 10);
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code null} when absent or expired.
+     */
+    @Nullable
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAtMillis() <= clock.millis()) {
+            entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Stores {@code value} until {@code expiresAtMillis}; values that are already expired are not stored.
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        Objects.requireNonNull(value, "value must not be null");
+        long now = clock.millis();
+        if (maximumSize == 0 || expiresAtMillis <= now) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+        if (entries.size() > maximumSize) {
+            sweep(now);
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose value matches {@code predicate}.
+     *
+     * @return the number of entries removed
+     */
+    public int invalidateIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        for (Iterator<Entry<V>> values = entries.values().iterator(); values.hasNext(); ) {
+            if (predicate.test(values.next().value())) {
+                values.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            Iterator<K> keys = entries.keySet().iterator();
+            while (entries.size() > lowWaterMark && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.shared.common.expression;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.context.expression.CachedExpressionEvaluator;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.Nullable;
+
+/**
+ * Evaluates SpEL expressions declared on audit annotations.
+ * <p>
+ * Each expression is parsed once per annotated method and compiled to bytecode once it has
+ * been interpreted often enough ({@link SpelCompilerMode#MIXED}), falling back to the
+ * interpreter when a compiled form no longer fits the argument types. Parameter names are
+ * resolved once per method and bound lazily, on the first variable lookup of a context.
+ * The variables {@code #methodName}, {@code #className} and, after the call,
+ * {@code #result} are available alongside the method arguments.
+ */
+public class MethodExpressionEvaluator extends CachedExpressionEvaluator {
+
+    private final Map<ExpressionKey, Expression> expressions = new ConcurrentHashMap<>(64);
+    private final ParameterNameDiscoverer parameterNames;
+
+    public MethodExpressionEvaluator() {
+        super(new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED,
+                MethodExpressionEvaluator.class.getClassLoader())));
+        this.parameterNames = new CachingParameterNameDiscoverer(super.getParameterNameDiscoverer());
+    }
+
+    /**
+     * Creates the context for one invocation; reuse it for every expression evaluated at the same point.
+     */
+    public EvaluationContext createContext(Method method, Object[] args) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(null, method, args, parameterNames);
+        context.setVariable("methodName", method.getName());
+        context.setVariable("className", method.getDeclaringClass().getSimpleName());
+        return context;
+    }
+
+    /**
+     * Context for expressions evaluated after the call, with {@code #result} bound when not {@code null}.
+     */
+    public EvaluationContext createContext(Method method, Object[] args, @Nullable Object result) {
+        EvaluationContext context = createContext(method, args);
+        if (result != null) {
+            context.setVariable("result", result);
+        }
+        return context;
+    }
+
+    @Nullable
+    public <T> T evaluate(String expression, Method method, Class<?> targetClass,
+                          EvaluationContext context, Class<T> type) {
+        return getExpression(expressions, new AnnotatedElementKey(method, targetClass), expression)
+                .getValue(context, type);
+    }
+
+    /**
+     * Remembers the names discovered for each method; the delegate reflects on every call.
+     */
+    private static final class CachingParameterNameDiscoverer implements ParameterNameDiscoverer {
+
+        private static final String[] NONE = new String[0];
+
+        private final ParameterNameDiscoverer delegate;
+        private final Map<Method, String[]> names = new ConcurrentHashMap<>(64);
+
+        private CachingParameterNameDiscoverer(ParameterNameDiscoverer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        @Nullable
+        public String[] getParameterNames(Method method) {
+            String[] resolved = names.computeIfAbsent(method, key -> {
+                String[] discovered = delegate.getParameterNames(key);
+                return discovered != null ? discovered : NONE;
+            });
+            return resolved != NONE ? resolved : null;
+        }
+
+        @Override
+        @Nullable
+        public String[] getParameterNames(Constructor<?> ctor) {
+            return delegate.getParameterNames(ctor);
+        }
+    }
+}
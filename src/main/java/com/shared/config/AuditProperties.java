@@ -1,5 +1,12 @@
 package com.shared.config;
 
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Configuration properties for the audit utility.
  */
@@ -11,6 +18,12 @@ public class AuditProperties {
     private String initialHashValue = "0000000000000000000000000000000000000000000000000000000000000000";
     private String serviceName = "unknown-service"; // NEW: Service identifier
     private String sourceSchema = "unknown"; // NEW: Source schema identifier
+    private int hashFormat = 3; // 1 = legacy sorted JSON, 2 = canonical binary encoding, 3 = canonical with storage-normalised details
+    private final AsyncProperties async = new AsyncProperties();
+    private final ChainProperties chain = new ChainProperties();
+    private final VerificationProperties verification = new VerificationProperties();
+    private final DetailsProperties details = new DetailsProperties();
+    private final PartitionProperties partitioning = new PartitionProperties();
 
     // Getters and setters
     public boolean isEnabled() {
@@ -60,4 +73,472 @@ public class AuditProperties {
     public void setSourceSchema(String sourceSchema) {
         this.sourceSchema = sourceSchema;
     }
+
+    public int getHashFormat() {
+        return hashFormat;
+    }
+
+    public void setHashFormat(int hashFormat) {
+        this.hashFormat = hashFormat;
+    }
+
+    public AsyncProperties getAsync() {
+        return async;
+    }
+
+    public ChainProperties getChain() {
+        return chain;
+    }
+
+    public VerificationProperties getVerification() {
+        return verification;
+    }
+
+    public DetailsProperties getDetails() {
+        return details;
+    }
+
+    public PartitionProperties getPartitioning() {
+        return partitioning;
+    }
+
+    /**
+     * Settings for audit tables range-partitioned on {@code occurred_at}.
+     */
+    public static class PartitionProperties {
+
+        /**
+         * Time span covered by one partition, aligned to UTC calendar boundaries.
+         */
+        public enum Interval {
+            DAILY,
+            WEEKLY,
+            MONTHLY;
+
+            /**
+             * First day of the partition containing {@code date}.
+             */
+            public LocalDate startOf(LocalDate date) {
+                return switch (this) {
+                    case DAILY -> date;
+                    case WEEKLY -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    case MONTHLY -> date.withDayOfMonth(1);
+                };
+            }
+
+            /**
+             * First day of the partition following the one starting at {@code start}.
+             */
+            public LocalDate next(LocalDate start) {
+                return switch (this) {
+                    case DAILY -> start.plusDays(1);
+                    case WEEKLY -> start.plusWeeks(1);
+                    case MONTHLY -> start.plusMonths(1);
+                };
+            }
+        }
+
+        /**
+         * What happens to a partition once it is older than the retention.
+         */
+        public enum Expiry {
+            /** Detach it and keep it as a standalone table, moved to {@code archive-schema} when set. */
+            DETACH,
+            /** Detach it, write it to a compressed archive in {@code archive-directory}, then drop it. */
+            ARCHIVE,
+            /** Drop it. */
+            DROP
+        }
+
+        private boolean enabled = false;
+        private Interval interval = Interval.MONTHLY;
+        private int premake = 3;
+        private Duration retention; // unset = keep every partition attached
+        private Expiry expiry = Expiry.DETACH;
+        private String archiveSchema;
+        private String archiveDirectory;
+        private int archiveBlockRows = 10_000;
+        private Duration checkInterval = Duration.ofHours(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Interval getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Interval interval) {
+            this.interval = interval;
+        }
+
+        public int getPremake() {
+            return premake;
+        }
+
+        public void setPremake(int premake) {
+            this.premake = premake;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Expiry getExpiry() {
+            return expiry;
+        }
+
+        public void setExpiry(Expiry expiry) {
+            this.expiry = expiry;
+        }
+
+        public String getArchiveSchema() {
+            return archiveSchema;
+        }
+
+        public void setArchiveSchema(String archiveSchema) {
+            this.archiveSchema = archiveSchema;
+        }
+
+        public String getArchiveDirectory() {
+            return archiveDirectory;
+        }
+
+        public void setArchiveDirectory(String archiveDirectory) {
+            this.archiveDirectory = archiveDirectory;
+        }
+
+        public int getArchiveBlockRows() {
+            return archiveBlockRows;
+        }
+
+        public void setArchiveBlockRows(int archiveBlockRows) {
+            this.archiveBlockRows = archiveBlockRows;
+        }
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+    }
+
+    /**
+     * Settings for the {@code details} payload of audit events.
+     */
+    public static class DetailsProperties {
+
+        /**
+         * What an {@code @Auditable} method's return value leaves in {@code details}.
+         */
+        public enum ResultStorage {
+            /** The full result under {@code result}. */
+            FULL,
+            /** Only {@code resultSize}, the byte length of its JSON; the hash is in {@code response_hash}. */
+            HASH_ONLY
+        }
+
+        /**
+         * What happens to a {@code details} value over its byte budget.
+         */
+        public enum Overflow {
+            /** Replace it with its size, SHA-256 and a JSON preview. */
+            TRUNCATE,
+            /** Store its gzipped JSON in {@code overflow-table} and keep only the size and SHA-256. */
+            OFFLOAD
+        }
+
+        private ResultStorage resultStorage = ResultStorage.FULL;
+        private int maxFieldBytes = 256 * 1024; // 0 = unlimited
+        private int maxTotalBytes = 1024 * 1024; // 0 = unlimited
+        private Map<String, Integer> fieldBudgets = new LinkedHashMap<>();
+        private Overflow overflow = Overflow.TRUNCATE;
+        private int previewBytes = 256;
+        private String overflowTable = "audit.audit_details_overflow";
+
+        public ResultStorage getResultStorage() {
+            return resultStorage;
+        }
+
+        public void setResultStorage(ResultStorage resultStorage) {
+            this.resultStorage = resultStorage;
+        }
+
+        public int getMaxFieldBytes() {
+            return maxFieldBytes;
+        }
+
+        public void setMaxFieldBytes(int maxFieldBytes) {
+            this.maxFieldBytes = maxFieldBytes;
+        }
+
+        public int getMaxTotalBytes() {
+            return maxTotalBytes;
+        }
+
+        public void setMaxTotalBytes(int maxTotalBytes) {
+            this.maxTotalBytes = maxTotalBytes;
+        }
+
+        public Map<String, Integer> getFieldBudgets() {
+            return fieldBudgets;
+        }
+
+        public void setFieldBudgets(Map<String, Integer> fieldBudgets) {
+            this.fieldBudgets = fieldBudgets;
+        }
+
+        public Overflow getOverflow() {
+            return overflow;
+        }
+
+        public void setOverflow(Overflow overflow) {
+            this.overflow = overflow;
+        }
+
+        public int getPreviewBytes() {
+            return previewBytes;
+        }
+
+        public void setPreviewBytes(int previewBytes) {
+            this.previewBytes = previewBytes;
+        }
+
+        public String getOverflowTable() {
+            return overflowTable;
+        }
+
+        public void setOverflowTable(String overflowTable) {
+            this.overflowTable = overflowTable;
+        }
+    }
+
+    /**
+     * Settings for {@code AuditChainVerifier}.
+     */
+    public static class VerificationProperties {
+
+        private int parallelism = 0; // 0 = available processors
+        private long segmentSize = 1_000_000L;
+        private int fetchSize = 1000;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public long getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(long segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    /**
+     * Settings for how the hash chain head is tracked and shared between instances.
+     */
+    public static class ChainProperties {
+
+        /**
+         * Strategy used to serialise appends to the hash chain.
+         */
+        public enum Coordination {
+            /**
+             * Head is kept in memory per instance; concurrent writers from other
+             * instances are detected through a unique index on {@code prev_hash}
+             * and resolved by reloading the head and retrying.
+             */
+            LOCAL,
+            /**
+             * Head is stored in {@code head-table} and locked with
+             * {@code SELECT ... FOR UPDATE} for the duration of each append.
+             */
+            HEAD_ROW
+        }
+
+        /**
+         * Event attribute used to pick a chain when {@code count} is greater than one.
+         */
+        public enum PartitionKey {
+            SERVICE_NAME,
+            RESOURCE_TYPE,
+            TRACE_ID
+        }
+
+        private Coordination coordination = Coordination.LOCAL;
+        private String headTable = "audit.audit_chain_head";
+        private int maxAppendAttempts = 3;
+        private int count = 1;
+        private PartitionKey partitionKey = PartitionKey.RESOURCE_TYPE;
+        private Duration anchorInterval;
+        private String anchorTable = "audit.audit_chain_anchor";
+
+        public Coordination getCoordination() {
+            return coordination;
+        }
+
+        public void setCoordination(Coordination coordination) {
+            this.coordination = coordination;
+        }
+
+        public String getHeadTable() {
+            return headTable;
+        }
+
+        public void setHeadTable(String headTable) {
+            this.headTable = headTable;
+        }
+
+        public int getMaxAppendAttempts() {
+            return maxAppendAttempts;
+        }
+
+        public void setMaxAppendAttempts(int maxAppendAttempts) {
+            this.maxAppendAttempts = maxAppendAttempts;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public PartitionKey getPartitionKey() {
+            return partitionKey;
+        }
+
+        public void setPartitionKey(PartitionKey partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+
+        public Duration getAnchorInterval() {
+            return anchorInterval;
+        }
+
+        public void setAnchorInterval(Duration anchorInterval) {
+            this.anchorInterval = anchorInterval;
+        }
+
+        public String getAnchorTable() {
+            return anchorTable;
+        }
+
+        public void setAnchorTable(String anchorTable) {
+            this.anchorTable = anchorTable;
+        }
+    }
+
+    /**
+     * Settings for the opt-in asynchronous, batched audit writer.
+     */
+    public static class AsyncProperties {
+
+        /**
+         * Behaviour when the in-memory queue is full.
+         */
+        public enum OverflowPolicy {
+            /** Wait up to {@code offer-timeout} for space, then fail the event. */
+            BLOCK,
+            /** Fail the event immediately and count it as dropped. */
+            DROP
+        }
+
+        private boolean enabled = false;
+        private int writerThreads = 1;
+        private int queueCapacity = 8192;
+        private int flushSize = 256;
+        private Duration linger = Duration.ofMillis(20);
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private Duration offerTimeout = Duration.ofSeconds(1);
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWriterThreads() {
+            return writerThreads;
+        }
+
+        public void setWriterThreads(int writerThreads) {
+            this.writerThreads = writerThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        public Duration getLinger() {
+            return linger;
+        }
+
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Duration getOfferTimeout() {
+            return offerTimeout;
+        }
+
+        public void setOfferTimeout(Duration offerTimeout) {
+            this.offerTimeout = offerTimeout;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package com.shared.config;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration properties for the entity-level audit utility.
  */
@@ -12,6 +16,11 @@ public class EntityAuditProperties {
     private String serviceName;
     private String sourceSchema;
     private String sourceTable;
+    private final VerificationProperties verification = new VerificationProperties();
+    private final RecordNumberProperties recordNumber = new RecordNumberProperties();
+    private final BufferingProperties buffering = new BufferingProperties();
+    private final DiffProperties diff = new DiffProperties();
+    private final SnapshotProperties snapshot = new SnapshotProperties();
 
     public boolean isEnabled() {
         return enabled;
@@ -68,4 +77,264 @@ public class EntityAuditProperties {
     public void setSourceTable(String sourceTable) {
         this.sourceTable = sourceTable;
     }
+
+    public VerificationProperties getVerification() {
+        return verification;
+    }
+
+    public RecordNumberProperties getRecordNumber() {
+        return recordNumber;
+    }
+
+    public BufferingProperties getBuffering() {
+        return buffering;
+    }
+
+    public DiffProperties getDiff() {
+        return diff;
+    }
+
+    public SnapshotProperties getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Settings for the entity state retained between a load and a later update.
+     */
+    public static class SnapshotProperties {
+
+        private int maxEntries = 10_000;
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Settings for reducing update events to the fields that changed.
+     */
+    public static class DiffProperties {
+
+        private boolean enabled = true;
+        private List<String> alwaysInclude = new ArrayList<>();
+        private int summaryMaxLength = 512;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getAlwaysInclude() {
+            return alwaysInclude;
+        }
+
+        public void setAlwaysInclude(List<String> alwaysInclude) {
+            this.alwaysInclude = alwaysInclude;
+        }
+
+        public int getSummaryMaxLength() {
+            return summaryMaxLength;
+        }
+
+        public void setSummaryMaxLength(int summaryMaxLength) {
+            this.summaryMaxLength = summaryMaxLength;
+        }
+    }
+
+    /**
+     * Settings for collecting JPA listener events per transaction.
+     */
+    public static class BufferingProperties {
+
+        /**
+         * When buffered entity audit events are written.
+         */
+        public enum Mode {
+            /** Write each event from the JPA callback, as it happens. */
+            IMMEDIATE,
+            /** Write the transaction's net changes in one batch just before it commits. */
+            BEFORE_COMMIT,
+            /** Hand the net changes to a background writer once the transaction has committed. */
+            AFTER_COMMIT
+        }
+
+        private Mode mode = Mode.BEFORE_COMMIT;
+        private int queueCapacity = 1000;
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
+
+    /**
+     * Settings for allocating record numbers of newly audited entities.
+     */
+    public static class RecordNumberProperties {
+
+        /**
+         * How record numbers are drawn from {@code sequence}.
+         */
+        public enum Strategy {
+            /** One sequence call per record number. */
+            SEQUENCE,
+            /** One sequence call leases {@code block-size} numbers that are handed out in memory. */
+            BLOCK
+        }
+
+        private Strategy strategy = Strategy.BLOCK;
+        private String sequence = "audit.entity_audit_record_number_seq";
+        private String nextValueSql = "SELECT nextval('%s')";
+        private int blockSize = 1000;
+        private final CacheProperties cache = new CacheProperties();
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public String getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(String sequence) {
+            this.sequence = sequence;
+        }
+
+        public String getNextValueSql() {
+            return nextValueSql;
+        }
+
+        public void setNextValueSql(String nextValueSql) {
+            this.nextValueSql = nextValueSql;
+        }
+
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        public void setBlockSize(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        public CacheProperties getCache() {
+            return cache;
+        }
+
+        /**
+         * Cache of the entity type and id to record number mapping.
+         */
+        public static class CacheProperties {
+
+            private int maximumSize = 10_000;
+            private Duration ttl = Duration.ofHours(1);
+            private Duration negativeTtl = Duration.ZERO;
+
+            public int getMaximumSize() {
+                return maximumSize;
+            }
+
+            public void setMaximumSize(int maximumSize) {
+                this.maximumSize = maximumSize;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public Duration getNegativeTtl() {
+                return negativeTtl;
+            }
+
+            public void setNegativeTtl(Duration negativeTtl) {
+                this.negativeTtl = negativeTtl;
+            }
+        }
+    }
+
+    /**
+     * Settings for the incremental, checkpointed verification of entity audit chains.
+     */
+    public static class VerificationProperties {
+
+        private Duration interval; // null = only on demand
+        private int threads = 4;
+        private int fetchSize = 500;
+        private String checkpointTable = "audit.entity_audit_checkpoint";
+        private long watermarkLag = 1000;
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public String getCheckpointTable() {
+            return checkpointTable;
+        }
+
+        public void setCheckpointTable(String checkpointTable) {
+            this.checkpointTable = checkpointTable;
+        }
+
+        public long getWatermarkLag() {
+            return watermarkLag;
+        }
+
+        public void setWatermarkLag(long watermarkLag) {
+            this.watermarkLag = watermarkLag;
+        }
+    }
 }
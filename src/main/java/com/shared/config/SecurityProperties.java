@@ -9,6 +9,8 @@ public class SecurityProperties {
     private String[] permittedPaths = {"/actuator/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html"};
     private final IntrospectionProperties introspection = new IntrospectionProperties();
     private final DynamicRbacProperties dynamicRbac = new DynamicRbacProperties();
+    private final TokenCacheProperties tokenCache = new TokenCacheProperties();
+    private final RevocationProperties revocation = new RevocationProperties();
 
     public boolean isEnabled() {
         return enabled;
@@ -34,6 +36,99 @@ public class SecurityProperties {
         return dynamicRbac;
     }
 
+    public TokenCacheProperties getTokenCache() {
+        return tokenCache;
+    }
+
+    public RevocationProperties getRevocation() {
+        return revocation;
+    }
+
+    /**
+     * Polled feed of token revocations that evicts cached verification, introspection and
+     * authorization matrix entries.
+     */
+    public static class RevocationProperties {
+        private boolean enabled = false;
+        private String url;
+        private java.time.Duration pollInterval = java.time.Duration.ofSeconds(5);
+        private String apiKeyHeader = "X-Internal-Api-Key";
+        private String apiKey; // defaults to the introspection api key
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public java.time.Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(java.time.Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public String getApiKeyHeader() {
+            return apiKeyHeader;
+        }
+
+        public void setApiKeyHeader(String apiKeyHeader) {
+            this.apiKeyHeader = apiKeyHeader;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+    }
+
+    /**
+     * Cache of bearer tokens that already passed verification.
+     */
+    public static class TokenCacheProperties {
+        private boolean enabled = true;
+        private int maximumSize = 10_000;
+        private java.time.Duration maxTtl = java.time.Duration.ofMinutes(5); // entries also end at exp; introspected ones at introspection.cache.max-ttl
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public java.time.Duration getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(java.time.Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+    }
+
     public static class IntrospectionProperties {
         private boolean enabled = true;
         private String url;
@@ -42,6 +137,8 @@ public class SecurityProperties {
         private java.time.Duration connectTimeout = java.time.Duration.ofSeconds(2);
         private java.time.Duration readTimeout = java.time.Duration.ofSeconds(2);
         private boolean failOpen = false;
+        private CacheProperties cache = new CacheProperties();
+        private BatchProperties batch = new BatchProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -51,6 +148,22 @@ public class SecurityProperties {
             this.enabled = enabled;
         }
 
+        public CacheProperties getCache() {
+            return cache;
+        }
+
+        public void setCache(CacheProperties cache) {
+            this.cache = cache;
+        }
+
+        public BatchProperties getBatch() {
+            return batch;
+        }
+
+        public void setBatch(BatchProperties batch) {
+            this.batch = batch;
+        }
+
         public String getUrl() {
             return url;
         }
@@ -98,6 +211,88 @@ public class SecurityProperties {
         public void setFailOpen(boolean failOpen) {
             this.failOpen = failOpen;
         }
+
+        public static class CacheProperties {
+            private boolean enabled = true;
+            private int maximumSize = 10_000;
+            private java.time.Duration maxTtl = java.time.Duration.ofSeconds(30); // active results also end at expiresAt
+            private java.time.Duration negativeTtl = java.time.Duration.ofSeconds(5); // inactive results; errors are never cached
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaximumSize() {
+                return maximumSize;
+            }
+
+            public void setMaximumSize(int maximumSize) {
+                this.maximumSize = maximumSize;
+            }
+
+            public java.time.Duration getMaxTtl() {
+                return maxTtl;
+            }
+
+            public void setMaxTtl(java.time.Duration maxTtl) {
+                this.maxTtl = maxTtl;
+            }
+
+            public java.time.Duration getNegativeTtl() {
+                return negativeTtl;
+            }
+
+            public void setNegativeTtl(java.time.Duration negativeTtl) {
+                this.negativeTtl = negativeTtl;
+            }
+        }
+
+        /**
+         * Micro-batching: lookups arriving within {@code window} of each other are sent as one
+         * request to the batch endpoint.
+         */
+        public static class BatchProperties {
+            private boolean enabled = false;
+            private String url; // defaults to the introspection url + "/batch"
+            private java.time.Duration window = java.time.Duration.ofMillis(2);
+            private int maxSize = 64;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public java.time.Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(java.time.Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
     }
 
     public static class DynamicRbacProperties {
@@ -1,6 +1,7 @@
 package com.shared.entityaudit;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -28,6 +29,22 @@ public class EntityAuditHelper {
     }
 
     public EntityAuditRecord recordChange(EntityAuditEventRequest request) {
+        return entityAuditTrailService.recordChange(enrich(request));
+    }
+
+    /**
+     * Records several changes with a single batch insert; see {@link EntityAuditTrailService#recordChanges}.
+     */
+    public List<EntityAuditRecord> recordChanges(List<EntityAuditEventRequest> requests) {
+        requests.forEach(this::enrich);
+        return entityAuditTrailService.recordChanges(requests);
+    }
+
+    /**
+     * Fills in the user, trace id and HTTP client details from the current thread's context
+     * where the request does not carry them yet.
+     */
+    public EntityAuditEventRequest enrich(EntityAuditEventRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("EntityAuditEventRequest must not be null");
         }
@@ -53,8 +70,7 @@ public class EntityAuditHelper {
             metadata.putIfAbsent("referer", httpRequest.getHeader("Referer"));
             metadata.putIfAbsent("requestedWith", httpRequest.getHeader("X-Requested-With"));
         }
-
-        return entityAuditTrailService.recordChange(request);
+        return request;
     }
 
     public EntityAuditRecord recordChange(String entityType,
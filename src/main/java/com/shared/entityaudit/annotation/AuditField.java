@@ -0,0 +1,21 @@
+package com.shared.entityaudit.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity field as part of its audit state. The shared-lib annotation processor
+ * generates an extractor per entity class that {@code AbstractAuditableEntity.auditState()}
+ * uses in place of a hand-written map.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.CLASS)
+public @interface AuditField {
+
+    /**
+     * Key of the field in the audit state; defaults to the field name.
+     */
+    String value() default "";
+}
@@ -1,6 +1,7 @@
 package com.shared.entityaudit.config;
 
 import java.time.Clock;
+import java.util.List;
 
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -11,18 +12,34 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.common.cache.BoundedTtlCacheMetrics;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.shared.config.EntityAuditProperties;
 import com.shared.config.SharedLibConfigurationProperties;
 import com.shared.entityaudit.EntityAuditHelper;
 import com.shared.entityaudit.listener.EntityAuditListenerDelegate;
+import com.shared.entityaudit.listener.EntityAuditSnapshotHolder;
+import com.shared.entityaudit.listener.EntityAuditTransactionBuffer;
 import com.shared.entityaudit.listener.SharedEntityAuditListener;
+import com.shared.entityaudit.repository.EntityAuditCheckpointRepository;
 import com.shared.entityaudit.repository.EntityAuditRepository;
+import com.shared.entityaudit.service.BlockRecordNumberAllocator;
+import com.shared.entityaudit.service.EntityAuditChainVerifier;
+import com.shared.entityaudit.service.EntityAuditDiffer;
 import com.shared.entityaudit.service.EntityAuditHashService;
 import com.shared.entityaudit.service.EntityAuditTrailService;
 import com.shared.entityaudit.service.EntityAuditableAspect;
+import com.shared.entityaudit.service.RecordNumberAllocator;
+import com.shared.entityaudit.service.SequenceRecordNumberAllocator;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import javax.sql.DataSource;
 import jakarta.persistence.EntityManagerFactory;
 
@@ -59,15 +76,57 @@ public class EntityAuditAutoConfiguration {
         return new EntityAuditHashService(sharedLibProperties.getEntityAudit(), objectMapper);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public RecordNumberAllocator recordNumberAllocator(EntityAuditRepository entityAuditRepository,
+                                                       ObjectProvider<Clock> clockProvider) {
+        Clock clock = clockProvider.getIfAvailable(Clock::systemUTC);
+        EntityAuditProperties.RecordNumberProperties properties = sharedLibProperties.getEntityAudit().getRecordNumber();
+        if (properties.getStrategy() == EntityAuditProperties.RecordNumberProperties.Strategy.SEQUENCE) {
+            return new SequenceRecordNumberAllocator(entityAuditRepository::nextRecordNumberSequenceValue, clock);
+        }
+        long increment = entityAuditRepository.findRecordNumberSequenceIncrement()
+                .orElseThrow(() -> new IllegalStateException("Record number sequence " + properties.getSequence()
+                        + " not found in information_schema.sequences; the BLOCK strategy needs its increment"));
+        return new BlockRecordNumberAllocator(entityAuditRepository::nextRecordNumberSequenceValue, increment,
+                properties.getBlockSize(), clock);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public EntityAuditTrailService entityAuditTrailService(
             EntityAuditRepository entityAuditRepository,
             EntityAuditHashService entityAuditHashService,
+            RecordNumberAllocator recordNumberAllocator,
             ObjectProvider<Clock> clockProvider) {
 
         Clock clock = clockProvider.getIfAvailable(Clock::systemUTC);
-        return new EntityAuditTrailService(entityAuditRepository, entityAuditHashService, clock);
+        return new EntityAuditTrailService(entityAuditRepository, entityAuditHashService, clock, recordNumberAllocator,
+                EntityAuditTrailService.newRecordNumberCache(
+                        sharedLibProperties.getEntityAudit().getRecordNumber().getCache(), clock));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public EntityAuditChainVerifier entityAuditChainVerifier(
+            EntityAuditRepository entityAuditRepository,
+            EntityAuditHashService entityAuditHashService,
+            ObjectProvider<NamedParameterJdbcTemplate> jdbcTemplateProvider,
+            ObjectProvider<DataSource> dataSourceProvider,
+            ObjectProvider<PlatformTransactionManager> transactionManagerProvider,
+            ObjectProvider<Clock> clockProvider) {
+        NamedParameterJdbcTemplate jdbcTemplate = resolveJdbcTemplate(jdbcTemplateProvider, dataSourceProvider);
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfUnique(
+                () -> new DataSourceTransactionManager(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        TransactionTemplate readOnlyTransactions = new TransactionTemplate(transactionManager);
+        readOnlyTransactions.setReadOnly(true);
+
+        EntityAuditChainVerifier verifier = new EntityAuditChainVerifier(entityAuditRepository,
+                new EntityAuditCheckpointRepository(jdbcTemplate, sharedLibProperties.getEntityAudit()),
+                entityAuditHashService, readOnlyTransactions, sharedLibProperties.getEntityAudit().getVerification(),
+                clockProvider.getIfAvailable(Clock::systemUTC));
+        verifier.start();
+        return verifier;
     }
 
     @Bean
@@ -82,17 +141,68 @@ public class EntityAuditAutoConfiguration {
         return new EntityAuditableAspect(entityAuditHelper);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public EntityAuditDiffer entityAuditDiffer() {
+        return new EntityAuditDiffer(sharedLibProperties.getEntityAudit().getDiff());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public EntityAuditTransactionBuffer entityAuditTransactionBuffer(
+            EntityAuditHelper entityAuditHelper,
+            EntityAuditDiffer entityAuditDiffer,
+            EntityManagerFactory entityManagerFactory,
+            ObjectProvider<PlatformTransactionManager> transactionManagerProvider) {
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfUnique();
+        TransactionTemplate writerTransactions = null;
+        if (transactionManager != null) {
+            // Late writes run from afterCommit, where the committed transaction is still bound.
+            writerTransactions = new TransactionTemplate(transactionManager);
+            writerTransactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+        return new EntityAuditTransactionBuffer(entityAuditHelper, entityManagerFactory, writerTransactions,
+                sharedLibProperties.getEntityAudit().getBuffering(), entityAuditDiffer);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public EntityAuditListenerDelegate entityAuditListenerDelegate(EntityAuditHelper entityAuditHelper,
-                                                                   EntityManagerFactory entityManagerFactory) {
-        EntityAuditListenerDelegate delegate = new EntityAuditListenerDelegate(entityAuditHelper, entityManagerFactory);
+                                                                   EntityAuditDiffer entityAuditDiffer,
+                                                                   ObjectProvider<EntityAuditTransactionBuffer> transactionBufferProvider) {
+        EntityAuditListenerDelegate delegate = new EntityAuditListenerDelegate(entityAuditHelper,
+                transactionBufferProvider.getIfAvailable(), entityAuditDiffer);
+        EntityAuditSnapshotHolder.setMaxEntries(sharedLibProperties.getEntityAudit().getSnapshot().getMaxEntries());
         SharedEntityAuditListener.setDelegate(delegate);
         org.slf4j.LoggerFactory.getLogger(EntityAuditAutoConfiguration.class)
                 .info("EntityAuditListenerDelegate registered with SharedEntityAuditListener");
         return delegate;
     }
 
+    /**
+     * Publishes record number cache and snapshot overflow counts when Micrometer is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class EntityAuditMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(name = "entityAuditRecordNumberCacheMetrics")
+        public MeterBinder entityAuditRecordNumberCacheMetrics(EntityAuditTrailService entityAuditTrailService) {
+            return new BoundedTtlCacheMetrics(entityAuditTrailService.recordNumberCache(),
+                    "shared-lib.entity-audit.record-number", List.of());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(name = "entityAuditSnapshotMetrics")
+        public MeterBinder entityAuditSnapshotMetrics() {
+            return registry -> FunctionCounter.builder("shared-lib.entity-audit.snapshot.overflows",
+                            EntityAuditSnapshotHolder.class, type -> EntityAuditSnapshotHolder.overflowCount())
+                    .description("Entity snapshots skipped because the per-transaction limit was reached")
+                    .register(registry);
+        }
+    }
+
     private ObjectMapper defaultObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
@@ -1,6 +1,5 @@
 package com.shared.entityaudit.descriptor;
 
-import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -25,7 +24,7 @@ public abstract class AbstractAuditableEntity<ID> implements EntityAuditDescript
     @Transient
     @JsonIgnore
     public String entityType() {
-        return getClass().getSimpleName();
+        return EntityAuditClassMetadata.forClass(getClass()).entityType();
     }
 
     @Override
@@ -40,7 +39,8 @@ public abstract class AbstractAuditableEntity<ID> implements EntityAuditDescript
     @Transient
     @JsonIgnore
     public Map<String, Object> auditState() {
-        return Collections.emptyMap();
+        Map<String, Object> state = EntityAuditClassMetadata.forClass(getClass()).extractState(this);
+        return state != null ? state : Collections.emptyMap();
     }
 
     @Override
@@ -84,12 +84,6 @@ public abstract class AbstractAuditableEntity<ID> implements EntityAuditDescript
 
     @SuppressWarnings("unchecked")
     private ID resolveEntityId() {
-        try {
-            Method getId = getClass().getMethod("getId");
-            Object value = getId.invoke(this);
-            return (ID) value;
-        } catch (ReflectiveOperationException ex) {
-            return null;
-        }
+        return (ID) EntityAuditClassMetadata.forClass(getClass()).readId(this);
     }
 }
@@ -0,0 +1,86 @@
+package com.shared.entityaudit.descriptor;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable audit state backed by a value array and the key layout of its generated
+ * {@link AuditStateExtractor}, iterated in layout order.
+ */
+public final class AuditFieldState extends AbstractMap<String, Object> {
+
+    private final String[] fieldNames;
+    private final Object[] values;
+
+    AuditFieldState(String[] fieldNames, Object[] values) {
+        this.fieldNames = fieldNames;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return fieldNames.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < fieldNames.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= fieldNames.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new AbstractMap.SimpleImmutableEntry<>(fieldNames[index], values[index]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return fieldNames.length;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static Map<String, Object> extract(AuditStateExtractor<Object> extractor, Object entity) {
+        String[] fieldNames = extractor.fieldNames();
+        Object[] values = new Object[fieldNames.length];
+        extractor.extract(entity, values);
+        return new AuditFieldState(fieldNames, values);
+    }
+}
@@ -0,0 +1,20 @@
+package com.shared.entityaudit.descriptor;
+
+/**
+ * Copies the {@code @AuditField} values of an entity into a fixed layout. Implementations are
+ * generated by the shared-lib annotation processor as {@code <EntityClass>_AuditState}.
+ *
+ * @param <T> the entity type
+ */
+public interface AuditStateExtractor<T> {
+
+    /**
+     * Audit state keys in layout order. The array is shared and must not be modified.
+     */
+    String[] fieldNames();
+
+    /**
+     * Writes each field value into {@code values} at the index of its key in {@link #fieldNames()}.
+     */
+    void extract(T entity, Object[] values);
+}
@@ -0,0 +1,143 @@
+package com.shared.entityaudit.descriptor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Per-class audit metadata resolved once per entity class, including proxy subclasses, and
+ * cached for the lifetime of the class.
+ */
+public final class EntityAuditClassMetadata {
+
+    private static final MethodType ID_ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<EntityAuditClassMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected EntityAuditClassMetadata computeValue(Class<?> type) {
+            return new EntityAuditClassMetadata(type);
+        }
+    };
+
+    private final Class<?> userClass;
+    private final String entityType;
+    private final String tableName;
+    private final MethodHandle idAccessor;
+    private final AuditStateExtractor<Object> stateExtractor;
+
+    private EntityAuditClassMetadata(Class<?> type) {
+        this.userClass = ClassUtils.getUserClass(type);
+        this.entityType = userClass.getSimpleName();
+        this.tableName = resolveTableName(userClass);
+        this.idAccessor = resolveIdAccessor(type);
+        this.stateExtractor = resolveStateExtractor(type);
+    }
+
+    public static EntityAuditClassMetadata forClass(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    public Class<?> userClass() {
+        return userClass;
+    }
+
+    /**
+     * Simple name of the user class, used when a descriptor supplies no entity type.
+     */
+    public String entityType() {
+        return entityType;
+    }
+
+    /**
+     * {@code schema.name} from {@code @Table}, else the JPA entity name.
+     */
+    public String tableName() {
+        return tableName;
+    }
+
+    /**
+     * Reads the entity's {@code getId()} value, or {@code null} when the class has no such accessor.
+     */
+    @Nullable
+    public Object readId(Object entity) {
+        if (idAccessor == null) {
+            return null;
+        }
+        try {
+            return idAccessor.invokeExact(entity);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Failed to read id of " + userClass.getName(), ex);
+        }
+    }
+
+    /**
+     * Audit state read through the generated {@code @AuditField} extractor, or {@code null} when
+     * neither the class nor a superclass has one.
+     */
+    @Nullable
+    public Map<String, Object> extractState(Object entity) {
+        return stateExtractor != null ? AuditFieldState.extract(stateExtractor, entity) : null;
+    }
+
+    private static String resolveTableName(Class<?> userClass) {
+        Table table = userClass.getAnnotation(Table.class);
+        if (table != null && StringUtils.hasText(table.name())) {
+            return StringUtils.hasText(table.schema()) ? table.schema() + "." + table.name() : table.name();
+        }
+        Entity entity = userClass.getAnnotation(Entity.class);
+        return entity != null && StringUtils.hasText(entity.name()) ? entity.name() : userClass.getSimpleName();
+    }
+
+    @Nullable
+    private static MethodHandle resolveIdAccessor(Class<?> type) {
+        Method getId = ClassUtils.getMethodIfAvailable(type, "getId");
+        if (getId == null || getId.getParameterCount() != 0) {
+            return null;
+        }
+        try {
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().unreflect(getId);
+            } catch (IllegalAccessException ex) {
+                // Public accessor declared on a non-public class.
+                if (!getId.trySetAccessible()) {
+                    return null;
+                }
+                handle = MethodHandles.lookup().unreflect(getId);
+            }
+            return handle.asType(ID_ACCESSOR_TYPE);
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static AuditStateExtractor<Object> resolveStateExtractor(Class<?> type) {
+        // Proxy subclasses and subclasses without their own @AuditField fields use the nearest generated extractor.
+        for (Class<?> candidate = type; candidate != null && candidate != Object.class; candidate = candidate.getSuperclass()) {
+            String extractorName = candidate.getName() + "_AuditState";
+            if (!ClassUtils.isPresent(extractorName, candidate.getClassLoader())) {
+                continue;
+            }
+            try {
+                Class<?> extractorClass = ClassUtils.forName(extractorName, candidate.getClassLoader());
+                return (AuditStateExtractor<Object>) extractorClass.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                throw new IllegalStateException("Failed to instantiate " + extractorName, ex);
+            }
+        }
+        return null;
+    }
+}
@@ -5,18 +5,19 @@ import java.util.Map;
 import java.util.Objects;
 
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.metamodel.EntityType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
-import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
+import com.shared.config.EntityAuditProperties;
 import com.shared.entityaudit.EntityAuditHelper;
+import com.shared.entityaudit.descriptor.EntityAuditClassMetadata;
 import com.shared.entityaudit.descriptor.EntityAuditDescriptor;
 import com.shared.entityaudit.model.EntityAuditAction;
 import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.service.EntityAuditDiffer;
 
 /**
  * Spring-managed delegate used by {@link SharedEntityAuditListener} to publish audit events.
@@ -26,12 +27,38 @@ public class EntityAuditListenerDelegate {
     private static final Logger log = LoggerFactory.getLogger(EntityAuditListenerDelegate.class);
 
     private final EntityAuditHelper entityAuditHelper;
-    private final EntityManagerFactory entityManagerFactory;
+    private final EntityAuditTransactionBuffer transactionBuffer;
+    private final EntityAuditDiffer differ;
 
+    public EntityAuditListenerDelegate(EntityAuditHelper entityAuditHelper) {
+        this(entityAuditHelper, null, new EntityAuditDiffer(new EntityAuditProperties.DiffProperties()));
+    }
+
+    /**
+     * @deprecated the factory is not used; table names come from the cached class metadata.
+     * Use {@link #EntityAuditListenerDelegate(EntityAuditHelper)} instead.
+     */
+    @Deprecated
     public EntityAuditListenerDelegate(EntityAuditHelper entityAuditHelper,
                                        EntityManagerFactory entityManagerFactory) {
+        this(entityAuditHelper);
+    }
+
+    public EntityAuditListenerDelegate(EntityAuditHelper entityAuditHelper,
+                                       @Nullable EntityAuditTransactionBuffer transactionBuffer,
+                                       EntityAuditDiffer differ) {
         this.entityAuditHelper = Objects.requireNonNull(entityAuditHelper, "entityAuditHelper must not be null");
-        this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory, "entityManagerFactory must not be null");
+        this.transactionBuffer = transactionBuffer;
+        this.differ = Objects.requireNonNull(differ, "differ must not be null");
+    }
+
+    /**
+     * Called when an audited entity joins the persistence context, ahead of any change to it.
+     */
+    public void prepare() {
+        if (transactionBuffer != null) {
+            transactionBuffer.register();
+        }
     }
 
     public void handle(EntityAuditDescriptor descriptor,
@@ -40,8 +67,9 @@ public class EntityAuditListenerDelegate {
                        @Nullable Map<String, Object> oldState,
                        @Nullable Map<String, Object> newState) {
 
+        EntityAuditClassMetadata classMetadata = EntityAuditClassMetadata.forClass(entity.getClass());
         EntityAuditEventRequest request = new EntityAuditEventRequest();
-        request.setEntityType(resolveEntityType(descriptor, entity));
+        request.setEntityType(resolveEntityType(descriptor, classMetadata));
         request.setEntityId(descriptor.entityId());
         request.setOperation(action.name());
         request.setOldValues(safeCopy(oldState));
@@ -52,16 +80,19 @@ public class EntityAuditListenerDelegate {
         if (descriptorMetadata != null && !descriptorMetadata.isEmpty()) {
             metadata.putAll(descriptorMetadata);
         }
-        Class<?> entityClass = ClassUtils.getUserClass(entity);
-        metadata.putIfAbsent("entityClass", entityClass.getName());
-        metadata.putIfAbsent("tableName", resolveTableName(entity));
+        metadata.putIfAbsent("entityClass", classMetadata.userClass().getName());
+        metadata.putIfAbsent("tableName", classMetadata.tableName());
         if (!metadata.isEmpty()) {
             request.setMetadata(metadata);
         }
 
-        String summary = descriptor.changeSummary(action, request.getOldValues(), request.getNewValues());
-        if (StringUtils.hasText(summary)) {
-            request.setChangeSummary(summary);
+        if (transactionBuffer != null && transactionBuffer.buffer(descriptor, request)) {
+            log.debug("Buffered entity audit: type={}, id={}, action={}", request.getEntityType(), request.getEntityId(), action);
+            return;
+        }
+        if (!differ.apply(request, descriptor)) {
+            log.debug("Skipping entity audit without audited changes: type={}, id={}", request.getEntityType(), request.getEntityId());
+            return;
         }
 
         log.info("Recording entity audit: type={}, id={}, action={}, old={}, new={}",
@@ -70,12 +101,12 @@ public class EntityAuditListenerDelegate {
         entityAuditHelper.recordChange(request);
     }
 
-    private String resolveEntityType(EntityAuditDescriptor descriptor, Object entity) {
+    private String resolveEntityType(EntityAuditDescriptor descriptor, EntityAuditClassMetadata classMetadata) {
         String type = descriptor.entityType();
         if (StringUtils.hasText(type)) {
             return type;
         }
-        return ClassUtils.getUserClass(entity).getSimpleName();
+        return classMetadata.entityType();
     }
 
     private Map<String, Object> safeCopy(@Nullable Map<String, Object> state) {
@@ -84,22 +115,4 @@ public class EntityAuditListenerDelegate {
         }
         return new LinkedHashMap<>(state);
     }
-
-    private String resolveTableName(Object entity) {
-        try {
-            Class<?> actualClass = ClassUtils.getUserClass(entity);
-            var metamodel = entityManagerFactory.getMetamodel();
-            EntityType<?> entityType = metamodel.entity(actualClass);
-            jakarta.persistence.Table table = actualClass.getAnnotation(jakarta.persistence.Table.class);
-            if (table != null && StringUtils.hasText(table.name())) {
-                if (StringUtils.hasText(table.schema())) {
-                    return table.schema() + "." + table.name();
-                }
-                return table.name();
-            }
-            return entityType.getName();
-        } catch (IllegalArgumentException ex) {
-            return ClassUtils.getUserClass(entity).getSimpleName();
-        }
-    }
 }
@@ -1,52 +1,285 @@
 package com.shared.entityaudit.listener;
 
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
- * Thread-local storage for retaining entity state snapshots between JPA lifecycle callbacks.
+ * Retains entity state snapshots between JPA lifecycle callbacks.
+ * <p>
+ * Snapshots are kept per persistence context: callbacks on a thread with a Spring-bound
+ * {@code EntityManager}, whether bound by a transaction or by open-in-view, store into that
+ * entity manager's snapshots, so an entity loaded in one transaction and updated in a later
+ * one through the same entity manager keeps its previous state. A persistence context's
+ * snapshots are released once its entity manager is closed, when the web request ends, or,
+ * outside a web request, when the transaction that created them completes. Callbacks without
+ * a bound entity manager use the current transaction, else a thread-local store released when
+ * it empties or the web request ends. Every store holds at most {@code max-entries} snapshots;
+ * further captures are skipped and counted as overflows, so a later update of such an entity
+ * is audited without its previous state.
  */
-final class EntityAuditSnapshotHolder {
+public final class EntityAuditSnapshotHolder {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(EntityAuditSnapshotHolder.class);
+    private static final Object TRANSACTION_RESOURCE_KEY = new Object();
+    private static final String REQUEST_CALLBACK_NAME = EntityAuditSnapshotHolder.class.getName() + ".release";
+    private static final ThreadLocal<Map<EntityManager, SnapshotStore>> CONTEXTS = new ThreadLocal<>();
+    private static final ThreadLocal<SnapshotStore> UNSCOPED = new ThreadLocal<>();
+    private static final LongAdder OVERFLOWS = new LongAdder();
 
-    private static final ThreadLocal<Map<Object, Map<String, Object>>> SNAPSHOTS =
-            ThreadLocal.withInitial(IdentityHashMap::new);
+    private static volatile int maxEntries = DEFAULT_MAX_ENTRIES;
 
     private EntityAuditSnapshotHolder() {
     }
 
-    static Map<String, Object> capture(Object entity, Map<String, Object> state) {
-        Map<Object, Map<String, Object>> snapshots = SNAPSHOTS.get();
-        Map<String, Object> copy = defensiveCopy(state);
-        snapshots.put(entity, copy);
-        return copy;
+    public static void setMaxEntries(int entries) {
+        if (entries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        maxEntries = entries;
+    }
+
+    /**
+     * Number of snapshots skipped because their store was full.
+     */
+    public static long overflowCount() {
+        return OVERFLOWS.sum();
+    }
+
+    /**
+     * Drops every snapshot held for the current thread outside a transaction.
+     */
+    public static void release() {
+        CONTEXTS.remove();
+        UNSCOPED.remove();
+    }
+
+    static void capture(Object entity, Map<String, Object> state) {
+        currentStore(entity, true).put(entity, EntitySnapshot.of(entity.getClass(), state));
     }
 
     static Map<String, Object> get(Object entity) {
-        Map<Object, Map<String, Object>> snapshots = SNAPSHOTS.get();
-        Map<String, Object> stored = snapshots.get(entity);
-        return stored != null ? stored : Map.of();
+        EntitySnapshot snapshot = lookup(entity, false);
+        return snapshot != null ? snapshot.toMap() : Map.of();
     }
 
     static Map<String, Object> remove(Object entity) {
-        Map<Object, Map<String, Object>> snapshots = SNAPSHOTS.get();
-        Map<String, Object> removed = snapshots.remove(entity);
-        return removed != null ? removed : Map.of();
+        EntitySnapshot snapshot = lookup(entity, true);
+        return snapshot != null ? snapshot.toMap() : Map.of();
     }
 
     static void clearIfEmpty(Object entity) {
-        Map<Object, Map<String, Object>> snapshots = SNAPSHOTS.get();
-        snapshots.remove(entity);
-        if (snapshots.isEmpty()) {
-            SNAPSHOTS.remove();
+        lookup(entity, true);
+        Map<EntityManager, SnapshotStore> contexts = CONTEXTS.get();
+        if (contexts != null) {
+            contexts.values().removeIf(SnapshotStore::isEmpty);
+            if (contexts.isEmpty()) {
+                CONTEXTS.remove();
+            }
+        }
+        SnapshotStore unscoped = UNSCOPED.get();
+        if (unscoped != null && unscoped.isEmpty()) {
+            UNSCOPED.remove();
         }
     }
 
-    private static Map<String, Object> defensiveCopy(Map<String, Object> source) {
-        if (source == null || source.isEmpty()) {
-            return Map.of();
+    private static EntitySnapshot lookup(Object entity, boolean remove) {
+        SnapshotStore current = currentStore(entity, false);
+        EntitySnapshot snapshot = current != null ? current.find(entity, remove) : null;
+        if (snapshot != null && !remove) {
+            return snapshot;
+        }
+        // An entity captured in another scope, e.g. loaded before the transaction began.
+        for (SnapshotStore store : otherStores(current)) {
+            EntitySnapshot found = store.find(entity, remove);
+            if (snapshot == null) {
+                snapshot = found;
+            }
+            if (snapshot != null && !remove) {
+                break;
+            }
         }
-        return new LinkedHashMap<>(source);
+        return snapshot;
     }
-}
 
+    private static List<SnapshotStore> otherStores(SnapshotStore current) {
+        List<SnapshotStore> stores = new ArrayList<>();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.getResource(TRANSACTION_RESOURCE_KEY) instanceof SnapshotStore store) {
+            stores.add(store);
+        }
+        Map<EntityManager, SnapshotStore> contexts = CONTEXTS.get();
+        if (contexts != null) {
+            stores.addAll(contexts.values());
+        }
+        SnapshotStore unscoped = UNSCOPED.get();
+        if (unscoped != null) {
+            stores.add(unscoped);
+        }
+        stores.remove(current);
+        return stores;
+    }
+
+    private static SnapshotStore currentStore(Object entity, boolean create) {
+        EntityManager entityManager = boundEntityManager(entity);
+        if (entityManager != null) {
+            return contextStore(entityManager, create);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            SnapshotStore store = (SnapshotStore) TransactionSynchronizationManager.getResource(TRANSACTION_RESOURCE_KEY);
+            if (store == null && create) {
+                store = new SnapshotStore(null);
+                TransactionSynchronizationManager.bindResource(TRANSACTION_RESOURCE_KEY, store);
+                TransactionSynchronizationManager.registerSynchronization(store);
+            }
+            return store;
+        }
+        SnapshotStore store = UNSCOPED.get();
+        if (store == null && create) {
+            store = new SnapshotStore(null);
+            UNSCOPED.set(store);
+            releaseWithRequest();
+        }
+        return store;
+    }
+
+    private static SnapshotStore contextStore(EntityManager entityManager, boolean create) {
+        Map<EntityManager, SnapshotStore> contexts = CONTEXTS.get();
+        if (contexts == null) {
+            if (!create) {
+                return null;
+            }
+            contexts = new IdentityHashMap<>();
+            CONTEXTS.set(contexts);
+        }
+        // Persistence contexts closed since the last callback on this thread.
+        contexts.keySet().removeIf(open -> open != entityManager && !open.isOpen());
+        SnapshotStore store = contexts.get(entityManager);
+        if (store == null && create) {
+            store = new SnapshotStore(entityManager);
+            contexts.put(entityManager, store);
+            if (!releaseWithRequest() && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(store);
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Registers {@link #release()} to run when the current web request completes.
+     *
+     * @return {@code false} outside a web request
+     */
+    private static boolean releaseWithRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        attributes.registerDestructionCallback(REQUEST_CALLBACK_NAME, EntityAuditSnapshotHolder::release,
+                RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+
+    /**
+     * The Spring-bound entity manager managing {@code entity}; with several persistence units
+     * bound, the one that contains it, else the first.
+     */
+    private static EntityManager boundEntityManager(Object entity) {
+        EntityManager first = null;
+        boolean firstChecked = false;
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (!(resource instanceof EntityManagerHolder holder)) {
+                continue;
+            }
+            EntityManager entityManager = holder.getEntityManager();
+            if (first == null) {
+                first = entityManager;
+                continue;
+            }
+            if (!firstChecked) {
+                if (contains(first, entity)) {
+                    return first;
+                }
+                firstChecked = true;
+            }
+            if (contains(entityManager, entity)) {
+                return entityManager;
+            }
+        }
+        return first;
+    }
+
+    private static boolean contains(EntityManager entityManager, Object entity) {
+        try {
+            return entityManager.isOpen() && entityManager.contains(entity);
+        } catch (RuntimeException ex) {
+            // Not an entity type of this persistence unit.
+            return false;
+        }
+    }
+
+    /**
+     * Snapshots keyed by entity identity; doubles as the synchronization that releases it.
+     */
+    private static final class SnapshotStore implements TransactionSynchronization {
+
+        private final Map<Object, EntitySnapshot> snapshots = new IdentityHashMap<>();
+        private final EntityManager entityManager;
+        private boolean overflowLogged;
+
+        private SnapshotStore(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+
+        private void put(Object entity, EntitySnapshot snapshot) {
+            if (snapshots.size() >= maxEntries && !snapshots.containsKey(entity)) {
+                OVERFLOWS.increment();
+                if (!overflowLogged) {
+                    overflowLogged = true;
+                    log.warn("Entity audit snapshot limit of {} reached; further entities are audited without their previous state",
+                            maxEntries);
+                }
+                return;
+            }
+            snapshots.put(entity, snapshot);
+        }
+
+        private EntitySnapshot find(Object entity, boolean remove) {
+            return remove ? snapshots.remove(entity) : snapshots.get(entity);
+        }
+
+        private boolean isEmpty() {
+            return snapshots.isEmpty();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            snapshots.clear();
+            if (entityManager == null) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_RESOURCE_KEY);
+                return;
+            }
+            Map<EntityManager, SnapshotStore> contexts = CONTEXTS.get();
+            if (contexts != null && contexts.get(entityManager) == this) {
+                contexts.remove(entityManager);
+                if (contexts.isEmpty()) {
+                    CONTEXTS.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.shared.entityaudit.listener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.EntityAuditHelper;
+import com.shared.entityaudit.descriptor.EntityAuditDescriptor;
+import com.shared.entityaudit.model.EntityAuditAction;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.service.EntityAuditDiffer;
+
+/**
+ * Collects the entity audit events of a Spring-managed transaction and writes their net
+ * effect once, instead of one insert per JPA callback.
+ * <p>
+ * Events for the same entity type and id are collapsed: a create followed by updates becomes
+ * one create with the final state, consecutive updates become one update from the first old
+ * state to the last new state, and a create that is deleted again leaves no event. An update
+ * that ends where it started is dropped. Each net change is then reduced to its changed
+ * fields by the {@link EntityAuditDiffer}.
+ * <p>
+ * In {@code BEFORE_COMMIT} mode the persistence context is flushed and the changes are written
+ * in one JDBC batch inside the committing transaction, so a failed audit write still rolls the
+ * transaction back. In {@code AFTER_COMMIT} mode they are handed to a single background writer
+ * once the commit has succeeded. A rollback discards them. Events raised outside a transaction
+ * are not buffered.
+ * <p>
+ * The listener {@linkplain #register() registers} the buffer as soon as an audited entity is
+ * loaded, persisted or removed, because events first raised by the flush inside the commit
+ * itself come too late for {@code beforeCommit}. Changes that still arrive that way are
+ * written after the commit in a transaction of their own.
+ */
+public class EntityAuditTransactionBuffer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityAuditTransactionBuffer.class);
+
+    private final EntityAuditHelper entityAuditHelper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionOperations writerTransactions;
+    private final EntityAuditProperties.BufferingProperties properties;
+    private final EntityAuditDiffer differ;
+    private final ThreadPoolExecutor writer;
+
+    public EntityAuditTransactionBuffer(EntityAuditHelper entityAuditHelper,
+                                        @Nullable EntityManagerFactory entityManagerFactory,
+                                        @Nullable TransactionOperations writerTransactions,
+                                        EntityAuditProperties.BufferingProperties properties,
+                                        EntityAuditDiffer differ) {
+        this.entityAuditHelper = Objects.requireNonNull(entityAuditHelper, "entityAuditHelper must not be null");
+        this.differ = Objects.requireNonNull(differ, "differ must not be null");
+        this.entityManagerFactory = entityManagerFactory;
+        this.writerTransactions = writerTransactions;
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        this.writer = properties.getMode() == EntityAuditProperties.BufferingProperties.Mode.AFTER_COMMIT
+                ? newWriter(Math.max(1, properties.getQueueCapacity()))
+                : null;
+    }
+
+    /**
+     * Buffers the change for the current transaction.
+     *
+     * @return {@code false} when the change is not buffered and must be written immediately
+     */
+    public boolean buffer(EntityAuditDescriptor descriptor, EntityAuditEventRequest request) {
+        TransactionChanges changes = registerChanges();
+        return changes != null && changes.add(descriptor, request);
+    }
+
+    /**
+     * Registers the buffer with the current transaction ahead of its first change, so that
+     * changes raised while the commit flushes are still written.
+     */
+    public void register() {
+        registerChanges();
+    }
+
+    @Nullable
+    private TransactionChanges registerChanges() {
+        if (properties.getMode() == EntityAuditProperties.BufferingProperties.Mode.IMMEDIATE
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        TransactionChanges changes = currentChanges();
+        if (changes == null) {
+            changes = new TransactionChanges();
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    @Override
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Entity audit writer did not drain within {}; {} committed transactions were not audited",
+                        properties.getShutdownTimeout(), writer.getQueue().size());
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            writer.shutdownNow();
+        }
+    }
+
+    @Nullable
+    private TransactionChanges currentChanges() {
+        // Synchronizations are suspended with their transaction, so REQUIRES_NEW gets its own buffer.
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionChanges changes && changes.owner() == this) {
+                return changes;
+            }
+        }
+        return null;
+    }
+
+    private void flushPersistenceContext() {
+        if (entityManagerFactory == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.getResource(entityManagerFactory) instanceof EntityManagerHolder holder) {
+            // Raises the remaining @PostUpdate callbacks now rather than during the commit itself.
+            holder.getEntityManager().flush();
+        }
+    }
+
+    private void writeLate(List<EntityAuditEventRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        log.warn("Writing {} entity audit events raised during commit in a separate transaction", requests.size());
+        try {
+            if (writerTransactions != null) {
+                writerTransactions.executeWithoutResult(status -> entityAuditHelper.recordChanges(requests));
+            } else {
+                entityAuditHelper.recordChanges(requests);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to write {} entity audit events raised during commit", requests.size(), ex);
+        }
+    }
+
+    private void writeInBackground(List<EntityAuditEventRequest> requests) {
+        try {
+            if (writerTransactions != null) {
+                writerTransactions.executeWithoutResult(status -> entityAuditHelper.recordChanges(requests));
+            } else {
+                entityAuditHelper.recordChanges(requests);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to write {} entity audit events after commit", requests.size(), ex);
+        }
+    }
+
+    private static ThreadPoolExecutor newWriter(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "shared-lib-entity-audit-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    // Wait for queue space rather than run on the caller, whose transaction resources are still bound.
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("Entity audit writer has been shut down");
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for the entity audit writer", ex);
+                    }
+                });
+    }
+
+    @Nullable
+    private static EntityAuditAction actionOf(String operation) {
+        for (EntityAuditAction action : EntityAuditAction.values()) {
+            if (action.name().equals(operation)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Net changes of one transaction, keyed by entity type and id in first-seen order.
+     */
+    private final class TransactionChanges implements TransactionSynchronization {
+
+        private final Map<Object, List<BufferedChange>> byEntity = new LinkedHashMap<>();
+        private boolean drained;
+
+        private EntityAuditTransactionBuffer owner() {
+            return EntityAuditTransactionBuffer.this;
+        }
+
+        private boolean add(EntityAuditDescriptor descriptor, EntityAuditEventRequest request) {
+            if (drained) {
+                return false;
+            }
+            String entityId = request.getEntityId().orElse(null);
+            Object key = entityId != null ? request.getEntityType() + ":" + entityId : new Object();
+            List<BufferedChange> changes = byEntity.computeIfAbsent(key, k -> new ArrayList<>(1));
+            BufferedChange incoming = new BufferedChange(descriptor, request);
+            if (!collapse(changes, incoming)) {
+                changes.add(incoming);
+            }
+            return true;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (properties.getMode() != EntityAuditProperties.BufferingProperties.Mode.BEFORE_COMMIT) {
+                return;
+            }
+            if (!readOnly) {
+                flushPersistenceContext();
+            }
+            List<EntityAuditEventRequest> requests = drain();
+            if (!requests.isEmpty()) {
+                entityAuditHelper.recordChanges(requests);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (properties.getMode() != EntityAuditProperties.BufferingProperties.Mode.AFTER_COMMIT) {
+                if (!drained) {
+                    // Registered by the commit's own flush, after beforeCommit had already run.
+                    writeLate(drain());
+                }
+                return;
+            }
+            List<EntityAuditEventRequest> requests = drain();
+            if (requests.isEmpty()) {
+                return;
+            }
+            // Resolve user, trace and client details while the request's thread context is still available.
+            requests.forEach(entityAuditHelper::enrich);
+            try {
+                writer.execute(() -> writeInBackground(requests));
+            } catch (RejectedExecutionException ex) {
+                log.error("Dropped {} entity audit events after commit", requests.size(), ex);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            byEntity.clear();
+            drained = true;
+        }
+
+        private List<EntityAuditEventRequest> drain() {
+            drained = true;
+            List<EntityAuditEventRequest> requests = new ArrayList<>(byEntity.size());
+            for (List<BufferedChange> changes : byEntity.values()) {
+                for (BufferedChange change : changes) {
+                    EntityAuditEventRequest request = change.toRequest();
+                    if (differ.apply(request, change.descriptor)) {
+                        requests.add(request);
+                    }
+                }
+            }
+            byEntity.clear();
+            return requests;
+        }
+
+        private boolean collapse(List<BufferedChange> changes, BufferedChange incoming) {
+            if (changes.isEmpty()) {
+                return false;
+            }
+            BufferedChange last = changes.get(changes.size() - 1);
+            if (last.action == EntityAuditAction.CREATE && incoming.action == EntityAuditAction.DELETE) {
+                changes.remove(changes.size() - 1);
+                return true;
+            }
+            EntityAuditAction net = netAction(last.action, incoming.action);
+            if (net == null) {
+                return false;
+            }
+            last.absorb(net, incoming);
+            if (net == EntityAuditAction.UPDATE && Objects.equals(last.oldValues, last.newValues)) {
+                changes.remove(changes.size() - 1);
+            }
+            return true;
+        }
+    }
+
+    @Nullable
+    private static EntityAuditAction netAction(@Nullable EntityAuditAction first, @Nullable EntityAuditAction next) {
+        if (first == EntityAuditAction.CREATE && next == EntityAuditAction.UPDATE) {
+            return EntityAuditAction.CREATE;
+        }
+        if (first == EntityAuditAction.UPDATE && (next == EntityAuditAction.UPDATE || next == EntityAuditAction.DELETE)) {
+            return next;
+        }
+        if (first == EntityAuditAction.DELETE && next == EntityAuditAction.CREATE) {
+            return EntityAuditAction.UPDATE;
+        }
+        return null;
+    }
+
+    /**
+     * One pending event; {@code oldValues} stays from the first event absorbed into it.
+     */
+    private static final class BufferedChange {
+
+        private EntityAuditDescriptor descriptor;
+        private EntityAuditEventRequest request;
+        private EntityAuditAction action;
+        private final Map<String, Object> oldValues;
+        private Map<String, Object> newValues;
+        private boolean collapsed;
+
+        private BufferedChange(EntityAuditDescriptor descriptor, EntityAuditEventRequest request) {
+            this.descriptor = descriptor;
+            this.request = request;
+            this.action = actionOf(request.getOperation());
+            this.oldValues = request.getOldValues();
+            this.newValues = request.getNewValues();
+        }
+
+        private void absorb(EntityAuditAction net, BufferedChange incoming) {
+            descriptor = incoming.descriptor;
+            request = incoming.request;
+            action = net;
+            newValues = incoming.newValues;
+            collapsed = true;
+        }
+
+        private EntityAuditEventRequest toRequest() {
+            if (collapsed) {
+                request.setOperation(action.name());
+                request.setOldValues(oldValues);
+                request.setNewValues(newValues);
+            }
+            return request;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.shared.entityaudit.listener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Immutable copy of an entity's audit state, held as a value array against a field layout
+ * shared by all snapshots of the same entity class.
+ */
+final class EntitySnapshot {
+
+    private static final ClassValue<AtomicReference<String[]>> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected AtomicReference<String[]> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+
+    private static final EntitySnapshot EMPTY = new EntitySnapshot(new String[0], new Object[0]);
+
+    private final String[] fields;
+    private final Object[] values;
+
+    private EntitySnapshot(String[] fields, Object[] values) {
+        this.fields = fields;
+        this.values = values;
+    }
+
+    static EntitySnapshot of(Class<?> type, Map<String, Object> state) {
+        if (state == null || state.isEmpty()) {
+            return EMPTY;
+        }
+        AtomicReference<String[]> layout = LAYOUTS.get(type);
+        String[] fields = layout.get();
+        Object[] values = fields != null ? valuesInLayout(fields, state) : null;
+        if (values == null) {
+            // First snapshot of the class, or a state whose keys differ from the shared layout.
+            fields = state.keySet().toArray(new String[0]);
+            values = state.values().toArray();
+            layout.set(fields);
+        }
+        return new EntitySnapshot(fields, values);
+    }
+
+    Map<String, Object> toMap() {
+        if (fields.length == 0) {
+            return Map.of();
+        }
+        Map<String, Object> state = new LinkedHashMap<>((int) (fields.length / 0.75f) + 1);
+        for (int i = 0; i < fields.length; i++) {
+            state.put(fields[i], values[i]);
+        }
+        return state;
+    }
+
+    private static Object[] valuesInLayout(String[] fields, Map<String, Object> state) {
+        if (fields.length != state.size()) {
+            return null;
+        }
+        Object[] values = new Object[fields.length];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : state.entrySet()) {
+            if (!fields[i].equals(entry.getKey())) {
+                return null;
+            }
+            values[i++] = entry.getValue();
+        }
+        return values;
+    }
+}
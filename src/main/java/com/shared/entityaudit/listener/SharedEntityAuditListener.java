@@ -7,6 +7,10 @@ import jakarta.persistence.PostLoad;
 import jakarta.persistence.PostPersist;
 import jakarta.persistence.PostRemove;
 import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.shared.entityaudit.descriptor.EntityAuditDescriptor;
 import com.shared.entityaudit.model.EntityAuditAction;
@@ -27,13 +31,28 @@ public class SharedEntityAuditListener {
     @PostLoad
     public void postLoad(Object entity) {
         if (entity instanceof EntityAuditDescriptor descriptor) {
+            if (delegate == null || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                // Nothing can be audited, or the read-only session will not flush an update.
+                return;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("EntityAudit postLoad for {}", entity.getClass().getName());
             }
             EntityAuditSnapshotHolder.capture(entity, descriptor.auditState());
+            prepare(entity);
         }
     }
 
+    @PrePersist
+    public void prePersist(Object entity) {
+        prepare(entity);
+    }
+
+    @PreRemove
+    public void preRemove(Object entity) {
+        prepare(entity);
+    }
+
     @PostPersist
     public void postPersist(Object entity) {
         if (entity instanceof EntityAuditDescriptor descriptor) {
@@ -65,6 +84,14 @@ public class SharedEntityAuditListener {
         }
     }
 
+    private void prepare(Object entity) {
+        EntityAuditListenerDelegate current = delegate;
+        if (current != null && entity instanceof EntityAuditDescriptor) {
+            // PostPersist of an assigned id and PostUpdate may fire only inside the commit's flush.
+            current.prepare();
+        }
+    }
+
     private void publish(EntityAuditDescriptor descriptor,
                          Object entity,
                          EntityAuditAction action,
@@ -0,0 +1,23 @@
+package com.shared.entityaudit.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Verification progress of one entity audit chain: every row of {@code recordNumber} up to
+ * {@code verifiedId} has been verified and {@code headHash} is the hash of that row.
+ *
+ * @param brokenId first row that failed verification, when {@code status} is {@link Status#BROKEN}
+ */
+public record EntityAuditCheckpoint(String recordNumber,
+                                    long verifiedId,
+                                    String headHash,
+                                    Status status,
+                                    Long brokenId,
+                                    OffsetDateTime checkedAt) {
+
+    public enum Status {
+        VERIFIED,
+        BROKEN,
+        ERROR
+    }
+}
@@ -0,0 +1,24 @@
+package com.shared.entityaudit.model;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of one incremental verification run over the entity audit chains.
+ *
+ * @param upToId highest row id considered by the run
+ */
+public record EntityAuditVerificationReport(long upToId,
+                                            int recordNumbers,
+                                            long rowsChecked,
+                                            Duration elapsed,
+                                            List<EntityAuditCheckpoint> failures) {
+
+    public EntityAuditVerificationReport {
+        failures = List.copyOf(failures);
+    }
+
+    public boolean valid() {
+        return failures.isEmpty();
+    }
+}
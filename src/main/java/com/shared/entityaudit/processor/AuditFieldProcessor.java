@@ -0,0 +1,202 @@
+package com.shared.entityaudit.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.shared.entityaudit.annotation.AuditField;
+
+/**
+ * Generates an {@code <EntityClass>_AuditState} {@link com.shared.entityaudit.descriptor.AuditStateExtractor}
+ * for every class that declares {@link AuditField} fields. Inherited {@code @AuditField} fields come
+ * first. Fields that are not visible from the entity's package are read through their getter.
+ */
+@SupportedAnnotationTypes(AuditFieldProcessor.AUDIT_FIELD)
+public class AuditFieldProcessor extends AbstractProcessor {
+
+    static final String AUDIT_FIELD = "com.shared.entityaudit.annotation.AuditField";
+    static final String EXTRACTOR_SUFFIX = "_AuditState";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> entities = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(AuditField.class)) {
+            if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement type) {
+                entities.add(type);
+            }
+        }
+        for (TypeElement entity : entities) {
+            try {
+                generate(entity);
+            } catch (IOException ex) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate audit state extractor: " + ex.getMessage(), entity);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement entity) throws IOException {
+        if (entity.getModifiers().contains(Modifier.PRIVATE)
+                || (entity.getNestingKind() == NestingKind.MEMBER && !entity.getModifiers().contains(Modifier.STATIC))) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "@AuditField requires a top-level or static, non-private entity class", entity);
+            return;
+        }
+        PackageElement entityPackage = processingEnv.getElementUtils().getPackageOf(entity);
+        Map<String, String> accessors = new LinkedHashMap<>();
+        for (VariableElement field : auditFields(entity)) {
+            AuditField annotation = field.getAnnotation(AuditField.class);
+            String key = annotation.value().isEmpty() ? field.getSimpleName().toString() : annotation.value();
+            String accessor = accessor(field, entityPackage);
+            if (accessor == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "@AuditField " + field.getSimpleName() + " is not accessible and has no getter", field);
+                return;
+            }
+            if (accessors.put(key, accessor) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Duplicate @AuditField key '" + key + "' in " + entity.getQualifiedName(), field);
+                return;
+            }
+        }
+
+        String packageName = entityPackage.isUnnamed() ? "" : entityPackage.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(entity).toString();
+        String extractorName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + EXTRACTOR_SUFFIX;
+        String entityType = processingEnv.getTypeUtils().erasure(entity.asType()).toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(AuditFieldProcessor.class.getName()).append("\")\n")
+                .append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n")
+                .append("public final class ").append(extractorName)
+                .append(" implements com.shared.entityaudit.descriptor.AuditStateExtractor<").append(entityType).append("> {\n\n")
+                .append("    private static final String[] FIELD_NAMES = {");
+        int index = 0;
+        for (String key : accessors.keySet()) {
+            source.append(index++ == 0 ? "" : ", ").append(literal(key));
+        }
+        source.append("};\n\n")
+                .append("    @Override\n")
+                .append("    public String[] fieldNames() {\n")
+                .append("        return FIELD_NAMES;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void extract(").append(entityType).append(" entity, Object[] values) {\n");
+        index = 0;
+        for (String accessor : accessors.values()) {
+            source.append("        values[").append(index++).append("] = entity.").append(accessor).append(";\n");
+        }
+        source.append("    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? extractorName : packageName + "." + extractorName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, entity).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private List<VariableElement> auditFields(TypeElement entity) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        for (TypeElement type = entity; type != null; type = superclassOf(type)) {
+            hierarchy.push(type);
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (field.getAnnotation(AuditField.class) != null && !field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private String accessor(VariableElement field, PackageElement entityPackage) {
+        if (isVisible(field, entityPackage)) {
+            return field.getSimpleName().toString();
+        }
+        TypeElement owner = (TypeElement) field.getEnclosingElement();
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        List<String> candidates = field.asType().getKind() == TypeKind.BOOLEAN
+                ? List.of("is" + capitalized, "get" + capitalized)
+                : List.of("get" + capitalized);
+        for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+            if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.STATIC)
+                    && candidates.contains(method.getSimpleName().toString()) && isVisible(method, entityPackage)) {
+                return method.getSimpleName() + "()";
+            }
+        }
+        return null;
+    }
+
+    private boolean isVisible(Element member, PackageElement entityPackage) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        // Package-private and protected members are visible to the extractor only within the same package.
+        return processingEnv.getElementUtils().getPackageOf(member).equals(entityPackage);
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,113 @@
+package com.shared.entityaudit.repository;
+
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.exception.EntityAuditPersistenceException;
+import com.shared.entityaudit.model.EntityAuditCheckpoint;
+
+/**
+ * Repository for the per-record-number verification checkpoints of entity audit chains.
+ */
+public class EntityAuditCheckpointRepository {
+
+    private static final RowMapper<EntityAuditCheckpoint> CHECKPOINT_MAPPER = (rs, rowNum) -> {
+        long brokenId = rs.getLong("broken_id");
+        return new EntityAuditCheckpoint(
+                rs.getString("record_number"),
+                rs.getLong("verified_id"),
+                rs.getString("head_hash"),
+                EntityAuditCheckpoint.Status.valueOf(rs.getString("status")),
+                rs.wasNull() ? null : brokenId,
+                rs.getTimestamp("checked_at").toInstant().atOffset(ZoneOffset.UTC));
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityAuditProperties entityAuditProperties;
+
+    public EntityAuditCheckpointRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                           EntityAuditProperties entityAuditProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityAuditProperties = entityAuditProperties;
+    }
+
+    /**
+     * Highest row id covered by any checkpoint; rows above it have never been verified.
+     */
+    public long findWatermark() {
+        String sql = "SELECT COALESCE(MAX(verified_id), 0) FROM " + checkpointTable();
+        try {
+            Long watermark = jdbcTemplate.queryForObject(sql, Map.of(), Long.class);
+            return watermark != null ? watermark : 0L;
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read entity audit verification watermark", ex);
+        }
+    }
+
+    /**
+     * Record numbers whose last verification did not succeed and must be retried.
+     */
+    public List<String> findUnverifiedRecordNumbers() {
+        String sql = "SELECT record_number FROM " + checkpointTable() + " WHERE status <> :status";
+        try {
+            return jdbcTemplate.queryForList(sql,
+                    Map.of("status", EntityAuditCheckpoint.Status.VERIFIED.name()), String.class);
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read failed entity audit checkpoints", ex);
+        }
+    }
+
+    public Optional<EntityAuditCheckpoint> find(String recordNumber) {
+        String sql = "SELECT record_number, verified_id, head_hash, status, broken_id, checked_at FROM "
+                + checkpointTable() + " WHERE record_number = :record_number";
+        try {
+            return jdbcTemplate.query(sql, Map.of("record_number", recordNumber), CHECKPOINT_MAPPER)
+                    .stream()
+                    .findFirst();
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read entity audit checkpoint " + recordNumber, ex);
+        }
+    }
+
+    public void save(EntityAuditCheckpoint checkpoint) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("record_number", checkpoint.recordNumber())
+                .addValue("verified_id", checkpoint.verifiedId())
+                .addValue("head_hash", checkpoint.headHash())
+                .addValue("status", checkpoint.status().name())
+                .addValue("broken_id", checkpoint.brokenId())
+                .addValue("checked_at", Timestamp.from(checkpoint.checkedAt().toInstant()));
+        String update = "UPDATE " + checkpointTable() + " SET verified_id = :verified_id, head_hash = :head_hash,"
+                + " status = :status, broken_id = :broken_id, checked_at = :checked_at"
+                + " WHERE record_number = :record_number";
+        String insert = "INSERT INTO " + checkpointTable()
+                + " (record_number, verified_id, head_hash, status, broken_id, checked_at)"
+                + " VALUES (:record_number, :verified_id, :head_hash, :status, :broken_id, :checked_at)";
+        try {
+            if (jdbcTemplate.update(update, parameters) == 0) {
+                try {
+                    jdbcTemplate.update(insert, parameters);
+                } catch (DuplicateKeyException ex) {
+                    jdbcTemplate.update(update, parameters);
+                }
+            }
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to save entity audit checkpoint "
+                    + checkpoint.recordNumber(), ex);
+        }
+    }
+
+    private String checkpointTable() {
+        return entityAuditProperties.getVerification().getCheckpointTable();
+    }
+}
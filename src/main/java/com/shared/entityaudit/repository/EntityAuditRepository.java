@@ -1,18 +1,27 @@
 package com.shared.entityaudit.repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.shared.config.EntityAuditProperties;
@@ -24,6 +33,9 @@ import com.shared.entityaudit.model.EntityAuditEvent;
  */
 public class EntityAuditRepository {
 
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {
+    };
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
     private final EntityAuditProperties entityAuditProperties;
     private final ObjectMapper objectMapper;
@@ -49,7 +61,7 @@ public class EntityAuditRepository {
                 SELECT hash
                 FROM %s
                 WHERE record_number = :record_number
-                ORDER BY occurred_at DESC, id DESC
+                ORDER BY id DESC
                 LIMIT 1
                 """.formatted(entityAuditProperties.getTableName());
 
@@ -87,30 +99,96 @@ public class EntityAuditRepository {
         }
     }
 
-    public Optional<String> findLatestRecordNumberWithPrefix(String prefix) {
-        if (prefix == null) {
-            return Optional.empty();
+    /**
+     * Draws the next value of the record number sequence.
+     */
+    public long nextRecordNumberSequenceValue() {
+        EntityAuditProperties.RecordNumberProperties recordNumber = entityAuditProperties.getRecordNumber();
+        String sql = recordNumber.getNextValueSql().formatted(recordNumber.getSequence());
+        try {
+            Long value = jdbcTemplate.getJdbcTemplate().queryForObject(sql, Long.class);
+            if (value == null) {
+                throw new EntityAuditPersistenceException("Record number sequence returned no value");
+            }
+            return value;
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read record number sequence "
+                    + recordNumber.getSequence(), ex);
         }
+    }
 
-        String sql = """
-                SELECT record_number
-                FROM %s
-                WHERE record_number LIKE :prefix
-                ORDER BY record_number DESC
-                LIMIT 1
-                """.formatted(entityAuditProperties.getTableName());
+    /**
+     * Reads the increment of the record number sequence from {@code information_schema.sequences},
+     * or returns empty when the sequence is not listed there.
+     */
+    public OptionalLong findRecordNumberSequenceIncrement() {
+        String sequence = entityAuditProperties.getRecordNumber().getSequence();
+        int dot = sequence.lastIndexOf('.');
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("schema", dot > 0 ? sequence.substring(0, dot) : null)
+                .addValue("name", sequence.substring(dot + 1));
+        String sql = "SELECT CAST(increment AS BIGINT) FROM information_schema.sequences"
+                + " WHERE LOWER(sequence_name) = LOWER(:name)"
+                + (dot > 0 ? " AND LOWER(sequence_schema) = LOWER(:schema)" : "");
+        try {
+            List<Long> increments = jdbcTemplate.queryForList(sql, params, Long.class);
+            return increments.isEmpty() || increments.get(0) == null
+                    ? OptionalLong.empty()
+                    : OptionalLong.of(increments.get(0));
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read the increment of record number sequence "
+                    + sequence, ex);
+        }
+    }
+
+    public long save(EntityAuditEvent event) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(insertSql(), toParameters(event), keyHolder, new String[]{"id"});
+            Number key = keyHolder.getKey();
+            if (key == null) {
+                throw new EntityAuditPersistenceException("Failed to retrieve generated entity audit id");
+            }
+            return key.longValue();
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to persist entity audit event", ex);
+        }
+    }
 
-        Map<String, Object> params = Map.of("prefix", prefix + "%");
+    /**
+     * Persists the given events in a single JDBC batch, preserving their order.
+     *
+     * @return generated identifiers, positionally aligned with {@code events}
+     */
+    public long[] saveAll(List<EntityAuditEvent> events) {
+        if (events.isEmpty()) {
+            return new long[0];
+        }
+        SqlParameterSource[] batch = new SqlParameterSource[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            batch[i] = toParameters(events.get(i));
+        }
 
+        KeyHolder keyHolder = new GeneratedKeyHolder();
         try {
-            return Optional.ofNullable(jdbcTemplate.queryForObject(sql, params, String.class));
+            jdbcTemplate.batchUpdate(insertSql(), batch, keyHolder, new String[]{"id"});
         } catch (DataAccessException ex) {
-            return Optional.empty();
+            throw new EntityAuditPersistenceException("Failed to persist entity audit event batch", ex);
+        }
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != events.size()) {
+            throw new EntityAuditPersistenceException("Failed to retrieve generated entity audit ids for batch");
+        }
+        long[] ids = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            ids[i] = extractId(keys.get(i));
         }
+        return ids;
     }
 
-    public long save(EntityAuditEvent event) {
-        String sql = """
+    private String insertSql() {
+        return """
                 INSERT INTO %s (
                     occurred_at,
                     audit_number,
@@ -153,7 +231,9 @@ public class EntityAuditRepository {
                     :source_table
                 )
                 """.formatted(entityAuditProperties.getTableName());
+    }
 
+    private MapSqlParameterSource toParameters(EntityAuditEvent event) {
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("occurred_at", toTimestamp(event.getOccurredAt()));
         parameters.addValue("audit_number", event.getAuditNumber());
@@ -174,18 +254,109 @@ public class EntityAuditRepository {
         parameters.addValue("service_name", entityAuditProperties.getServiceName());
         parameters.addValue("source_schema", entityAuditProperties.getSourceSchema());
         parameters.addValue("source_table", entityAuditProperties.getSourceTable());
+        return parameters;
+    }
 
-        KeyHolder keyHolder = new GeneratedKeyHolder();
+    /**
+     * Returns the highest row id, or {@code 0} when the table is empty.
+     */
+    public long findMaxId() {
+        String sql = "SELECT COALESCE(MAX(id), 0) FROM " + entityAuditProperties.getTableName();
         try {
-            jdbcTemplate.update(sql, parameters, keyHolder, new String[]{"id"});
-            Number key = keyHolder.getKey();
-            if (key == null) {
-                throw new EntityAuditPersistenceException("Failed to retrieve generated entity audit id");
-            }
-            return key.longValue();
+            Long maxId = jdbcTemplate.queryForObject(sql, Map.of(), Long.class);
+            return maxId != null ? maxId : 0L;
         } catch (DataAccessException ex) {
-            throw new EntityAuditPersistenceException("Failed to persist entity audit event", ex);
+            throw new EntityAuditPersistenceException("Failed to read entity audit id range", ex);
+        }
+    }
+
+    /**
+     * Returns the record numbers that have rows with {@code afterId < id <= upToId} above their
+     * chain's verification checkpoint.
+     */
+    public List<String> findRecordNumbersWithRowsBetween(long afterId, long upToId) {
+        String sql = "SELECT DISTINCT e.record_number FROM " + entityAuditProperties.getTableName() + " e"
+                + " LEFT JOIN " + entityAuditProperties.getVerification().getCheckpointTable() + " c"
+                + " ON c.record_number = e.record_number"
+                + " WHERE e.id > :after_id AND e.id <= :up_to_id AND (c.verified_id IS NULL OR e.id > c.verified_id)";
+        try {
+            return jdbcTemplate.queryForList(sql, Map.of("after_id", afterId, "up_to_id", upToId), String.class);
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to read changed entity audit record numbers", ex);
+        }
+    }
+
+    /**
+     * Streams the rows of one chain with {@code afterId < id <= upToId} in id order, one at a time.
+     */
+    public void streamChain(String recordNumber, long afterId, long upToId, int fetchSize, StoredEventHandler handler) {
+        String sql = "SELECT id, occurred_at, audit_number, record_number, entity_type, entity_id, operation,"
+                + " performed_by, trace_id, metadata, old_values, new_values, change_summary, client_ip,"
+                + " user_agent, prev_hash, hash FROM " + entityAuditProperties.getTableName()
+                + " WHERE record_number = ? AND id > ? AND id <= ? ORDER BY id";
+        try {
+            jdbcTemplate.getJdbcTemplate().query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setString(1, recordNumber);
+                statement.setLong(2, afterId);
+                statement.setLong(3, upToId);
+                return statement;
+            }, (RowCallbackHandler) rs -> handler.handle(rs.getLong("id"), mapStoredEvent(rs)));
+        } catch (DataAccessException ex) {
+            throw new EntityAuditPersistenceException("Failed to stream entity audit chain " + recordNumber, ex);
+        }
+    }
+
+    /**
+     * Receives streamed entity audit rows in id order.
+     */
+    @FunctionalInterface
+    public interface StoredEventHandler {
+        void handle(long id, EntityAuditEvent event);
+    }
+
+    private EntityAuditEvent mapStoredEvent(ResultSet rs) throws SQLException {
+        return EntityAuditEvent.builder()
+                .occurredAt(rs.getTimestamp("occurred_at").toInstant().atOffset(ZoneOffset.UTC))
+                .auditNumber(rs.getString("audit_number"))
+                .recordNumber(rs.getString("record_number"))
+                .entityType(rs.getString("entity_type"))
+                .entityId(rs.getString("entity_id"))
+                .operation(rs.getString("operation"))
+                .performedBy(rs.getString("performed_by"))
+                .traceId(rs.getString("trace_id"))
+                .metadata(fromJson(rs.getString("metadata")))
+                .oldValues(fromJson(rs.getString("old_values")))
+                .newValues(fromJson(rs.getString("new_values")))
+                .changeSummary(rs.getString("change_summary"))
+                .clientIp(rs.getString("client_ip"))
+                .userAgent(rs.getString("user_agent"))
+                .prevHash(rs.getString("prev_hash"))
+                .hash(rs.getString("hash"))
+                .build();
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, JSON_MAP);
+        } catch (JsonProcessingException ex) {
+            throw new EntityAuditPersistenceException("Failed to read entity audit payload JSON", ex);
+        }
+    }
+
+    private long extractId(Map<String, Object> generatedKeys) {
+        Object key = generatedKeys.size() == 1
+                ? generatedKeys.values().iterator().next()
+                : generatedKeys.get("id");
+        if (!(key instanceof Number number)) {
+            throw new EntityAuditPersistenceException("Failed to retrieve generated entity audit id");
         }
+        return number.longValue();
     }
 
     private Timestamp toTimestamp(OffsetDateTime occurredAt) {
@@ -0,0 +1,84 @@
+package com.shared.entityaudit.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Allocates record numbers from blocks leased with a single sequence call.
+ * <p>
+ * The sequence must be created with {@code INCREMENT BY blockSize} (or more): sequence value
+ * {@code n} leases the numbers {@code [n, n + blockSize)}, so blocks never overlap each other
+ * or numbers drawn from the same sequence before, e.g. with the {@code SEQUENCE} strategy or a
+ * larger block size. Numbers within a block are taken with a lock-free increment; only the
+ * thread that exhausts a block goes back to the database. Numbers left in a block at shutdown
+ * are skipped.
+ */
+public class BlockRecordNumberAllocator implements RecordNumberAllocator {
+
+    private final LongSupplier sequence;
+    private final int blockSize;
+    private final Clock clock;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0L, 0L));
+
+    /**
+     * Creates an allocator for a sequence that increments by exactly {@code blockSize}.
+     */
+    public BlockRecordNumberAllocator(LongSupplier sequence, int blockSize, Clock clock) {
+        this(sequence, blockSize, blockSize, clock);
+    }
+
+    /**
+     * @param sequenceIncrement the increment the sequence was created with; must be at least {@code blockSize}
+     */
+    public BlockRecordNumberAllocator(LongSupplier sequence, long sequenceIncrement, int blockSize, Clock clock) {
+        this.sequence = Objects.requireNonNull(sequence, "sequence must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        if (blockSize <= 0) {
+            throw new IllegalStateException("entity-audit.record-number.block-size must be positive");
+        }
+        if (sequenceIncrement < blockSize) {
+            throw new IllegalStateException("Record number sequence increments by " + sequenceIncrement
+                    + " but entity-audit.record-number.block-size is " + blockSize
+                    + "; alter the sequence to INCREMENT BY " + blockSize + " so that leased blocks cannot overlap");
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String nextRecordNumber() {
+        return RecordNumberAllocator.format(LocalDate.now(clock), nextNumber());
+    }
+
+    long nextNumber() {
+        while (true) {
+            Block block = current.get();
+            long number = block.next.getAndIncrement();
+            if (number < block.end) {
+                return number;
+            }
+            lease(block);
+        }
+    }
+
+    private synchronized void lease(Block exhausted) {
+        if (current.get() != exhausted) {
+            return;
+        }
+        long start = sequence.getAsLong();
+        current.set(new Block(start, Math.addExact(start, blockSize)));
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
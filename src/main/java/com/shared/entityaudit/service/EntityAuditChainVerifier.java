@@ -0,0 +1,260 @@
+package com.shared.entityaudit.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.exception.EntityAuditPersistenceException;
+import com.shared.entityaudit.model.EntityAuditCheckpoint;
+import com.shared.entityaudit.model.EntityAuditEvent;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.model.EntityAuditVerificationReport;
+import com.shared.entityaudit.repository.EntityAuditCheckpointRepository;
+import com.shared.entityaudit.repository.EntityAuditRepository;
+
+/**
+ * Incrementally verifies the per-record-number entity audit chains.
+ * <p>
+ * Each chain has a checkpoint holding the last verified row id and its hash. A run only
+ * looks at record numbers with unverified rows above the highest checkpoint less
+ * {@code watermark-lag}, plus chains whose last verification failed, and only streams rows
+ * above each chain's own checkpoint. The cost
+ * of a run is therefore proportional to the rows written since the previous run. Chains
+ * are verified in id order and spread across {@code verification.threads} workers.
+ */
+public class EntityAuditChainVerifier implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityAuditChainVerifier.class);
+
+    private final EntityAuditRepository entityAuditRepository;
+    private final EntityAuditCheckpointRepository checkpointRepository;
+    private final EntityAuditHashService entityAuditHashService;
+    private final TransactionOperations readOnlyTransactions;
+    private final EntityAuditProperties.VerificationProperties properties;
+    private final Clock clock;
+    private ScheduledExecutorService scheduler;
+
+    public EntityAuditChainVerifier(EntityAuditRepository entityAuditRepository,
+                                    EntityAuditCheckpointRepository checkpointRepository,
+                                    EntityAuditHashService entityAuditHashService,
+                                    TransactionOperations readOnlyTransactions,
+                                    EntityAuditProperties.VerificationProperties properties,
+                                    Clock clock) {
+        this.entityAuditRepository = Objects.requireNonNull(entityAuditRepository, "entityAuditRepository must not be null");
+        this.checkpointRepository = Objects.requireNonNull(checkpointRepository, "checkpointRepository must not be null");
+        this.entityAuditHashService = Objects.requireNonNull(entityAuditHashService, "entityAuditHashService must not be null");
+        this.readOnlyTransactions = Objects.requireNonNull(readOnlyTransactions, "readOnlyTransactions must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Runs {@link #verifyNewRows()} every {@code verification.interval}; does nothing when no
+     * interval is configured.
+     */
+    public synchronized void start() {
+        Duration interval = properties.getInterval();
+        if (interval == null || interval.isZero() || interval.isNegative() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-entity-audit-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::verifyQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Verifies every chain that gained rows since the last run or failed verification before.
+     */
+    public EntityAuditVerificationReport verifyNewRows() {
+        long started = System.nanoTime();
+        long upToId = entityAuditRepository.findMaxId();
+        // Ids are drawn before commit, so rows just below the watermark may have committed after it moved.
+        long watermark = Math.max(0L, checkpointRepository.findWatermark() - Math.max(0L, properties.getWatermarkLag()));
+
+        Set<String> recordNumbers = new LinkedHashSet<>(checkpointRepository.findUnverifiedRecordNumbers());
+        if (upToId > watermark) {
+            recordNumbers.addAll(entityAuditRepository.findRecordNumbersWithRowsBetween(watermark, upToId));
+        }
+
+        LongAdder rows = new LongAdder();
+        List<EntityAuditCheckpoint> failures = new ArrayList<>();
+        if (!recordNumbers.isEmpty()) {
+            ExecutorService workers = newWorkers(Math.min(Math.max(1, properties.getThreads()), recordNumbers.size()));
+            try {
+                List<Future<EntityAuditCheckpoint>> results = new ArrayList<>(recordNumbers.size());
+                for (String recordNumber : recordNumbers) {
+                    results.add(workers.submit(() -> verifyRecord(recordNumber, upToId, rows)));
+                }
+                for (Future<EntityAuditCheckpoint> result : results) {
+                    EntityAuditCheckpoint checkpoint = result.get();
+                    if (checkpoint.status() != EntityAuditCheckpoint.Status.VERIFIED) {
+                        failures.add(checkpoint);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new EntityAuditPersistenceException("Entity audit verification was interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new EntityAuditPersistenceException("Entity audit verification failed", ex.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        log.info("Verified {} entity audit rows across {} record numbers in {} ({} failed)",
+                rows.sum(), recordNumbers.size(), elapsed, failures.size());
+        return new EntityAuditVerificationReport(upToId, recordNumbers.size(), rows.sum(), elapsed, failures);
+    }
+
+    /**
+     * Verifies the rows of one chain between its checkpoint and {@code upToId} and stores the new checkpoint.
+     */
+    public EntityAuditCheckpoint verifyRecord(String recordNumber, long upToId) {
+        return verifyRecord(recordNumber, upToId, new LongAdder());
+    }
+
+    private EntityAuditCheckpoint verifyRecord(String recordNumber, long upToId, LongAdder rows) {
+        EntityAuditCheckpoint previous = checkpointRepository.find(recordNumber).orElse(null);
+        long afterId = previous != null ? previous.verifiedId() : 0L;
+        String initialHead = previous != null ? previous.headHash() : entityAuditHashService.initialHashValue();
+
+        ChainProgress progress = new ChainProgress(afterId, initialHead);
+        EntityAuditCheckpoint checkpoint;
+        try {
+            readOnlyTransactions.executeWithoutResult(status -> entityAuditRepository.streamChain(
+                    recordNumber, afterId, upToId, properties.getFetchSize(), (id, event) -> {
+                        rows.increment();
+                        if (progress.brokenId != null) {
+                            return;
+                        }
+                        if (progress.head.equals(event.getPrevHash()) && verifiesHash(event)) {
+                            progress.verifiedId = id;
+                            progress.head = event.getHash();
+                        } else {
+                            progress.brokenId = id;
+                        }
+                    }));
+            if (progress.brokenId == null && previous != null
+                    && previous.status() == EntityAuditCheckpoint.Status.VERIFIED
+                    && progress.verifiedId == previous.verifiedId()) {
+                return previous;
+            }
+            checkpoint = new EntityAuditCheckpoint(recordNumber, progress.verifiedId, progress.head,
+                    progress.brokenId == null ? EntityAuditCheckpoint.Status.VERIFIED : EntityAuditCheckpoint.Status.BROKEN,
+                    progress.brokenId, OffsetDateTime.now(clock));
+            if (progress.brokenId != null) {
+                log.warn("Entity audit chain {} is broken at row {}", recordNumber, progress.brokenId);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to verify entity audit chain {}", recordNumber, ex);
+            checkpoint = new EntityAuditCheckpoint(recordNumber, afterId, initialHead,
+                    EntityAuditCheckpoint.Status.ERROR, null, OffsetDateTime.now(clock));
+        }
+        checkpointRepository.save(checkpoint);
+        return checkpoint;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private boolean verifiesHash(EntityAuditEvent event) {
+        EntityAuditEventRequest request = toRequest(event);
+        if (entityAuditHashService.computeHash(event.getPrevHash(), request).equals(event.getHash())) {
+            return true;
+        }
+        // Empty maps are hashed as {} but persisted as NULL; retry with each NULL map read back as {}.
+        Map<String, Object> metadata = event.getMetadata();
+        Map<String, Object> oldValues = event.getOldValues();
+        Map<String, Object> newValues = event.getNewValues();
+        for (int mask = 1; mask < 8; mask++) {
+            if (((mask & 1) != 0 && metadata != null)
+                    || ((mask & 2) != 0 && oldValues != null)
+                    || ((mask & 4) != 0 && newValues != null)) {
+                continue;
+            }
+            request.setMetadata((mask & 1) != 0 ? Map.of() : metadata);
+            request.setOldValues((mask & 2) != 0 ? Map.of() : oldValues);
+            request.setNewValues((mask & 4) != 0 ? Map.of() : newValues);
+            if (entityAuditHashService.computeHash(event.getPrevHash(), request).equals(event.getHash())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void verifyQuietly() {
+        try {
+            verifyNewRows();
+        } catch (RuntimeException ex) {
+            log.error("Scheduled entity audit verification failed", ex);
+        }
+    }
+
+    private static ExecutorService newWorkers(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-entity-audit-verifier-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static EntityAuditEventRequest toRequest(EntityAuditEvent event) {
+        EntityAuditEventRequest request = new EntityAuditEventRequest();
+        request.setOccurredAt(event.getOccurredAt());
+        request.setAuditNumber(event.getAuditNumber());
+        request.setRecordNumber(event.getRecordNumber());
+        request.setEntityType(event.getEntityType());
+        request.setEntityId(event.getEntityId().orElse(null));
+        request.setOperation(event.getOperation());
+        request.setPerformedBy(event.getPerformedBy().orElse(null));
+        request.setTraceId(event.getTraceId().orElse(null));
+        request.setMetadata(event.getMetadata());
+        request.setOldValues(event.getOldValues());
+        request.setNewValues(event.getNewValues());
+        request.setChangeSummary(event.getChangeSummary().orElse(null));
+        request.setClientIp(event.getClientIp().orElse(null));
+        request.setUserAgent(event.getUserAgent().orElse(null));
+        return request;
+    }
+
+    private static final class ChainProgress {
+        private long verifiedId;
+        private String head;
+        private Long brokenId;
+
+        private ChainProgress(long verifiedId, String head) {
+            this.verifiedId = verifiedId;
+            this.head = head;
+        }
+    }
+}
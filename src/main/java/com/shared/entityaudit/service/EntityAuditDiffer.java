@@ -0,0 +1,234 @@
+package com.shared.entityaudit.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.util.StringUtils;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.descriptor.EntityAuditDescriptor;
+import com.shared.entityaudit.model.EntityAuditAction;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+
+/**
+ * Reduces the old and new state of an updated entity to the fields that changed.
+ * <p>
+ * Nested maps are diffed recursively and keep only their changed keys. Lists, sets and
+ * arrays are compared element by element and, when they differ, kept whole on both sides.
+ * Numbers compare by value, so {@code 10} and {@code 10.0} are equal. A key present on only
+ * one side appears on the other as {@code null}. Keys listed in {@code always-include} are
+ * copied from both states even when unchanged, without counting as a change.
+ */
+public class EntityAuditDiffer {
+
+    private static final int MAX_SUMMARY_VALUE_LENGTH = 40;
+
+    private final boolean enabled;
+    private final Set<String> alwaysInclude;
+    private final int summaryMaxLength;
+
+    public EntityAuditDiffer(EntityAuditProperties.DiffProperties properties) {
+        Objects.requireNonNull(properties, "properties must not be null");
+        this.enabled = properties.isEnabled();
+        this.alwaysInclude = new LinkedHashSet<>(properties.getAlwaysInclude());
+        this.summaryMaxLength = properties.getSummaryMaxLength();
+    }
+
+    /**
+     * Changed fields of one update; nested keys appear in {@code changes} with a dotted path.
+     */
+    public record StateDiff(Map<String, Object> oldValues, Map<String, Object> newValues, List<FieldChange> changes) {
+
+        public boolean isEmpty() {
+            return changes.isEmpty();
+        }
+    }
+
+    public record FieldChange(String path, Object oldValue, Object newValue) {
+    }
+
+    /**
+     * Completes a listener request: sets the descriptor's change summary, reduces an update to
+     * its changed fields and, when the descriptor gave no summary, summarises the changes.
+     *
+     * @return {@code false} for an update that changed none of the audited fields
+     */
+    public boolean apply(EntityAuditEventRequest request, EntityAuditDescriptor descriptor) {
+        EntityAuditAction action = actionOf(request.getOperation());
+        String summary = action != null
+                ? descriptor.changeSummary(action, request.getOldValues(), request.getNewValues())
+                : null;
+        if (StringUtils.hasText(summary)) {
+            request.setChangeSummary(summary);
+        }
+        if (!enabled || action != EntityAuditAction.UPDATE) {
+            return true;
+        }
+
+        StateDiff diff = diff(request.getOldValues(), request.getNewValues());
+        if (diff.isEmpty()) {
+            return false;
+        }
+        request.setOldValues(diff.oldValues());
+        request.setNewValues(diff.newValues());
+        if (!StringUtils.hasText(summary)) {
+            request.setChangeSummary(summarize(diff));
+        }
+        return true;
+    }
+
+    public StateDiff diff(Map<String, Object> oldState, Map<String, Object> newState) {
+        Map<String, Object> oldSide = new LinkedHashMap<>();
+        Map<String, Object> newSide = new LinkedHashMap<>();
+        List<FieldChange> changes = new ArrayList<>();
+        diffMaps(oldState != null ? oldState : Map.of(), newState != null ? newState : Map.of(),
+                "", oldSide, newSide, changes);
+        if (!changes.isEmpty()) {
+            for (String key : alwaysInclude) {
+                if (!oldSide.containsKey(key) && oldState != null && oldState.containsKey(key)) {
+                    oldSide.put(key, oldState.get(key));
+                }
+                if (!newSide.containsKey(key) && newState != null && newState.containsKey(key)) {
+                    newSide.put(key, newState.get(key));
+                }
+            }
+        }
+        return new StateDiff(oldSide, newSide, changes);
+    }
+
+    /**
+     * Builds a summary such as {@code "status: NEW -> PAID; total: 10 -> 12"}, cut to
+     * {@code summary-max-length} characters.
+     */
+    public String summarize(StateDiff diff) {
+        if (diff.isEmpty() || summaryMaxLength <= 0) {
+            return null;
+        }
+        List<FieldChange> changes = diff.changes();
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < changes.size(); i++) {
+            FieldChange change = changes.get(i);
+            String entry = (i == 0 ? "" : "; ") + change.path() + ": "
+                    + render(change.oldValue()) + " -> " + render(change.newValue());
+            if (summary.length() + entry.length() > summaryMaxLength) {
+                String more = i == 0 ? changes.size() + " fields changed" : " (+" + (changes.size() - i) + " more)";
+                if (summary.length() + more.length() <= summaryMaxLength) {
+                    summary.append(more);
+                }
+                break;
+            }
+            summary.append(entry);
+        }
+        return summary.isEmpty() ? null : summary.toString();
+    }
+
+    private static void diffMaps(Map<?, ?> oldMap, Map<?, ?> newMap, String prefix,
+                                 Map<String, Object> oldSide, Map<String, Object> newSide, List<FieldChange> changes) {
+        Set<Object> keys = new LinkedHashSet<>(newMap.keySet());
+        keys.addAll(oldMap.keySet());
+        for (Object rawKey : keys) {
+            String key = String.valueOf(rawKey);
+            Object oldValue = oldMap.get(rawKey);
+            Object newValue = newMap.get(rawKey);
+            if (oldValue instanceof Map<?, ?> oldNested && newValue instanceof Map<?, ?> newNested) {
+                Map<String, Object> oldChild = new LinkedHashMap<>();
+                Map<String, Object> newChild = new LinkedHashMap<>();
+                diffMaps(oldNested, newNested, prefix + key + ".", oldChild, newChild, changes);
+                if (!oldChild.isEmpty() || !newChild.isEmpty()) {
+                    oldSide.put(key, oldChild);
+                    newSide.put(key, newChild);
+                }
+            } else if (!valuesEqual(oldValue, newValue)) {
+                oldSide.put(key, oldValue);
+                newSide.put(key, newValue);
+                changes.add(new FieldChange(prefix + key, oldValue, newValue));
+            }
+        }
+    }
+
+    private static EntityAuditAction actionOf(String operation) {
+        for (EntityAuditAction action : EntityAuditAction.values()) {
+            if (action.name().equals(operation)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    private static boolean valuesEqual(Object left, Object right) {
+        if (left == right) {
+            return true;
+        }
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left instanceof Number a && right instanceof Number b) {
+            return numbersEqual(a, b);
+        }
+        if (left instanceof Map<?, ?> a && right instanceof Map<?, ?> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : a.entrySet()) {
+                if (!b.containsKey(entry.getKey()) || !valuesEqual(entry.getValue(), b.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (left instanceof Set<?> a && right instanceof Set<?> b) {
+            return a.equals(b);
+        }
+        if (left instanceof Collection<?> || left instanceof Object[]) {
+            return elementsEqual(asCollection(left), asCollection(right));
+        }
+        return left.equals(right);
+    }
+
+    private static boolean elementsEqual(Collection<?> left, Collection<?> right) {
+        if (left == null || right == null || left.size() != right.size()) {
+            return false;
+        }
+        Iterator<?> a = left.iterator();
+        Iterator<?> b = right.iterator();
+        while (a.hasNext()) {
+            if (!valuesEqual(a.next(), b.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Collection<?> asCollection(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection;
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        }
+        return null;
+    }
+
+    private static boolean numbersEqual(Number a, Number b) {
+        try {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString())) == 0;
+        } catch (NumberFormatException ex) {
+            // NaN and infinities have no decimal form.
+            return a.equals(b);
+        }
+    }
+
+    private static String render(Object value) {
+        String text = value instanceof Object[] array ? Arrays.toString(array) : String.valueOf(value);
+        return text.length() > MAX_SUMMARY_VALUE_LENGTH ? text.substring(0, MAX_SUMMARY_VALUE_LENGTH - 3) + "..." : text;
+    }
+}
@@ -1,12 +1,16 @@
 package com.shared.entityaudit.service;
 
 import java.time.Clock;
-import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
+import com.shared.common.cache.BoundedTtlCache;
+import com.shared.config.EntityAuditProperties;
 import com.shared.entityaudit.exception.EntityAuditPersistenceException;
 import com.shared.entityaudit.model.EntityAuditEvent;
 import com.shared.entityaudit.model.EntityAuditEventRequest;
@@ -18,39 +22,116 @@ import com.shared.entityaudit.repository.EntityAuditRepository;
  */
 public class EntityAuditTrailService {
 
-    private static final DateTimeFormatter RECORD_NUMBER_DATE = DateTimeFormatter.BASIC_ISO_DATE;
-
     private final EntityAuditRepository entityAuditRepository;
     private final EntityAuditHashService entityAuditHashService;
     private final Clock clock;
+    private final RecordNumberAllocator recordNumberAllocator;
+    private final BoundedTtlCache<String, String> recordNumberCache;
 
     public EntityAuditTrailService(EntityAuditRepository entityAuditRepository,
                                    EntityAuditHashService entityAuditHashService,
                                    Clock clock) {
+        this(entityAuditRepository, entityAuditHashService, clock,
+                new SequenceRecordNumberAllocator(entityAuditRepository::nextRecordNumberSequenceValue, clock));
+    }
+
+    public EntityAuditTrailService(EntityAuditRepository entityAuditRepository,
+                                   EntityAuditHashService entityAuditHashService,
+                                   Clock clock,
+                                   RecordNumberAllocator recordNumberAllocator) {
+        this(entityAuditRepository, entityAuditHashService, clock, recordNumberAllocator,
+                newRecordNumberCache(new EntityAuditProperties.RecordNumberProperties.CacheProperties(), clock));
+    }
+
+    public EntityAuditTrailService(EntityAuditRepository entityAuditRepository,
+                                   EntityAuditHashService entityAuditHashService,
+                                   Clock clock,
+                                   RecordNumberAllocator recordNumberAllocator,
+                                   BoundedTtlCache<String, String> recordNumberCache) {
         this.entityAuditRepository = Objects.requireNonNull(entityAuditRepository, "entityAuditRepository must not be null");
         this.entityAuditHashService = Objects.requireNonNull(entityAuditHashService, "entityAuditHashService must not be null");
         this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.recordNumberAllocator = Objects.requireNonNull(recordNumberAllocator, "recordNumberAllocator must not be null");
+        this.recordNumberCache = Objects.requireNonNull(recordNumberCache, "recordNumberCache must not be null");
+    }
+
+    /**
+     * Creates the cache of entity type and id to record number used by this service.
+     */
+    public static BoundedTtlCache<String, String> newRecordNumberCache(
+            EntityAuditProperties.RecordNumberProperties.CacheProperties properties, Clock clock) {
+        return new BoundedTtlCache<>(properties.getMaximumSize(), properties.getTtl(), properties.getNegativeTtl(), clock);
+    }
+
+    public BoundedTtlCache<String, String> recordNumberCache() {
+        return recordNumberCache;
     }
 
     public EntityAuditRecord recordChange(EntityAuditEventRequest request) {
-        ensureRecordNumber(request);
+        boolean allocated = ensureRecordNumber(request);
         validate(request);
 
-        String recordNumber = request.getRecordNumber();
+        EntityAuditEvent event = toEvent(request, findHead(request.getRecordNumber()));
+        long id = entityAuditRepository.save(event);
+        if (allocated) {
+            // The first row of an entity fixes its record number for good, so later writes can skip the lookup.
+            recordNumberCache.put(cacheKey(request.getEntityType(), request.getEntityId().orElse(null)),
+                    request.getRecordNumber());
+        }
+        return toRecord(id, event);
+    }
+
+    /**
+     * Records several changes with one JDBC batch insert. Changes sharing a record number are
+     * chained in list order, and each chain head is looked up at most once per call.
+     */
+    public List<EntityAuditRecord> recordChanges(List<EntityAuditEventRequest> requests) {
+        Map<String, String> allocated = new HashMap<>();
+        Map<String, String> heads = new HashMap<>();
+        List<EntityAuditEvent> events = new ArrayList<>(requests.size());
+        for (EntityAuditEventRequest request : requests) {
+            String key = request != null ? cacheKey(request.getEntityType(), request.getEntityId().orElse(null)) : null;
+            if (request != null && !hasText(request.getRecordNumber()) && allocated.containsKey(key)) {
+                request.setRecordNumber(allocated.get(key));
+            }
+            if (ensureRecordNumber(request)) {
+                allocated.put(key, request.getRecordNumber());
+            }
+            validate(request);
+
+            String recordNumber = request.getRecordNumber();
+            EntityAuditEvent event = toEvent(request, heads.computeIfAbsent(recordNumber, this::findHead));
+            heads.put(recordNumber, event.getHash());
+            events.add(event);
+        }
+
+        long[] ids = entityAuditRepository.saveAll(events);
+        allocated.forEach(recordNumberCache::put);
+
+        List<EntityAuditRecord> records = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            records.add(toRecord(ids[i], events.get(i)));
+        }
+        return records;
+    }
+
+    private String findHead(String recordNumber) {
+        return entityAuditRepository.findLatestHash(recordNumber)
+                .orElseGet(entityAuditHashService::initialHashValue);
+    }
+
+    private EntityAuditEvent toEvent(EntityAuditEventRequest request, String previousHash) {
         String auditNumber = request.getAuditNumber().orElseGet(() -> UUID.randomUUID().toString());
         // ensure request carries generated audit number for downstream hashing and persistence
         request.setAuditNumber(auditNumber);
 
-        String previousHash = entityAuditRepository.findLatestHash(recordNumber)
-                .orElseGet(entityAuditHashService::initialHashValue);
-
         String hash = entityAuditHashService.computeHash(previousHash, request);
         OffsetDateTime occurredAt = request.getOccurredAt() != null ? request.getOccurredAt() : OffsetDateTime.now(clock);
 
-        EntityAuditEvent event = EntityAuditEvent.builder()
+        return EntityAuditEvent.builder()
                 .occurredAt(occurredAt)
                 .auditNumber(auditNumber)
-                .recordNumber(recordNumber)
+                .recordNumber(request.getRecordNumber())
                 .entityType(request.getEntityType())
                 .entityId(request.getEntityId().orElse(null))
                 .operation(request.getOperation())
@@ -65,53 +146,44 @@ public class EntityAuditTrailService {
                 .prevHash(previousHash)
                 .hash(hash)
                 .build();
+    }
 
-        long id = entityAuditRepository.save(event);
-        return new EntityAuditRecord(id, occurredAt, auditNumber, recordNumber, hash, previousHash);
+    private static EntityAuditRecord toRecord(long id, EntityAuditEvent event) {
+        return new EntityAuditRecord(id, event.getOccurredAt(), event.getAuditNumber(), event.getRecordNumber(),
+                event.getHash(), event.getPrevHash());
     }
 
-    private void ensureRecordNumber(EntityAuditEventRequest request) {
+    /**
+     * Resolves the record number of the request's entity; returns {@code true} when a new one was allocated.
+     */
+    private boolean ensureRecordNumber(EntityAuditEventRequest request) {
         if (hasText(request.getRecordNumber())) {
-            return;
+            return false;
         }
 
         String entityType = request.getEntityType();
         String entityId = request.getEntityId().orElse(null);
 
         if (!hasText(entityType)) {
-            return;
+            return false;
         }
 
         if (!hasText(entityId)) {
             throw new EntityAuditPersistenceException("entityId must not be blank when recordNumber is not supplied");
         }
 
-        entityAuditRepository.findRecordNumber(entityType, entityId)
-                .ifPresentOrElse(request::setRecordNumber,
-                        () -> request.setRecordNumber(generateRecordNumber()));
-    }
-
-    private String generateRecordNumber() {
-        LocalDate today = LocalDate.now(clock);
-        String datePrefix = today.format(RECORD_NUMBER_DATE);
-
-        int nextSequence = entityAuditRepository.findLatestRecordNumberWithPrefix(datePrefix)
-                .map(latest -> extractSequence(latest, datePrefix) + 1)
-                .orElse(1);
-
-        return datePrefix + String.format("%06d", nextSequence);
+        String existing = recordNumberCache.get(cacheKey(entityType, entityId),
+                key -> entityAuditRepository.findRecordNumber(entityType, entityId)).orElse(null);
+        if (existing != null) {
+            request.setRecordNumber(existing);
+            return false;
+        }
+        request.setRecordNumber(recordNumberAllocator.nextRecordNumber());
+        return true;
     }
 
-    private int extractSequence(String recordNumber, String datePrefix) {
-        if (recordNumber != null && recordNumber.startsWith(datePrefix) && recordNumber.length() > datePrefix.length()) {
-            String suffix = recordNumber.substring(datePrefix.length());
-            try {
-                return Integer.parseInt(suffix);
-            } catch (NumberFormatException ignored) {
-                // fall through to default
-            }
-        }
-        return 0;
+    private static String cacheKey(String entityType, String entityId) {
+        return entityType + ":" + entityId;
     }
 
     private void validate(EntityAuditEventRequest request) {
@@ -1,5 +1,6 @@
 package com.shared.entityaudit.service;
 
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,14 +8,13 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import com.shared.common.expression.MethodExpressionEvaluator;
 import com.shared.entityaudit.EntityAuditHelper;
 import com.shared.entityaudit.annotation.EntityAuditable;
 import com.shared.entityaudit.model.EntityAuditEventRequest;
@@ -28,7 +28,7 @@ import com.shared.entityaudit.model.EntityAuditEventRequest;
 public class EntityAuditableAspect {
 
     private final EntityAuditHelper entityAuditHelper;
-    private final ExpressionParser expressionParser = new SpelExpressionParser();
+    private final MethodExpressionEvaluator expressionEvaluator = new MethodExpressionEvaluator();
 
     public EntityAuditableAspect(EntityAuditHelper entityAuditHelper) {
         this.entityAuditHelper = entityAuditHelper;
@@ -36,35 +36,33 @@ public class EntityAuditableAspect {
 
     @Around("@annotation(entityAuditable)")
     public Object auditEntityChange(ProceedingJoinPoint joinPoint, EntityAuditable entityAuditable) throws Throwable {
-        StandardEvaluationContext preContext = createEvaluationContext(joinPoint, null);
-        Map<String, Object> oldValues = evaluateMap(entityAuditable.oldValues(), preContext);
-        Map<String, Object> metadata = evaluateMap(entityAuditable.metadata(), preContext);
-        String recordNumber = evaluateString(entityAuditable.recordNumber(), preContext);
-        String entityId = evaluateString(entityAuditable.entityId(), preContext);
-        String auditNumber = evaluateString(entityAuditable.auditNumber(), preContext);
+        Invocation invocation = new Invocation(joinPoint);
+        EvaluationContext preContext = invocation.context(null);
+        Map<String, Object> oldValues = evaluateMap(entityAuditable.oldValues(), invocation, preContext);
+        // Metadata that refers to #result can only be evaluated once the method has returned.
+        boolean metadataNeedsResult = entityAuditable.metadata().contains("#result");
+        Map<String, Object> metadata = metadataNeedsResult ? null : evaluateMap(entityAuditable.metadata(), invocation, preContext);
+        String recordNumber = evaluateString(entityAuditable.recordNumber(), invocation, preContext);
+        String entityId = evaluateString(entityAuditable.entityId(), invocation, preContext);
+        String auditNumber = evaluateString(entityAuditable.auditNumber(), invocation, preContext);
 
         Object result = joinPoint.proceed();
 
-        StandardEvaluationContext postContext = createEvaluationContext(joinPoint, result);
-        Map<String, Object> newValues = evaluateMap(entityAuditable.newValues(), postContext);
-        Map<String, Object> metadataAfter = evaluateMap(entityAuditable.metadata(), postContext);
-        if (metadataAfter != null) {
-            if (metadata == null) {
-                metadata = metadataAfter;
-            } else {
-                metadata.putAll(metadataAfter);
-            }
+        EvaluationContext postContext = invocation.context(result);
+        Map<String, Object> newValues = evaluateMap(entityAuditable.newValues(), invocation, postContext);
+        if (metadataNeedsResult) {
+            metadata = evaluateMap(entityAuditable.metadata(), invocation, postContext);
         }
         if (!StringUtils.hasText(recordNumber)) {
-            recordNumber = evaluateString(entityAuditable.recordNumber(), postContext);
+            recordNumber = evaluateString(entityAuditable.recordNumber(), invocation, postContext);
         }
         if (!StringUtils.hasText(entityId)) {
-            entityId = evaluateString(entityAuditable.entityId(), postContext);
+            entityId = evaluateString(entityAuditable.entityId(), invocation, postContext);
         }
         if (!StringUtils.hasText(auditNumber)) {
-            auditNumber = evaluateString(entityAuditable.auditNumber(), postContext);
+            auditNumber = evaluateString(entityAuditable.auditNumber(), invocation, postContext);
         }
-        String changeSummary = evaluateString(entityAuditable.changeSummary(), postContext);
+        String changeSummary = evaluateString(entityAuditable.changeSummary(), invocation, postContext);
 
         EntityAuditEventRequest request = new EntityAuditEventRequest();
         request.setEntityType(entityAuditable.entityType());
@@ -86,27 +84,7 @@ public class EntityAuditableAspect {
         return result;
     }
 
-    private StandardEvaluationContext createEvaluationContext(ProceedingJoinPoint joinPoint, Object result) {
-        StandardEvaluationContext context = new StandardEvaluationContext();
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String[] paramNames = signature.getParameterNames();
-        Object[] args = joinPoint.getArgs();
-
-        if (paramNames != null && args != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
-        }
-
-        if (result != null) {
-            context.setVariable("result", result);
-        }
-        context.setVariable("methodName", signature.getName());
-        context.setVariable("className", signature.getDeclaringType().getSimpleName());
-        return context;
-    }
-
-    private String evaluateString(String expressionValue, StandardEvaluationContext context) {
+    private String evaluateString(String expressionValue, Invocation invocation, EvaluationContext context) {
         if (!StringUtils.hasText(expressionValue)) {
             return null;
         }
@@ -114,21 +92,20 @@ public class EntityAuditableAspect {
             return expressionValue;
         }
         try {
-            Expression expression = expressionParser.parseExpression(expressionValue);
-            return expression.getValue(context, String.class);
+            return expressionEvaluator.evaluate(expressionValue, invocation.method, invocation.targetClass, context, String.class);
         } catch (Exception ex) {
             return null;
         }
     }
 
-    private Map<String, Object> evaluateMap(String expressionValue, StandardEvaluationContext context) {
+    private Map<String, Object> evaluateMap(String expressionValue, Invocation invocation, EvaluationContext context) {
         if (!StringUtils.hasText(expressionValue)) {
             return null;
         }
         try {
-            Expression expression = expressionParser.parseExpression(expressionValue);
             @SuppressWarnings("unchecked")
-            Map<String, Object> result = expression.getValue(context, Map.class);
+            Map<String, Object> result = expressionEvaluator.evaluate(expressionValue, invocation.method,
+                    invocation.targetClass, context, Map.class);
             if (result == null) {
                 return null;
             }
@@ -137,4 +114,24 @@ public class EntityAuditableAspect {
             return null;
         }
     }
+
+    /**
+     * The intercepted method and target class, resolved once per call.
+     */
+    private final class Invocation {
+
+        private final Method method;
+        private final Class<?> targetClass;
+        private final Object[] args;
+
+        private Invocation(ProceedingJoinPoint joinPoint) {
+            this.method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            this.targetClass = joinPoint.getTarget() != null ? AopUtils.getTargetClass(joinPoint.getTarget()) : method.getDeclaringClass();
+            this.args = joinPoint.getArgs();
+        }
+
+        private EvaluationContext context(Object result) {
+            return expressionEvaluator.createContext(method, args, result);
+        }
+    }
 }
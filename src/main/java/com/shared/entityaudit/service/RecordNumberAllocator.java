@@ -0,0 +1,30 @@
+package com.shared.entityaudit.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Hands out record numbers for entities that are audited for the first time.
+ * <p>
+ * Record numbers keep the {@code yyyyMMdd} date prefix followed by a number of at least seven
+ * digits. Unlike the former prefix scan the number does not restart every day; it comes from
+ * a database sequence and is therefore unique across instances.
+ */
+@FunctionalInterface
+public interface RecordNumberAllocator {
+
+    DateTimeFormatter DATE_PREFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * Added to every allocated number. The former prefix scan wrote a six digit daily counter,
+     * so a number part of seven or more digits can never repeat one of its record numbers,
+     * whatever value the sequence starts at.
+     */
+    long LEGACY_COUNTER_LIMIT = 1_000_000L;
+
+    String nextRecordNumber();
+
+    static String format(LocalDate date, long number) {
+        return date.format(DATE_PREFIX) + Math.addExact(LEGACY_COUNTER_LIMIT, number);
+    }
+}
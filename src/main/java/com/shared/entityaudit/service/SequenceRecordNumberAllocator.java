@@ -0,0 +1,25 @@
+package com.shared.entityaudit.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Allocates every record number with its own database sequence call.
+ */
+public class SequenceRecordNumberAllocator implements RecordNumberAllocator {
+
+    private final LongSupplier sequence;
+    private final Clock clock;
+
+    public SequenceRecordNumberAllocator(LongSupplier sequence, Clock clock) {
+        this.sequence = Objects.requireNonNull(sequence, "sequence must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+    }
+
+    @Override
+    public String nextRecordNumber() {
+        return RecordNumberAllocator.format(LocalDate.now(clock), sequence.getAsLong());
+    }
+}
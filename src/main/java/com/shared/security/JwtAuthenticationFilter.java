@@ -3,9 +3,6 @@ package com.shared.security;
 import com.shared.security.client.TokenIntrospectionClient;
 import com.shared.security.client.TokenIntrospectionResponse;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,7 +16,6 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,11 +23,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtConfig jwtConfig;
+    private final JwtTokenParser tokenParser;
     private final TokenIntrospectionClient tokenIntrospectionClient;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     public JwtAuthenticationFilter(JwtConfig jwtConfig, TokenIntrospectionClient tokenIntrospectionClient) {
+        this(jwtConfig, tokenIntrospectionClient, null);
+    }
+
+    /**
+     * @param verifiedTokenCache tokens already verified, locally and by introspection; {@code null} disables caching
+     */
+    public JwtAuthenticationFilter(JwtConfig jwtConfig,
+                                   TokenIntrospectionClient tokenIntrospectionClient,
+                                   VerifiedTokenCache verifiedTokenCache) {
         this.jwtConfig = jwtConfig;
+        this.tokenParser = new JwtTokenParser(jwtConfig);
         this.tokenIntrospectionClient = tokenIntrospectionClient;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @jakarta.annotation.PostConstruct
@@ -52,7 +61,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        if (!validateToken(jwt)) {
+        long generation = verifiedTokenCache != null ? verifiedTokenCache.generation() : 0L;
+        long keyVersion = verifiedTokenCache != null ? keyVersion() : -1L;
+        VerifiedTokenCache.VerifiedToken verified = keyVersion >= 0 ? verifiedTokenCache.get(jwt, keyVersion) : null;
+        if (verified != null) {
+            if (verified.introspection() != null) {
+                authenticate(verified.principal(), new JwtAuthenticationDetails(request, verified.introspection()));
+            } else {
+                authenticateWithClaims(request, verified.claims());
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Claims claims = parseClaims(jwt);
+        if (claims == null) {
             log.debug("JWT validation failed for request URI: {}", request.getRequestURI());
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
             return;
@@ -65,12 +88,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     TokenIntrospectionResponse details = result.getResponse().orElseThrow();
                     String principal = details.getSubject();
                     if (!StringUtils.hasText(principal)) {
-                        principal = getClaims(jwt).getSubject();
+                        principal = claims.getSubject();
+                    }
+                    authenticate(principal, new JwtAuthenticationDetails(request, details));
+                    if (keyVersion >= 0) {
+                        verifiedTokenCache.put(jwt, principal, claims, details, keyVersion, generation);
                     }
-                    UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
-                    authentication.setDetails(new JwtAuthenticationDetails(request, details));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
                 case INACTIVE -> {
                     log.debug("Token introspection rejected request for URI: {}", request.getRequestURI());
@@ -81,7 +104,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     if (result.isAllowOnError()) {
                         log.warn("Token introspection unavailable for URI: {}. Falling back to local JWT validation (fail-open enabled).",
                                 request.getRequestURI());
-                        authenticateWithClaims(request, jwt);
+                        authenticateWithClaims(request, claims);
                     } else {
                         log.error("Token introspection unavailable for URI: {}. Denying request.", request.getRequestURI());
                         response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Token introspection unavailable");
@@ -90,7 +113,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
             }
         } else {
-            authenticateWithClaims(request, jwt);
+            authenticateWithClaims(request, claims);
+            if (keyVersion >= 0) {
+                verifiedTokenCache.put(jwt, claims.getSubject(), claims, null, keyVersion, generation);
+            }
         }
         filterChain.doFilter(request, response);
     }
@@ -103,66 +129,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private void authenticateWithClaims(HttpServletRequest request, String jwt) {
-        Claims claims = getClaims(jwt);
-        String username = claims.getSubject();
+    private void authenticateWithClaims(HttpServletRequest request, Claims claims) {
+        authenticate(claims.getSubject(), new WebAuthenticationDetailsSource().buildDetails(request));
+    }
+
+    private void authenticate(String principal, Object details) {
         UsernamePasswordAuthenticationToken authentication =
-            new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList());
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+        authentication.setDetails(details);
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
-    private boolean validateToken(String token) {
+    /**
+     * Key version of the parser, read before verifying so that a token is never cached under a
+     * newer key than it was checked with; {@code -1} when no key is configured.
+     */
+    private long keyVersion() {
         try {
-            getClaims(token);
-            return true;
-        } catch (Exception ex) {
-            log.debug("JWT validation error: {}", ex.getMessage());
-            return false;
+            return tokenParser.keyVersion();
+        } catch (RuntimeException ex) {
+            return -1L;
         }
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-            .verifyWith(getSecretSigningKey())
-            .requireIssuer(jwtConfig.getIssuer())
-            .requireAudience(jwtConfig.getAudience())
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
-    }
-
-    private static javax.crypto.SecretKey getSecretSigningKey(String secret) {
-        if (!StringUtils.hasText(secret)) {
-            throw new IllegalStateException("JWT secret is not configured");
-        }
+    /**
+     * Verifies the token once and returns its claims, or {@code null} when it is not valid.
+     */
+    private Claims parseClaims(String token) {
         try {
-            // Try hex decoding first
-            byte[] keyBytes = hexStringToByteArray(secret);
-            return Keys.hmacShaKeyFor(keyBytes);
-        } catch (Exception e) {
-            // Fallback to base64 decoding
-            try {
-                byte[] keyBytes = Decoders.BASE64.decode(secret);
-                return Keys.hmacShaKeyFor(keyBytes);
-            } catch (Exception ex) {
-                // Use string directly if both fail
-                return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-            }
-        }
-    }
-
-    private javax.crypto.SecretKey getSecretSigningKey() {
-        return getSecretSigningKey(jwtConfig.getSecret());
-    }
-
-    private static byte[] hexStringToByteArray(String hex) {
-        int len = hex.length();
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
-                                 + Character.digit(hex.charAt(i+1), 16));
+            return tokenParser.parse(token);
+        } catch (RuntimeException ex) {
+            log.debug("JWT validation error: {}", ex.getMessage());
+            return null;
         }
-        return data;
     }
 }
@@ -0,0 +1,132 @@
+package com.shared.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.util.StringUtils;
+
+/**
+ * Verifies HMAC-signed JWTs against {@link JwtConfig}.
+ * <p>
+ * The signing key and the {@link JwtParser} are built once and reused; they are rebuilt
+ * only when the secret, issuer or audience in {@link JwtConfig} change, e.g. after the
+ * properties are rebound on refresh. A token is then verified with a single parse.
+ */
+public class JwtTokenParser {
+
+    private final JwtConfig jwtConfig;
+    private final AtomicLong versions = new AtomicLong();
+    private volatile State state;
+
+    public JwtTokenParser(JwtConfig jwtConfig) {
+        this.jwtConfig = Objects.requireNonNull(jwtConfig, "jwtConfig must not be null");
+    }
+
+    /**
+     * Verifies the signature, issuer and audience of {@code token} and returns its claims.
+     *
+     * @throws JwtException          if the token is malformed, expired or fails verification
+     * @throws IllegalStateException if no JWT secret is configured
+     */
+    public Claims parse(String token) {
+        return currentState().parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * Identifies the current secret, issuer and audience; it changes whenever they do, so a
+     * token verified under an earlier version must be verified again.
+     *
+     * @throws IllegalStateException if no JWT secret is configured
+     */
+    public long keyVersion() {
+        return currentState().version;
+    }
+
+    private State currentState() {
+        String secret = jwtConfig.getSecret();
+        String issuer = jwtConfig.getIssuer();
+        String audience = jwtConfig.getAudience();
+        State current = state;
+        if (current == null || !current.matches(secret, issuer, audience)) {
+            current = new State(secret, issuer, audience, versions.incrementAndGet());
+            state = current;
+        }
+        return current;
+    }
+
+    private static final class State {
+
+        private final String secret;
+        private final String issuer;
+        private final String audience;
+        private final JwtParser parser;
+        private final long version;
+
+        private State(String secret, String issuer, String audience, long version) {
+            this.secret = secret;
+            this.issuer = issuer;
+            this.audience = audience;
+            this.version = version;
+            this.parser = Jwts.parser()
+                    .verifyWith(signingKey(secret))
+                    .requireIssuer(issuer)
+                    .requireAudience(audience)
+                    .build();
+        }
+
+        private boolean matches(String secret, String issuer, String audience) {
+            return Objects.equals(this.secret, secret) && Objects.equals(this.issuer, issuer)
+                    && Objects.equals(this.audience, audience);
+        }
+    }
+
+    /**
+     * Derives the key as earlier versions did, so existing tokens stay valid: the secret read
+     * as hex, else as Base64, else as its UTF-8 bytes, taking the first that yields an HMAC key.
+     */
+    static SecretKey signingKey(String secret) {
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("JWT secret is not configured");
+        }
+        if (secret.length() % 2 == 0) {
+            // Lenient like the original decoder: non-hex characters are not rejected.
+            SecretKey key = hmacKeyOrNull(hexStringToByteArray(secret));
+            if (key != null) {
+                return key;
+            }
+        }
+        try {
+            SecretKey key = hmacKeyOrNull(Decoders.BASE64.decode(secret));
+            if (key != null) {
+                return key;
+            }
+        } catch (RuntimeException ex) {
+            // Not Base64.
+        }
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SecretKey hmacKeyOrNull(byte[] keyBytes) {
+        // HMAC-SHA keys need at least 256 bits.
+        return keyBytes.length >= 32 ? Keys.hmacShaKeyFor(keyBytes) : null;
+    }
+
+    private static byte[] hexStringToByteArray(String hex) {
+        int len = hex.length();
+        byte[] data = new byte[len / 2];
+        for (int i = 0; i < len; i += 2) {
+            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
+                                 + Character.digit(hex.charAt(i + 1), 16));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,156 @@
+package com.shared.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.shared.common.cache.ExpiringCache;
+import com.shared.security.client.TokenIntrospectionResponse;
+import com.shared.security.revocation.TokenRevocation;
+import com.shared.security.revocation.TokenRevocationListener;
+import io.jsonwebtoken.Claims;
+import org.springframework.lang.Nullable;
+
+/**
+ * Remembers bearer tokens that already passed verification, keyed by their
+ * {@link TokenDigest}, so a token sent again skips signature verification and introspection.
+ * <p>
+ * An entry lives until the token's {@code exp}, capped at {@code maxTtl}. Entries of
+ * introspected tokens are further capped at the introspection response's {@code expiresAt}
+ * and at {@code introspectionMaxTtl}, so a token revoked at the introspection endpoint is
+ * rejected again as soon as the introspection cache would notice. Each entry records the
+ * {@link JwtTokenParser#keyVersion() key version} it was verified under and is ignored once
+ * the signing key, issuer or audience change. Reads take no lock; see {@link ExpiringCache}.
+ * Entries matching a {@link TokenRevocation} are evicted at once. Callers that verify a token
+ * read {@link #generation()} first and pass it to {@link #put}, so a token verified while a
+ * revocation arrived is not cached.
+ */
+public class VerifiedTokenCache implements TokenRevocationListener {
+
+    private final long maxTtlMillis;
+    private final long introspectionMaxTtlMillis;
+    private final Clock clock;
+    private final ExpiringCache<TokenDigest, VerifiedToken> entries;
+    private final AtomicLong revocations = new AtomicLong();
+
+    public VerifiedTokenCache(int maximumSize, Duration maxTtl, Clock clock) {
+        this(maximumSize, maxTtl, maxTtl, clock);
+    }
+
+    /**
+     * @param introspectionMaxTtl cap for tokens accepted by introspection; zero keeps them out of the cache
+     */
+    public VerifiedTokenCache(int maximumSize, Duration maxTtl, Duration introspectionMaxTtl, Clock clock) {
+        this.maxTtlMillis = toMillis(maxTtl);
+        this.introspectionMaxTtlMillis = Math.min(maxTtlMillis, toMillis(introspectionMaxTtl));
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.entries = new ExpiringCache<>(maximumSize, clock);
+    }
+
+    /**
+     * Returns the verified result for {@code token}, or {@code null} when it is not cached, has
+     * expired or was verified under another key version.
+     */
+    @Nullable
+    public VerifiedToken get(String token, long keyVersion) {
+        TokenDigest key = TokenDigest.of(token);
+        VerifiedToken verified = entries.get(key);
+        if (verified != null && verified.keyVersion() != keyVersion) {
+            entries.invalidate(key);
+            return null;
+        }
+        return verified;
+    }
+
+    /**
+     * Caches a token verified under {@code keyVersion} until its {@code exp}, capped at
+     * {@code maxTtl} and, for introspected tokens, at the response's {@code expiresAt} and
+     * {@code introspectionMaxTtl}. The entry is dropped again when a revocation arrived since
+     * {@code generation} was read.
+     */
+    public void put(String token, String principal, Claims claims, @Nullable TokenIntrospectionResponse introspection,
+                    long keyVersion, long generation) {
+        long now = clock.millis();
+        long expiresAt = now + maxTtlMillis;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (introspection != null) {
+            expiresAt = Math.min(expiresAt, now + introspectionMaxTtlMillis);
+            if (introspection.getExpiresAt() != null) {
+                expiresAt = Math.min(expiresAt, introspection.getExpiresAt().toEpochMilli());
+            }
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        TokenDigest key = TokenDigest.of(token);
+        entries.put(key, new VerifiedToken(principal, claims, introspection, keyVersion, expiresAt), expiresAt);
+        // Checked after the put: a concurrent revocation either evicts the entry or is seen here.
+        if (revocations.get() != generation) {
+            entries.invalidate(key);
+        }
+    }
+
+    /**
+     * Number of revocations received so far; read it before verifying a token that will be {@link #put}.
+     */
+    public long generation() {
+        return revocations.get();
+    }
+
+    public void invalidate(String token) {
+        entries.invalidate(TokenDigest.of(token));
+    }
+
+    /**
+     * Evicts tokens matched by {@code revocation}: by the introspected token id, user and
+     * permission version, or by the {@code jti} claim of tokens verified locally.
+     */
+    @Override
+    public void onRevocation(TokenRevocation revocation) {
+        revocations.incrementAndGet();
+        entries.invalidateIf(verified -> {
+            TokenIntrospectionResponse introspection = verified.introspection();
+            if (introspection != null) {
+                return revocation.matches(introspection.getTokenId(), introspection.getUserId(),
+                    introspection.getPermissionVersion());
+            }
+            return revocation.matches(verified.claims().getId(), null, null);
+        });
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return entries.hitCount();
+    }
+
+    public long missCount() {
+        return entries.missCount();
+    }
+
+    private static long toMillis(Duration duration) {
+        return duration == null || duration.isNegative() ? 0L : duration.toMillis();
+    }
+
+    /**
+     * A token that passed verification: its principal, claims, the key version it was verified
+     * under and, when introspection ran, the introspection response.
+     */
+    public record VerifiedToken(String principal,
+                                Claims claims,
+                                @Nullable TokenIntrospectionResponse introspection,
+                                long keyVersion,
+                                long expiresAtMillis) {
+    }
+}
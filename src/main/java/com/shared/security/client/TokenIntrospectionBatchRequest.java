@@ -0,0 +1,23 @@
+package com.shared.security.client;
+
+import java.util.List;
+
+public class TokenIntrospectionBatchRequest {
+
+    private List<String> tokens;
+
+    public TokenIntrospectionBatchRequest() {
+    }
+
+    public TokenIntrospectionBatchRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
@@ -0,0 +1,19 @@
+package com.shared.security.client;
+
+import java.util.List;
+
+/**
+ * Results of a batch introspection, in the order of the requested tokens.
+ */
+public class TokenIntrospectionBatchResponse {
+
+    private List<TokenIntrospectionResponse> results;
+
+    public List<TokenIntrospectionResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<TokenIntrospectionResponse> results) {
+        this.results = results;
+    }
+}
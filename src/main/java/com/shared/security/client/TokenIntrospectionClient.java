@@ -1,31 +1,88 @@
 package com.shared.security.client;
 
+import com.shared.common.cache.ExpiringCache;
 import com.shared.config.SecurityProperties;
+import com.shared.security.TokenDigest;
+import com.shared.security.revocation.TokenRevocation;
+import com.shared.security.revocation.TokenRevocationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-public class TokenIntrospectionClient {
+/**
+ * Calls the token introspection endpoint.
+ * <p>
+ * Unless {@code shared-lib.security.introspection.cache.enabled} is {@code false}, results are
+ * cached by the SHA-256 of the token: active results until the response's {@code expiresAt},
+ * capped at {@code cache.max-ttl}, and inactive results for {@code cache.negative-ttl}. Errors
+ * are never cached. Concurrent lookups of the same uncached token share one outbound call.
+ * Cached results matching a {@link TokenRevocation} are evicted at once, and a result fetched
+ * while any revocation arrived is not kept.
+ * <p>
+ * With {@code shared-lib.security.introspection.batch.enabled}, lookups that miss the cache
+ * within {@code batch.window} of each other are sent as one request to the batch endpoint,
+ * which answers {@code {"results": [...]}} in the order of the posted {@code {"tokens": [...]}}.
+ */
+public class TokenIntrospectionClient implements TokenRevocationListener {
 
     private static final Logger log = LoggerFactory.getLogger(TokenIntrospectionClient.class);
 
     private final RestTemplate restTemplate;
     private final SecurityProperties.IntrospectionProperties properties;
     private final boolean failOpenOnError;
+    private final Clock clock;
+    private final ExpiringCache<TokenDigest, TokenIntrospectionResult> cache;
+    private final long maxTtlMillis;
+    private final long negativeTtlMillis;
+    private final Map<TokenDigest, CompletableFuture<TokenIntrospectionResult>> inFlight = new ConcurrentHashMap<>();
+    // Bumped by every revocation, so a fetch that overlapped one can tell.
+    private final AtomicLong revocations = new AtomicLong();
+    private final MicroBatcher batcher;
 
     public TokenIntrospectionClient(RestTemplate restTemplate,
                                     SecurityProperties.IntrospectionProperties properties) {
+        this(restTemplate, properties, Clock.systemUTC());
+    }
+
+    public TokenIntrospectionClient(RestTemplate restTemplate,
+                                    SecurityProperties.IntrospectionProperties properties,
+                                    Clock clock) {
         this.restTemplate = restTemplate;
         this.properties = properties;
         this.failOpenOnError = properties.isFailOpen();
+        this.clock = clock;
+        SecurityProperties.IntrospectionProperties.CacheProperties cacheProperties = properties.getCache();
+        this.cache = cacheProperties != null && cacheProperties.isEnabled()
+            ? new ExpiringCache<>(cacheProperties.getMaximumSize(), clock)
+            : null;
+        this.maxTtlMillis = cacheProperties != null ? toMillis(cacheProperties.getMaxTtl()) : 0L;
+        this.negativeTtlMillis = cacheProperties != null ? toMillis(cacheProperties.getNegativeTtl()) : 0L;
+        SecurityProperties.IntrospectionProperties.BatchProperties batchProperties = properties.getBatch();
+        this.batcher = batchProperties != null && batchProperties.isEnabled() && StringUtils.hasText(properties.getUrl())
+            ? new MicroBatcher(batchProperties)
+            : null;
     }
 
     public TokenIntrospectionResult introspect(String token) {
@@ -33,29 +90,118 @@ public class TokenIntrospectionClient {
             log.debug("TokenIntrospectionClient received blank token");
             return TokenIntrospectionResult.inactive();
         }
+        if (cache == null) {
+            return lookup(token);
+        }
+
+        TokenDigest key = TokenDigest.of(token);
+        TokenIntrospectionResult cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<TokenIntrospectionResult> call = new CompletableFuture<>();
+        CompletableFuture<TokenIntrospectionResult> pending = inFlight.putIfAbsent(key, call);
+        if (pending != null) {
+            return await(pending);
+        }
+        try {
+            long generation = revocations.get();
+            // Another caller may have finished between the cache miss and claiming the call.
+            TokenIntrospectionResult result = cache.get(key);
+            if (result == null) {
+                result = lookup(token);
+                store(key, result, generation);
+            }
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Drops the cached result for {@code token}, if any.
+     */
+    public void invalidate(String token) {
+        if (cache != null && StringUtils.hasText(token)) {
+            cache.invalidate(TokenDigest.of(token));
+        }
+    }
+
+    @Override
+    public void onRevocation(TokenRevocation revocation) {
+        if (cache == null) {
+            return;
+        }
+        revocations.incrementAndGet();
+        int evicted = cache.invalidateIf(result -> result.getResponse()
+            .map(response -> revocation.matches(response.getTokenId(), response.getUserId(), response.getPermissionVersion()))
+            .orElse(false));
+        if (evicted > 0) {
+            log.debug("Evicted {} cached introspection results for {}", evicted, revocation);
+        }
+    }
+
+    /**
+     * Caches {@code result} unless a revocation arrived since {@code generation} was read. The
+     * entry is put before the check, so a revocation either sees it or is seen by the check.
+     */
+    private void store(TokenDigest key, TokenIntrospectionResult result, long generation) {
+        long now = clock.millis();
+        switch (result.getStatus()) {
+            case ACTIVE -> {
+                long expiresAt = now + maxTtlMillis;
+                TokenIntrospectionResponse response = result.getResponse().orElse(null);
+                if (response != null && response.getExpiresAt() != null) {
+                    expiresAt = Math.min(expiresAt, response.getExpiresAt().toEpochMilli());
+                }
+                cache.put(key, result, expiresAt);
+            }
+            case INACTIVE -> cache.put(key, result, now + negativeTtlMillis);
+            case ERROR -> {
+                // Not cached: the next request retries the endpoint.
+            }
+        }
+        if (revocations.get() != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    private static TokenIntrospectionResult await(CompletableFuture<TokenIntrospectionResult> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
 
+    private static long toMillis(Duration duration) {
+        return duration == null || duration.isNegative() ? 0L : duration.toMillis();
+    }
+
+    private TokenIntrospectionResult lookup(String token) {
+        return batcher != null ? batcher.introspect(token) : fetch(token);
+    }
+
+    private TokenIntrospectionResult fetch(String token) {
         if (!StringUtils.hasText(properties.getUrl())) {
             log.warn("Token introspection URL is not configured. Denying request.");
             return TokenIntrospectionResult.error(failOpenOnError);
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        if (StringUtils.hasText(properties.getApiKey())) {
-            headers.set(properties.getApiKeyHeader(), properties.getApiKey());
-        }
-
-        HttpEntity<TokenIntrospectionRequest> request = new HttpEntity<>(new TokenIntrospectionRequest(token), headers);
+        HttpEntity<TokenIntrospectionRequest> request = new HttpEntity<>(new TokenIntrospectionRequest(token), headers());
         try {
             ResponseEntity<TokenIntrospectionResponse> response =
                 restTemplate.postForEntity(properties.getUrl(), request, TokenIntrospectionResponse.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                TokenIntrospectionResponse body = response.getBody();
-                if (body.isActive()) {
-                    return TokenIntrospectionResult.active(body);
-                }
-                return TokenIntrospectionResult.inactive();
+                return toResult(response.getBody());
             }
 
             if (response.getStatusCode().is5xxServerError()) {
@@ -71,6 +217,144 @@ public class TokenIntrospectionClient {
         }
     }
 
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (StringUtils.hasText(properties.getApiKey())) {
+            headers.set(properties.getApiKeyHeader(), properties.getApiKey());
+        }
+        return headers;
+    }
+
+    private static TokenIntrospectionResult toResult(TokenIntrospectionResponse body) {
+        return body.isActive() ? TokenIntrospectionResult.active(body) : TokenIntrospectionResult.inactive();
+    }
+
+    /**
+     * Collects lookups for up to {@code window}, or until {@code max-size} are queued, and
+     * sends them as one request. The first caller of a batch waits out the window and sends
+     * it; a caller that fills a batch sends it at once, so no extra threads are involved.
+     * Once the batch endpoint answers 404, 405 or 501, every lookup goes back to a per-token call.
+     */
+    private final class MicroBatcher {
+
+        private final String url;
+        private final long windowNanos;
+        private final int maxSize;
+        private final Object lock = new Object();
+        private Batch open;
+        private volatile boolean supported = true;
+
+        private MicroBatcher(SecurityProperties.IntrospectionProperties.BatchProperties batchProperties) {
+            String baseUrl = properties.getUrl();
+            this.url = StringUtils.hasText(batchProperties.getUrl())
+                ? batchProperties.getUrl()
+                : (baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl) + "/batch";
+            this.windowNanos = batchProperties.getWindow() != null && !batchProperties.getWindow().isNegative()
+                ? batchProperties.getWindow().toNanos()
+                : 0L;
+            this.maxSize = Math.max(1, batchProperties.getMaxSize());
+        }
+
+        TokenIntrospectionResult introspect(String token) {
+            if (!supported) {
+                return fetch(token);
+            }
+            CompletableFuture<TokenIntrospectionResult> result = new CompletableFuture<>();
+            Batch batch;
+            boolean leader;
+            boolean send;
+            synchronized (lock) {
+                leader = open == null;
+                if (leader) {
+                    open = new Batch();
+                }
+                batch = open;
+                batch.tokens.add(token);
+                batch.results.add(result);
+                send = batch.tokens.size() >= maxSize;
+                if (send) {
+                    open = null;
+                }
+            }
+            if (leader && !send) {
+                // An early wakeup only sends the batch sooner.
+                LockSupport.parkNanos(windowNanos);
+                synchronized (lock) {
+                    send = open == batch;
+                    if (send) {
+                        open = null;
+                    }
+                }
+            }
+            if (send) {
+                send(batch);
+            }
+            TokenIntrospectionResult resolved = await(result);
+            // null: the batch endpoint is unavailable, each caller introspects its own token.
+            return resolved != null ? resolved : fetch(token);
+        }
+
+        private void send(Batch batch) {
+            List<TokenIntrospectionResult> results;
+            try {
+                results = batch.tokens.size() == 1 ? List.of(fetch(batch.tokens.get(0))) : post(batch.tokens);
+            } catch (RuntimeException | Error ex) {
+                batch.results.forEach(result -> result.completeExceptionally(ex));
+                throw ex;
+            }
+            for (int i = 0; i < batch.results.size(); i++) {
+                batch.results.get(i).complete(results != null ? results.get(i) : null);
+            }
+        }
+
+        private List<TokenIntrospectionResult> post(List<String> tokens) {
+            HttpEntity<TokenIntrospectionBatchRequest> request =
+                new HttpEntity<>(new TokenIntrospectionBatchRequest(tokens), headers());
+            try {
+                ResponseEntity<TokenIntrospectionBatchResponse> response =
+                    restTemplate.postForEntity(url, request, TokenIntrospectionBatchResponse.class);
+                if (isUnsupported(response.getStatusCode())) {
+                    return unsupported(response.getStatusCode());
+                }
+                List<TokenIntrospectionResponse> bodies = response.getBody() != null ? response.getBody().getResults() : null;
+                if (response.getStatusCode().is2xxSuccessful() && bodies != null && bodies.size() == tokens.size()) {
+                    List<TokenIntrospectionResult> results = new ArrayList<>(tokens.size());
+                    for (TokenIntrospectionResponse body : bodies) {
+                        results.add(body != null ? toResult(body) : TokenIntrospectionResult.error(failOpenOnError));
+                    }
+                    return results;
+                }
+                log.error("Batch token introspection returned status {} with {} results for {} tokens",
+                    response.getStatusCode(), bodies != null ? bodies.size() : 0, tokens.size());
+            } catch (HttpStatusCodeException ex) {
+                if (isUnsupported(ex.getStatusCode())) {
+                    return unsupported(ex.getStatusCode());
+                }
+                log.error("Batch token introspection call failed: {}", ex.getMessage());
+            } catch (RestClientException ex) {
+                log.error("Batch token introspection call failed: {}", ex.getMessage());
+            }
+            return Collections.nCopies(tokens.size(), TokenIntrospectionResult.error(failOpenOnError));
+        }
+
+        private boolean isUnsupported(HttpStatusCode status) {
+            return status.isSameCodeAs(HttpStatus.NOT_FOUND) || status.isSameCodeAs(HttpStatus.METHOD_NOT_ALLOWED)
+                || status.isSameCodeAs(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        private List<TokenIntrospectionResult> unsupported(HttpStatusCode status) {
+            supported = false;
+            log.warn("Batch token introspection endpoint {} answered {}; falling back to per-token calls", url, status);
+            return null;
+        }
+    }
+
+    private static final class Batch {
+        private final List<String> tokens = new ArrayList<>();
+        private final List<CompletableFuture<TokenIntrospectionResult>> results = new ArrayList<>();
+    }
+
     public static final class TokenIntrospectionResult {
         public enum Status {
             ACTIVE,
@@ -4,14 +4,19 @@ import com.shared.config.SharedLibConfigurationProperties;
 import com.shared.config.SecurityProperties;
 import com.shared.security.JwtAuthenticationFilter;
 import com.shared.security.JwtConfig;
+import com.shared.security.VerifiedTokenCache;
 import com.shared.security.client.TokenIntrospectionClient;
 import com.shared.security.rbac.DynamicEndpointAuthorizationManager;
 import com.shared.security.rbac.client.AuthorizationMatrixClient;
 import com.shared.security.rbac.client.EndpointAuthorizationMetadataClient;
 import com.shared.security.rbac.client.PolicyEvaluationClient;
+import com.shared.security.revocation.HttpTokenRevocationFeed;
+import com.shared.security.revocation.TokenRevocationFeed;
+import com.shared.security.revocation.TokenRevocationListener;
 import com.shared.security.rls.RLSContextFilter;
 
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -29,6 +34,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration("sharedSecurityAutoConfiguration")
 @ConditionalOnClass(HttpSecurity.class)
@@ -39,8 +46,25 @@ public class SecurityAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public JwtAuthenticationFilter jwtAuthenticationFilter(JwtConfig jwtConfig,
-                                                           ObjectProvider<TokenIntrospectionClient> introspectionClientProvider) {
-        return new JwtAuthenticationFilter(jwtConfig, introspectionClientProvider.getIfAvailable());
+                                                           ObjectProvider<TokenIntrospectionClient> introspectionClientProvider,
+                                                           ObjectProvider<VerifiedTokenCache> verifiedTokenCacheProvider) {
+        return new JwtAuthenticationFilter(jwtConfig, introspectionClientProvider.getIfAvailable(),
+            verifiedTokenCacheProvider.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "shared-lib.security.token-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public VerifiedTokenCache verifiedTokenCache(SharedLibConfigurationProperties properties,
+                                                 ObjectProvider<Clock> clockProvider) {
+        var tokenCache = properties.getSecurity().getTokenCache();
+        // Introspected tokens must not outlive what the introspection cache would keep.
+        var introspectionCache = properties.getSecurity().getIntrospection().getCache();
+        Duration introspectionMaxTtl = introspectionCache != null && introspectionCache.isEnabled()
+            ? introspectionCache.getMaxTtl()
+            : Duration.ZERO;
+        return new VerifiedTokenCache(tokenCache.getMaximumSize(), tokenCache.getMaxTtl(), introspectionMaxTtl,
+            clockProvider.getIfAvailable(Clock::systemUTC));
     }
 
     @Bean
@@ -84,7 +108,8 @@ public class SecurityAutoConfiguration {
     @ConditionalOnMissingBean
     @ConditionalOnProperty(prefix = "shared-lib.security.introspection", name = "enabled", havingValue = "true", matchIfMissing = true)
     public TokenIntrospectionClient tokenIntrospectionClient(RestTemplateBuilder restTemplateBuilder,
-                                                             SharedLibConfigurationProperties properties) {
+                                                             SharedLibConfigurationProperties properties,
+                                                             ObjectProvider<Clock> clockProvider) {
         var introspection = properties.getSecurity().getIntrospection();
         var builder = restTemplateBuilder;
         if (introspection.getConnectTimeout() != null) {
@@ -93,7 +118,42 @@ public class SecurityAutoConfiguration {
         if (introspection.getReadTimeout() != null) {
             builder = builder.setReadTimeout(introspection.getReadTimeout());
         }
-        return new TokenIntrospectionClient(builder.build(), introspection);
+        return new TokenIntrospectionClient(builder.build(), introspection, clockProvider.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(TokenRevocationFeed.class)
+    @ConditionalOnProperty(prefix = "shared-lib.security.revocation", name = "enabled", havingValue = "true")
+    public HttpTokenRevocationFeed tokenRevocationFeed(RestTemplateBuilder restTemplateBuilder,
+                                                       SharedLibConfigurationProperties properties) {
+        var revocation = properties.getSecurity().getRevocation();
+        var introspection = properties.getSecurity().getIntrospection();
+        if (!StringUtils.hasText(revocation.getApiKey())) {
+            revocation.setApiKey(introspection.getApiKey());
+        }
+        var builder = restTemplateBuilder;
+        if (introspection.getConnectTimeout() != null) {
+            builder = builder.setConnectTimeout(introspection.getConnectTimeout());
+        }
+        if (introspection.getReadTimeout() != null) {
+            builder = builder.setReadTimeout(introspection.getReadTimeout());
+        }
+        return new HttpTokenRevocationFeed(builder.build(), revocation);
+    }
+
+    /**
+     * Subscribes every {@link TokenRevocationListener} bean (verified token cache, introspection
+     * client, authorization matrix client) to the revocation feed, then starts polling.
+     */
+    @Bean
+    public SmartInitializingSingleton tokenRevocationRegistrar(ObjectProvider<TokenRevocationFeed> feedProvider,
+                                                               ObjectProvider<TokenRevocationListener> listenerProvider) {
+        return () -> feedProvider.ifAvailable(feed -> {
+            listenerProvider.orderedStream().forEach(feed::addListener);
+            if (feed instanceof HttpTokenRevocationFeed httpFeed) {
+                httpFeed.start();
+            }
+        });
     }
 
     @Bean(name = "sharedLibDynamicRbacRestTemplate")
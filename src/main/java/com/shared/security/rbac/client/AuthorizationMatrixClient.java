@@ -2,6 +2,8 @@ package com.shared.security.rbac.client;
 
 import com.shared.config.SecurityProperties;
 import com.shared.security.rbac.model.AuthorizationMatrix;
+import com.shared.security.revocation.TokenRevocation;
+import com.shared.security.revocation.TokenRevocationListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -25,8 +27,9 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Client that fetches authorization matrix snapshots from auth-service.
+ * Cached matrices of a user named in a {@link TokenRevocation} are evicted at once.
  */
-public class AuthorizationMatrixClient {
+public class AuthorizationMatrixClient implements TokenRevocationListener {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthorizationMatrixClient.class);
 
@@ -74,6 +77,21 @@ public class AuthorizationMatrixClient {
         return Optional.empty();
     }
 
+    @Override
+    public void onRevocation(TokenRevocation revocation) {
+        if (revocation.userId() != null) {
+            evict(revocation.userId());
+        }
+    }
+
+    /**
+     * Drops every cached matrix of {@code userId}, whatever its permission version.
+     */
+    public void evict(Long userId) {
+        String prefix = userId + ":";
+        cache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
     private HttpHeaders buildHeaders(HttpServletRequest request) {
         HttpHeaders headers = new HttpHeaders();
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
@@ -0,0 +1,133 @@
+package com.shared.security.revocation;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.shared.config.SecurityProperties;
+
+/**
+ * Polls the auth service for revocations published since the last cursor.
+ * <p>
+ * Every {@code poll-interval} it calls {@code GET <url>?since=<cursor>}, which answers
+ * {@code {"cursor": "...", "revocations": [{"tokenId": ..., "userId": ..., "permissionVersion": ...}]}}.
+ * The first poll carries no cursor; the service is expected to answer with its current cursor,
+ * since nothing is cached yet. A failed poll keeps the cursor and is retried on the next tick.
+ */
+public class HttpTokenRevocationFeed extends TokenRevocationFeed implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpTokenRevocationFeed.class);
+
+    private final RestTemplate restTemplate;
+    private final SecurityProperties.RevocationProperties properties;
+    private volatile String cursor;
+    private ScheduledExecutorService scheduler;
+
+    public HttpTokenRevocationFeed(RestTemplate restTemplate, SecurityProperties.RevocationProperties properties) {
+        this.restTemplate = Objects.requireNonNull(restTemplate, "restTemplate must not be null");
+        this.properties = Objects.requireNonNull(properties, "properties must not be null");
+        if (!StringUtils.hasText(properties.getUrl())) {
+            throw new IllegalArgumentException("shared-lib.security.revocation.url must be set");
+        }
+    }
+
+    /**
+     * Runs {@link #poll()} now and then every {@code poll-interval}.
+     */
+    public synchronized void start() {
+        Duration interval = properties.getPollInterval();
+        if (interval == null || interval.isZero() || interval.isNegative() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shared-lib-token-revocations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, 0L, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fetches and dispatches the revocations published since the current cursor.
+     *
+     * @return the number of revocations dispatched
+     */
+    public int poll() {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromUriString(properties.getUrl());
+        String since = cursor;
+        if (since != null) {
+            uri.queryParam("since", since);
+        }
+        URI target = uri.encode().build().toUri();
+        ResponseEntity<RevocationBatch> response =
+                restTemplate.exchange(target, HttpMethod.GET, new HttpEntity<>(headers()), RevocationBatch.class);
+        RevocationBatch batch = response.getBody();
+        if (!response.getStatusCode().is2xxSuccessful() || batch == null) {
+            log.warn("Token revocation feed returned status {}", response.getStatusCode());
+            return 0;
+        }
+        List<TokenRevocation> revocations = batch.revocations() != null ? batch.revocations() : List.of();
+        for (TokenRevocation revocation : revocations) {
+            dispatch(revocation);
+        }
+        if (batch.cursor() != null) {
+            cursor = batch.cursor();
+        }
+        return revocations.size();
+    }
+
+    @Nullable
+    public String getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            int dispatched = poll();
+            if (dispatched > 0) {
+                log.debug("Dispatched {} token revocations", dispatched);
+            }
+        } catch (RestClientException ex) {
+            log.warn("Token revocation poll failed: {}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Token revocation poll failed", ex);
+        }
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (StringUtils.hasText(properties.getApiKey())) {
+            headers.set(properties.getApiKeyHeader(), properties.getApiKey());
+        }
+        return headers;
+    }
+
+    record RevocationBatch(@Nullable String cursor, @Nullable List<TokenRevocation> revocations) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.shared.security.revocation;
+
+import java.util.Objects;
+
+/**
+ * Feed whose revocations are published in-process, e.g. by tests or by an application that
+ * receives revocations through its own messaging. Delivery happens on the publishing thread.
+ */
+public class InMemoryTokenRevocationFeed extends TokenRevocationFeed {
+
+    public void publish(TokenRevocation revocation) {
+        dispatch(Objects.requireNonNull(revocation, "revocation must not be null"));
+    }
+}
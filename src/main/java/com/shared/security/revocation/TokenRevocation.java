@@ -0,0 +1,41 @@
+package com.shared.security.revocation;
+
+import java.util.Objects;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A revocation published by the auth service.
+ * <p>
+ * With a {@code tokenId}, that token is revoked. With a {@code userId}, every token of the
+ * user is revoked, or, when {@code permissionVersion} is also set, every token issued with
+ * an older permission version.
+ */
+public record TokenRevocation(@Nullable String tokenId,
+                              @Nullable Long userId,
+                              @Nullable Integer permissionVersion) {
+
+    public static TokenRevocation ofToken(String tokenId) {
+        return new TokenRevocation(Objects.requireNonNull(tokenId, "tokenId must not be null"), null, null);
+    }
+
+    public static TokenRevocation ofUser(Long userId, @Nullable Integer permissionVersion) {
+        return new TokenRevocation(null, Objects.requireNonNull(userId, "userId must not be null"), permissionVersion);
+    }
+
+    /**
+     * Whether a token with the given id, user and permission version is revoked by this event.
+     */
+    public boolean matches(@Nullable String candidateTokenId,
+                           @Nullable Long candidateUserId,
+                           @Nullable Integer candidatePermissionVersion) {
+        if (tokenId != null && tokenId.equals(candidateTokenId)) {
+            return true;
+        }
+        if (userId == null || !userId.equals(candidateUserId)) {
+            return false;
+        }
+        return permissionVersion == null || candidatePermissionVersion == null
+                || candidatePermissionVersion < permissionVersion;
+    }
+}
@@ -0,0 +1,37 @@
+package com.shared.security.revocation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Source of {@link TokenRevocation}s, delivered to every registered listener in order.
+ * A failing listener is logged and does not stop delivery to the others.
+ */
+public abstract class TokenRevocationFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationFeed.class);
+
+    private final List<TokenRevocationListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(TokenRevocationListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+    }
+
+    public void removeListener(TokenRevocationListener listener) {
+        listeners.remove(listener);
+    }
+
+    protected void dispatch(TokenRevocation revocation) {
+        for (TokenRevocationListener listener : listeners) {
+            try {
+                listener.onRevocation(revocation);
+            } catch (RuntimeException ex) {
+                log.error("Token revocation listener {} failed", listener, ex);
+            }
+        }
+    }
+}
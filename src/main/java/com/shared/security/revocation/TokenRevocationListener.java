@@ -0,0 +1,10 @@
+package com.shared.security.revocation;
+
+/**
+ * Receives revocations from a {@link TokenRevocationFeed}, typically to evict cached state.
+ */
+@FunctionalInterface
+public interface TokenRevocationListener {
+
+    void onRevocation(TokenRevocation revocation);
+}
@@ -0,0 +1,57 @@
+package com.shared.audit;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.actuate.AuditChainVerificationEndpoint;
+import com.shared.audit.model.AuditChainVerificationReport;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.audit.service.AuditChainVerifier;
+import com.shared.audit.service.AuditHashService;
+import com.shared.config.AuditProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditChainVerificationEndpointTest {
+
+    @Test
+    void rejectedRunIsReportedAsFailedAndCanBeRetried() {
+        AuditChainVerificationEndpoint endpoint = new AuditChainVerificationEndpoint(new FailingVerifier(), runnable -> {
+            throw new RejectedExecutionException("verifier pool is full");
+        });
+
+        AuditChainVerificationEndpoint.Status status = endpoint.verify();
+
+        assertThat(status.state()).isEqualTo(AuditChainVerificationEndpoint.State.FAILED);
+        assertThat(status.error()).isEqualTo("verifier pool is full");
+        assertThat(endpoint.status()).isEqualTo(status);
+        assertThat(endpoint.verify().state()).isEqualTo(AuditChainVerificationEndpoint.State.FAILED);
+    }
+
+    @Test
+    void errorInTheRunIsReportedAsFailed() {
+        AuditChainVerificationEndpoint endpoint = new AuditChainVerificationEndpoint(new FailingVerifier(), Runnable::run);
+
+        assertThatThrownBy(endpoint::verify).isInstanceOf(StackOverflowError.class);
+
+        assertThat(endpoint.status().state()).isEqualTo(AuditChainVerificationEndpoint.State.FAILED);
+        assertThat(endpoint.status().error()).isEqualTo(StackOverflowError.class.getName());
+        assertThat(endpoint.status().finishedAt()).isNotNull();
+    }
+
+    private static final class FailingVerifier extends AuditChainVerifier {
+
+        private FailingVerifier() {
+            super(new AuditEventRepository(null, null), new AuditHashService(new AuditProperties(), new ObjectMapper()),
+                    TransactionOperations.withoutTransaction(), new AuditProperties.VerificationProperties());
+        }
+
+        @Override
+        public AuditChainVerificationReport verify() {
+            throw new StackOverflowError();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.shared.audit;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.repository.AuditDetailsOverflowRepository;
+import com.shared.audit.service.AuditDetailsBudget;
+import com.shared.config.AuditProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+class AuditDetailsBudgetTest {
+
+    @Test
+    void truncatesOverBudgetFieldsAndThenTheLargestRemainingOnes() {
+        AuditProperties.DetailsProperties properties = new AuditProperties.DetailsProperties();
+        properties.setMaxFieldBytes(400);
+        properties.setMaxTotalBytes(700);
+        properties.setPreviewBytes(8);
+        AuditDetailsBudget budget = new AuditDetailsBudget(new ObjectMapper(), properties, null);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("status", "PAID");
+        details.put("result", List.of("x".repeat(1000)));
+        details.put("lines", "y".repeat(300));
+        details.put("notes", "z".repeat(300));
+
+        Map<String, Object> budgeted = budget.apply(details);
+
+        assertThat(budgeted).containsEntry("status", "PAID");
+        assertThat(budgeted.get("result")).asInstanceOf(MAP)
+                .containsEntry(AuditDetailsBudget.TRUNCATED, true)
+                .containsEntry("sizeBytes", 1004)
+                .containsEntry("preview", "[\"xxxxxx")
+                .containsKey("sha256");
+        // Equal sizes: the total budget is met by replacing the first key in order.
+        assertThat(budgeted.get("lines")).isInstanceOf(Map.class);
+        assertThat(budgeted.get("notes")).isEqualTo("z".repeat(300));
+        assertThat(budget.apply(Map.of("status", "PAID"))).isEqualTo(Map.of("status", "PAID"));
+    }
+
+    @Test
+    void offloadsRepeatedContentOnceWithinOneTransaction() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(database);
+            jdbcTemplate.getJdbcTemplate().execute("""
+                    CREATE TABLE audit_details_overflow (
+                        content_hash VARCHAR(64) PRIMARY KEY,
+                        size_bytes BIGINT NOT NULL,
+                        compressed VARBINARY(65536) NOT NULL,
+                        created_at TIMESTAMP NOT NULL
+                    )
+                    """);
+            AuditProperties auditProperties = new AuditProperties();
+            auditProperties.getDetails().setOverflowTable("audit_details_overflow");
+            auditProperties.getDetails().setMaxFieldBytes(100);
+            auditProperties.getDetails().setOverflow(AuditProperties.DetailsProperties.Overflow.OFFLOAD);
+            AuditDetailsOverflowRepository repository = new AuditDetailsOverflowRepository(jdbcTemplate, auditProperties);
+            AuditDetailsBudget budget = new AuditDetailsBudget(new ObjectMapper(), auditProperties.getDetails(), repository);
+            Map<String, Object> details = Map.of("result", "x".repeat(500));
+
+            Map<String, Object> budgeted = new TransactionTemplate(new DataSourceTransactionManager(database))
+                    .execute(status -> {
+                        budget.apply(details);
+                        return budget.apply(details);
+                    });
+
+            String sha256 = (String) ((Map<?, ?>) budgeted.get("result")).get("sha256");
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_details_overflow", Map.of(), Integer.class))
+                    .isEqualTo(1);
+            assertThat(repository.find(sha256)).isPresent();
+        } finally {
+            database.shutdown();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.shared.audit;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.config.AuditAutoConfiguration;
+import com.shared.audit.exception.AuditPersistenceException;
+import com.shared.audit.model.AuditArchiveManifest;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.audit.repository.AuditPartitionRepository;
+import com.shared.audit.service.AuditPartitionArchiver;
+import com.shared.audit.service.AuditPartitionManager;
+import com.shared.config.AuditProperties;
+import com.shared.config.SharedLibCoreAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditPartitionManagerTest {
+
+    @Test
+    void maintainCreatesUpcomingPartitionsAndDetachesExpiredOnes() {
+        RecordingRepository repository = new RecordingRepository(List.of(
+                "audit_event_p20260801", "audit_event_p20260901", "audit_event_p20261001", "audit_event_legacy"));
+        AuditProperties.PartitionProperties properties = new AuditProperties.PartitionProperties();
+        properties.setPremake(2);
+        properties.setRetention(Duration.ofDays(30));
+        properties.setArchiveSchema("audit_archive");
+        Clock clock = Clock.fixed(Instant.parse("2026-10-17T10:00:00Z"), ZoneOffset.UTC);
+
+        AuditPartitionManager.Maintenance maintenance = new AuditPartitionManager(repository,
+                List.of("audit.audit_event"), properties, clock).maintain();
+
+        assertThat(maintenance.created()).containsExactly("audit.audit_event_p20261101", "audit.audit_event_p20261201");
+        assertThat(maintenance.expired()).containsExactly("audit.audit_event_p20260801");
+        assertThat(repository.statements).containsExactly(
+                "create audit.audit_event_p20261101 [2026-11-01, 2026-12-01)",
+                "create audit.audit_event_p20261201 [2026-12-01, 2027-01-01)",
+                "detach audit.audit_event_p20260801",
+                "move audit.audit_event_p20260801 audit_archive");
+    }
+
+    @Test
+    void archiveExpiryArchivesBeforeDetachingAndKeepsThePartitionWhenArchivingFails() {
+        RecordingRepository repository = new RecordingRepository(List.of("audit_event_p20260801"));
+        AuditProperties.PartitionProperties properties = new AuditProperties.PartitionProperties();
+        properties.setPremake(0);
+        properties.setRetention(Duration.ofDays(30));
+        properties.setExpiry(AuditProperties.PartitionProperties.Expiry.ARCHIVE);
+        properties.setArchiveDirectory("archive");
+        Clock clock = Clock.fixed(Instant.parse("2026-10-17T10:00:00Z"), ZoneOffset.UTC);
+        RecordingArchiver archiver = new RecordingArchiver(repository);
+        AuditPartitionManager manager = new AuditPartitionManager(repository, List.of("audit.audit_event"),
+                properties, clock, archiver);
+
+        archiver.fail = true;
+        assertThatThrownBy(manager::maintain).isInstanceOf(AuditPersistenceException.class);
+        assertThat(repository.statements).containsExactly(
+                "create audit.audit_event_p20261001 [2026-10-01, 2026-11-01)",
+                "archive audit.audit_event_p20260801");
+
+        repository.statements.clear();
+        archiver.fail = false;
+        manager.maintain();
+        assertThat(repository.statements).containsExactly(
+                "create audit.audit_event_p20261001 [2026-10-01, 2026-11-01)",
+                "archive audit.audit_event_p20260801",
+                "detach audit.audit_event_p20260801",
+                "drop audit.audit_event_p20260801");
+    }
+
+    @Test
+    void maintainSkipsWhileAnotherInstanceHoldsTheLock() {
+        RecordingRepository repository = new RecordingRepository(List.of("audit_event_p20260801"));
+        repository.lockedElsewhere = true;
+        AuditProperties.PartitionProperties properties = new AuditProperties.PartitionProperties();
+        properties.setRetention(Duration.ofDays(30));
+        properties.setExpiry(AuditProperties.PartitionProperties.Expiry.DROP);
+        Clock clock = Clock.fixed(Instant.parse("2026-10-17T10:00:00Z"), ZoneOffset.UTC);
+
+        AuditPartitionManager.Maintenance maintenance = new AuditPartitionManager(repository,
+                List.of("audit.audit_event"), properties, clock).maintain();
+
+        assertThat(maintenance.created()).isEmpty();
+        assertThat(maintenance.expired()).isEmpty();
+        assertThat(repository.statements).isEmpty();
+    }
+
+    @Test
+    void partitioningRequiresHeadRowCoordination() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(SharedLibCoreAutoConfiguration.class, AuditAutoConfiguration.class))
+                .withBean(DataSource.class, () -> new EmbeddedDatabaseBuilder()
+                        .setType(EmbeddedDatabaseType.H2)
+                        .generateUniqueName(true)
+                        .build())
+                .withPropertyValues("shared-lib.audit.enabled=true", "shared-lib.audit.partitioning.enabled=true")
+                .run(context -> assertThat(context).getFailure()
+                        .rootCause()
+                        .hasMessageContaining("shared-lib.audit.chain.coordination=HEAD_ROW"));
+    }
+
+    private static final class RecordingRepository extends AuditPartitionRepository {
+
+        private final List<String> partitions;
+        private final List<String> statements = new ArrayList<>();
+        private boolean lockedElsewhere;
+
+        private RecordingRepository(List<String> partitions) {
+            super(null);
+            this.partitions = partitions;
+        }
+
+        @Override
+        public List<String> findPartitions(String parentTable) {
+            return partitions;
+        }
+
+        @Override
+        public void createPartition(String parentTable, String partition, LocalDate from, LocalDate to) {
+            statements.add("create " + partition + " [" + from + ", " + to + ")");
+        }
+
+        @Override
+        public void detachPartition(String parentTable, String partition) {
+            statements.add("detach " + partition);
+        }
+
+        @Override
+        public void moveToSchema(String table, String schema) {
+            statements.add("move " + table + " " + schema);
+        }
+
+        @Override
+        public long countRows(String table) {
+            return 1L;
+        }
+
+        @Override
+        public void dropTable(String table) {
+            statements.add("drop " + table);
+        }
+
+        @Override
+        public boolean runWithAdvisoryLock(long key, Runnable work) {
+            if (lockedElsewhere) {
+                return false;
+            }
+            work.run();
+            return true;
+        }
+    }
+
+    private static final class RecordingArchiver extends AuditPartitionArchiver {
+
+        private final RecordingRepository repository;
+        private boolean fail;
+
+        private RecordingArchiver(RecordingRepository repository) {
+            super(new AuditEventRepository(null, null), "audit.audit_event", new ObjectMapper(),
+                    TransactionOperations.withoutTransaction(), 1, 1);
+            this.repository = repository;
+        }
+
+        @Override
+        public AuditArchiveManifest archive(String table, Path directory) {
+            repository.statements.add("archive " + table);
+            if (fail) {
+                throw new AuditPersistenceException("disk full");
+            }
+            return new AuditArchiveManifest(table, table + DATA_SUFFIX, "", 1L, 1L, 1L, null, null,
+                    List.of(), List.of());
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.shared.audit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.model.AuditArchiveManifest;
+import com.shared.audit.model.AuditChainAnchor;
+import com.shared.audit.model.AuditChainVerificationReport;
+import com.shared.audit.model.AuditEventRequest;
+import com.shared.audit.model.AuditRecord;
+import com.shared.audit.repository.AuditChainAnchorRepository;
+import com.shared.audit.repository.AuditChainHeadRepository;
+import com.shared.audit.repository.AuditEventRepository;
+import com.shared.audit.service.AuditArchiveReader;
+import com.shared.audit.service.AuditChainAnchorService;
+import com.shared.audit.service.AuditChainHeadManager;
+import com.shared.audit.service.AuditChainSelector;
+import com.shared.audit.service.AuditChainVerifier;
+import com.shared.audit.service.AuditHashService;
+import com.shared.audit.service.AuditPartitionArchiver;
+import com.shared.audit.service.AuditTrailService;
+import com.shared.config.AuditProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditTrailServiceIntegrationTest {
+
+    private EmbeddedDatabase database;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private AuditProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(database);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE audit_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    occurred_at TIMESTAMP(6) NOT NULL,
+                    trace_id VARCHAR(64) NOT NULL,
+                    user_id VARCHAR(128) NOT NULL,
+                    action VARCHAR(128) NOT NULL,
+                    resource_type VARCHAR(64) NOT NULL,
+                    resource_id VARCHAR(128),
+                    outcome VARCHAR(16) NOT NULL,
+                    client_ip VARCHAR(64),
+                    user_agent VARCHAR(256),
+                    details VARCHAR(4000),
+                    prev_hash VARCHAR(64) NOT NULL,
+                    hash VARCHAR(64) NOT NULL,
+                    response_hash VARCHAR(64),
+                    referer VARCHAR(256),
+                    client_source VARCHAR(64),
+                    requested_with VARCHAR(64),
+                    service_name VARCHAR(64),
+                    source_schema VARCHAR(64),
+                    chain_id INTEGER DEFAULT 0 NOT NULL,
+                    hash_format SMALLINT DEFAULT 1 NOT NULL
+                )
+                """);
+        properties = new AuditProperties();
+        properties.setTableName("audit_event");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void recordEvent_chainsHashesAcrossEvents() {
+        AuditTrailService service = newService();
+
+        AuditRecord first = service.recordEvent(request("CREATE"));
+        AuditRecord second = service.recordEvent(request("UPDATE"));
+
+        assertThat(first.prevHash()).isEqualTo(properties.getInitialHashValue());
+        assertThat(second.prevHash()).isEqualTo(first.hash());
+        assertThat(storedHashes()).containsExactly(first.hash(), second.hash());
+    }
+
+    @Test
+    void canonicalHashFormat_isRecordedAndIndependentOfDetailOrdering() {
+        AuditRecord record = newService().recordEvent(request("CREATE"));
+        AuditHashService hashService = new AuditHashService(properties, new ObjectMapper());
+
+        AuditEventRequest reordered = request("CREATE");
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("total", 12.5d);
+        details.put("status", "PAID");
+        details.put("lines", List.of(Map.of("sku", "A-1", "qty", 2L)));
+        reordered.setDetails(details);
+        AuditEventRequest original = request("CREATE");
+        original.setDetails(new TreeMap<>(details));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT hash_format FROM audit_event", Map.of(), Integer.class))
+                .isEqualTo(AuditHashService.NORMALIZED_FORMAT);
+        assertThat(hashService.computeHash(record.prevHash(), request("CREATE"), AuditHashService.NORMALIZED_FORMAT))
+                .isEqualTo(record.hash());
+        assertThat(hashService.computeHash(record.prevHash(), reordered))
+                .isEqualTo(hashService.computeHash(record.prevHash(), original))
+                .isNotEqualTo(hashService.computeHash(record.prevHash(), reordered, AuditHashService.LEGACY_JSON_FORMAT));
+    }
+
+    @Test
+    void canonicalHashFormat2_keepsItsEncodingWhileFormat3MatchesStoredDetails() {
+        AuditHashService hashService = new AuditHashService(properties, new ObjectMapper());
+        AuditEventRequest empty = request("CREATE");
+        empty.setDetails(Map.of());
+        AuditEventRequest none = request("CREATE");
+        none.setDetails(null);
+        AuditEventRequest big = request("CREATE");
+        big.setDetails(Map.of("amount", BigInteger.valueOf(42)));
+        AuditEventRequest small = request("CREATE");
+        small.setDetails(Map.of("amount", 42L));
+        String prev = properties.getInitialHashValue();
+
+        assertThat(hashService.computeHash(prev, empty, AuditHashService.CANONICAL_FORMAT))
+                .isNotEqualTo(hashService.computeHash(prev, none, AuditHashService.CANONICAL_FORMAT));
+        assertThat(hashService.computeHash(prev, big, AuditHashService.CANONICAL_FORMAT))
+                .isNotEqualTo(hashService.computeHash(prev, small, AuditHashService.CANONICAL_FORMAT));
+        assertThat(hashService.computeHash(prev, empty, AuditHashService.NORMALIZED_FORMAT))
+                .isEqualTo(hashService.computeHash(prev, none, AuditHashService.NORMALIZED_FORMAT));
+        assertThat(hashService.computeHash(prev, big, AuditHashService.NORMALIZED_FORMAT))
+                .isEqualTo(hashService.computeHash(prev, small, AuditHashService.NORMALIZED_FORMAT));
+    }
+
+    @Test
+    void chainVerifier_acceptsDecimalAmountsReadBackFromStoredDetails() {
+        AuditTrailService service = newService();
+        AuditEventRequest payment = request("CREATE");
+        payment.setDetails(Map.of("amount", new BigDecimal("1234.50"), "fee", 0.1d,
+                "precise", new BigDecimal("0.10000000000000000001")));
+        service.recordEvent(payment);
+        service.recordEvent(request("UPDATE"));
+
+        AuditChainVerificationReport report = newVerifier().verify();
+
+        assertThat(report.valid()).isTrue();
+        assertThat(report.rowsChecked()).isEqualTo(2);
+    }
+
+    @Test
+    void asyncWriter_persistsEventsInQueueOrderAndFlushesOnClose() {
+        properties.getAsync().setEnabled(true);
+        properties.getAsync().setFlushSize(16);
+        AuditTrailService service = newService();
+
+        List<CompletableFuture<AuditRecord>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(service.submitEvent(request("ACTION_" + i)));
+        }
+        service.close();
+
+        String expectedPrev = properties.getInitialHashValue();
+        for (CompletableFuture<AuditRecord> future : futures) {
+            AuditRecord record = future.join();
+            assertThat(record.prevHash()).isEqualTo(expectedPrev);
+            expectedPrev = record.hash();
+        }
+        assertThat(storedHashes()).hasSize(50).last().isEqualTo(expectedPrev);
+    }
+
+    @Test
+    void asyncWriter_auditsDetailsAsTheyWereWhenSubmitted() {
+        properties.getAsync().setEnabled(true);
+        properties.getAsync().setLinger(Duration.ofSeconds(1));
+        AuditTrailService service = newService();
+        List<String> lines = new ArrayList<>(List.of("A-1"));
+        AuditEventRequest request = request("CREATE");
+        request.setDetails(new HashMap<>(Map.of("lines", lines)));
+
+        CompletableFuture<AuditRecord> future = service.submitEvent(request);
+        lines.add("B-2");
+        service.close();
+
+        assertThat(future.join().id()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT details FROM audit_event", Map.of(), String.class))
+                .isEqualTo("{\"lines\":[\"A-1\"]}");
+        assertThat(newVerifier().verify().valid()).isTrue();
+    }
+
+    @Test
+    void headRowCoordination_continuesChainFromLockedHeadRow() {
+        jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE TABLE audit_chain_head (chain_id INTEGER PRIMARY KEY, head_hash VARCHAR(64) NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        properties.getChain().setHeadTable("audit_chain_head");
+        AuditRecord seeded = newService().recordEvent(request("CREATE"));
+
+        properties.getChain().setCoordination(AuditProperties.ChainProperties.Coordination.HEAD_ROW);
+        AuditRecord first = newService().recordEvent(request("UPDATE"));
+        AuditRecord second = newService().recordEvent(request("DELETE"));
+
+        assertThat(first.prevHash()).isEqualTo(seeded.hash());
+        assertThat(second.prevHash()).isEqualTo(first.hash());
+        assertThat(jdbcTemplate.queryForObject("SELECT head_hash FROM audit_chain_head WHERE chain_id = 0",
+                Map.of(), String.class)).isEqualTo(second.hash());
+    }
+
+    @Test
+    void headRowCoordination_reusesHeadRowLeftByAnEarlierInstance() {
+        jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE TABLE audit_chain_head (chain_id INTEGER PRIMARY KEY, head_hash VARCHAR(64) NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        properties.getChain().setHeadTable("audit_chain_head");
+        AuditRecord seeded = newService().recordEvent(request("CREATE"));
+        jdbcTemplate.update("INSERT INTO audit_chain_head (chain_id, head_hash, updated_at) VALUES (0, :head_hash, CURRENT_TIMESTAMP)",
+                Map.of("head_hash", seeded.hash()));
+
+        properties.getChain().setCoordination(AuditProperties.ChainProperties.Coordination.HEAD_ROW);
+        AuditRecord first = newService().recordEvent(request("UPDATE"));
+
+        assertThat(first.prevHash()).isEqualTo(seeded.hash());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_chain_head", Map.of(), Integer.class))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT head_hash FROM audit_chain_head WHERE chain_id = 0",
+                Map.of(), String.class)).isEqualTo(first.hash());
+    }
+
+    @Test
+    void shardedChains_linkPerChainAndAnchorAllHeads() {
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE audit_chain_anchor (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    anchored_at TIMESTAMP(6) NOT NULL,
+                    chain_count INTEGER NOT NULL,
+                    chain_heads VARCHAR(4000) NOT NULL,
+                    merkle_root VARCHAR(64) NOT NULL,
+                    prev_anchor_hash VARCHAR(64) NOT NULL UNIQUE,
+                    hash VARCHAR(64) NOT NULL
+                )
+                """);
+        properties.getChain().setAnchorTable("audit_chain_anchor");
+        properties.getChain().setCount(4);
+        properties.getChain().setPartitionKey(AuditProperties.ChainProperties.PartitionKey.TRACE_ID);
+        AuditTrailService service = newService();
+
+        Map<Integer, String> heads = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            AuditEventRequest request = request("ACTION_" + i);
+            request.setTraceId("trace-" + i);
+            AuditRecord record = service.recordEvent(request);
+            assertThat(record.prevHash())
+                    .isEqualTo(heads.getOrDefault(record.chainId(), properties.getInitialHashValue()));
+            heads.put(record.chainId(), record.hash());
+        }
+        assertThat(heads).hasSizeGreaterThan(1);
+
+        AuditEventRepository repository = new AuditEventRepository(jdbcTemplate, properties);
+        AuditHashService hashService = new AuditHashService(properties, new ObjectMapper());
+        AuditChainAnchorService anchorService = new AuditChainAnchorService(repository,
+                new AuditChainAnchorRepository(jdbcTemplate, properties, new ObjectMapper()),
+                hashService, properties, Clock.systemUTC());
+
+        AuditChainAnchor first = anchorService.anchor().orElseThrow();
+        AuditChainAnchor second = anchorService.anchor().orElseThrow();
+
+        for (int chainId = 0; chainId < 4; chainId++) {
+            assertThat(first.chainHeads().get(chainId))
+                    .isEqualTo(heads.getOrDefault(chainId, properties.getInitialHashValue()));
+        }
+        assertThat(first.prevAnchorHash()).isEqualTo(properties.getInitialHashValue());
+        assertThat(second.prevAnchorHash()).isEqualTo(first.hash());
+        assertThat(second.merkleRoot()).isEqualTo(first.merkleRoot());
+    }
+
+    @Test
+    void chainVerifier_acceptsIntactChainsAndReportsFirstBreakPerSegment() {
+        properties.getChain().setCount(3);
+        properties.getVerification().setSegmentSize(7);
+        properties.getVerification().setParallelism(3);
+        AuditTrailService service = newService();
+        List<AuditRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            AuditEventRequest request = request("ACTION_" + i);
+            request.setResourceType("TYPE_" + (i % 5));
+            records.add(service.recordEvent(request));
+        }
+        AuditChainVerifier verifier = newVerifier();
+
+        AuditChainVerificationReport intact = verifier.verify();
+
+        assertThat(intact.valid()).isTrue();
+        assertThat(intact.rowsChecked()).isEqualTo(30);
+        assertThat(intact.segments()).isEqualTo(5);
+
+        long tamperedId = records.get(17).id();
+        jdbcTemplate.update("UPDATE audit_event SET action = 'FORGED' WHERE id = :id", Map.of("id", tamperedId));
+
+        AuditChainVerificationReport tampered = verifier.verify();
+
+        assertThat(tampered.valid()).isFalse();
+        assertThat(tampered.breaks()).singleElement().satisfies(chainBreak -> {
+            assertThat(chainBreak.id()).isEqualTo(tamperedId);
+            assertThat(chainBreak.kind()).isEqualTo(AuditChainVerificationReport.ChainBreak.Kind.HASH_MISMATCH);
+        });
+    }
+
+    @Test
+    void ingest_streamsChunksOntoChainHeadsAndVerifies() {
+        properties.getChain().setCount(2);
+        properties.getChain().setPartitionKey(AuditProperties.ChainProperties.PartitionKey.TRACE_ID);
+        AuditTrailService service = newService();
+        AuditRecord before = service.recordEvent(request("CREATE"));
+
+        long written = service.ingest(IntStream.range(0, 25).mapToObj(i -> {
+            AuditEventRequest request = request("IMPORT_" + i);
+            request.setTraceId("trace-" + i);
+            return request;
+        }).iterator(), 4);
+        AuditRecord after = service.recordEvent(request("UPDATE"));
+
+        assertThat(written).isEqualTo(25);
+        assertThat(storedHashes()).hasSize(27).contains(before.hash()).last().isEqualTo(after.hash());
+        assertThat(newVerifier().verify().valid()).isTrue();
+    }
+
+    @Test
+    void partitionArchive_recordsChainHeadsAndScansByTimeRange(@TempDir Path archiveDirectory) {
+        properties.getChain().setCount(2);
+        properties.getChain().setPartitionKey(AuditProperties.ChainProperties.PartitionKey.TRACE_ID);
+        AuditTrailService service = newService();
+        OffsetDateTime start = OffsetDateTime.of(2026, 8, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        Map<Integer, String> heads = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            AuditEventRequest request = request("ACTION_" + i);
+            request.setTraceId("trace-" + i);
+            request.setOccurredAt(start.plusDays(i));
+            AuditRecord record = service.recordEvent(request);
+            heads.put(record.chainId(), record.hash());
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(database));
+        readOnly.setReadOnly(true);
+        AuditPartitionArchiver archiver = new AuditPartitionArchiver(new AuditEventRepository(jdbcTemplate, properties),
+                "audit_event", new ObjectMapper(), readOnly, 6, 100);
+
+        AuditArchiveManifest manifest = archiver.archive("audit_event", archiveDirectory);
+        jdbcTemplate.update("DELETE FROM audit_event", Map.of());
+        AuditRecord next = service.recordEvent(request("AFTER_ARCHIVE"));
+
+        assertThat(manifest.rowCount()).isEqualTo(20);
+        assertThat(manifest.blocks()).hasSize(4);
+        assertThat(manifest.terminalHashes()).isEqualTo(heads);
+        List<String> actions = new ArrayList<>();
+        new AuditArchiveReader(new ObjectMapper()).scanDirectory(archiveDirectory,
+                start.plusDays(5), start.plusDays(8), (id, event) -> actions.add(event.getAction()));
+        assertThat(actions).containsExactly("ACTION_5", "ACTION_6", "ACTION_7");
+        assertThat(newVerifier().verify(next.id(), next.id(), manifest.terminalHashes()).valid()).isTrue();
+        assertThat(newVerifier().verify(next.id(), next.id(), Map.of(next.chainId(), next.hash())).valid()).isFalse();
+    }
+
+    @Test
+    void asyncWriter_failsOnlyTheChainThatFailedWithinABatch() {
+        properties.getChain().setCount(2);
+        properties.getAsync().setEnabled(true);
+        properties.getAsync().setWriterThreads(1);
+        properties.getAsync().setFlushSize(4);
+        properties.getAsync().setLinger(java.time.Duration.ofSeconds(5));
+        AuditChainSelector selector = new AuditChainSelector(properties);
+        String otherType = "PAYMENT";
+        for (int i = 0; selector.chainFor(request("X")) == selector.chainFor(withType(request("X"), otherType)); i++) {
+            otherType = "TYPE_" + i;
+        }
+        AuditTrailService service = newService();
+
+        List<CompletableFuture<AuditRecord>> committed = new ArrayList<>();
+        committed.add(service.submitEvent(request("FIRST")));
+        committed.add(service.submitEvent(request("SECOND")));
+        // Too long for the action column: the insert of this chain fails.
+        CompletableFuture<AuditRecord> failed = service.submitEvent(withType(request("X".repeat(200)), otherType));
+        committed.add(service.submitEvent(request("THIRD")));
+        service.close();
+
+        assertThat(committed).allSatisfy(future -> assertThat(future).succeedsWithin(java.time.Duration.ofSeconds(5)));
+        assertThat(failed).failsWithin(java.time.Duration.ofSeconds(5));
+        assertThat(storedHashes()).containsExactlyElementsOf(committed.stream().map(f -> f.join().hash()).toList());
+    }
+
+    @Test
+    void chainConflictIndex_isDetectedOnlyWhenItCoversChainAndPrevHash() {
+        AuditEventRepository repository = new AuditEventRepository(jdbcTemplate, properties);
+        assertThat(repository.hasChainConflictIndex()).isFalse();
+
+        // The shape a partitioned table allows does not detect a concurrent append.
+        jdbcTemplate.getJdbcTemplate().execute("CREATE UNIQUE INDEX ux_prev_hash_occurred ON audit_event (prev_hash, occurred_at)");
+        assertThat(repository.hasChainConflictIndex()).isFalse();
+
+        jdbcTemplate.getJdbcTemplate().execute("CREATE UNIQUE INDEX ux_chain_prev_hash ON audit_event (chain_id, prev_hash)");
+        assertThat(repository.hasChainConflictIndex()).isTrue();
+    }
+
+    private static AuditEventRequest withType(AuditEventRequest request, String resourceType) {
+        request.setResourceType(resourceType);
+        return request;
+    }
+
+    private AuditChainVerifier newVerifier() {
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(database));
+        readOnly.setReadOnly(true);
+        return new AuditChainVerifier(new AuditEventRepository(jdbcTemplate, properties),
+                new AuditHashService(properties, new ObjectMapper()), readOnly, properties.getVerification());
+    }
+
+    private AuditTrailService newService() {
+        AuditEventRepository repository = new AuditEventRepository(jdbcTemplate, properties);
+        AuditHashService hashService = new AuditHashService(properties, new ObjectMapper());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AuditChainHeadManager headManager = new AuditChainHeadManager(repository, hashService,
+                new AuditChainHeadRepository(jdbcTemplate, properties), transactionTemplate, properties.getChain());
+        return new AuditTrailService(repository, hashService, Clock.systemUTC(), headManager,
+                new AuditChainSelector(properties), properties.getAsync());
+    }
+
+    private List<String> storedHashes() {
+        return jdbcTemplate.queryForList("SELECT hash FROM audit_event ORDER BY id", Map.of(), String.class);
+    }
+
+    private AuditEventRequest request(String action) {
+        AuditEventRequest request = new AuditEventRequest();
+        request.setTraceId("trace-1");
+        request.setUserId("user-1");
+        request.setAction(action);
+        request.setResourceType("PAYMENT");
+        request.setResourceId("42");
+        request.setOutcome("SUCCESS");
+        request.setDetails(Map.of("status", "PAID"));
+        return request;
+    }
+}
@@ -0,0 +1,28 @@
+package com.shared.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.audit.service.ResponseHasher;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseHasherTest {
+
+    @Test
+    void streamsTheSameHashAndSizeAsTheSerializedString() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Object result = Map.of("orders", List.of(Map.of("id", 1, "note", "caf\u00e9")));
+        byte[] json = objectMapper.writeValueAsString(result).getBytes(StandardCharsets.UTF_8);
+
+        ResponseHasher.ResponseDigest digest = new ResponseHasher(objectMapper).digest(result);
+
+        assertThat(digest.hash()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json)));
+        assertThat(digest.size()).isEqualTo(json.length);
+    }
+}
@@ -0,0 +1,78 @@
+package com.shared.common.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedTtlCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void evictsLeastRecentlyUsedEntryBeyondMaximumSize() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, Duration.ofMinutes(1), Duration.ZERO, clock);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertThat(cache.getIfPresent("a")).contains("1");
+
+        cache.put("c", "3");
+
+        assertThat(cache.getIfPresent("b")).isEmpty();
+        assertThat(cache.getIfPresent("a")).contains("1");
+        assertThat(cache.getIfPresent("c")).contains("3");
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reloadsExpiredEntriesAndCachesAbsentResultsForNegativeTtl() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofSeconds(10), Duration.ofSeconds(1), clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("k", key -> { loads.incrementAndGet(); return Optional.empty(); })).isEmpty();
+        assertThat(cache.get("k", key -> { loads.incrementAndGet(); return Optional.of("v"); })).isEmpty();
+        assertThat(cache.negativeHitCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(2));
+        assertThat(cache.get("k", key -> { loads.incrementAndGet(); return Optional.of("v"); })).contains("v");
+        assertThat(cache.get("k", key -> { loads.incrementAndGet(); return Optional.of("other"); })).contains("v");
+
+        clock.advance(Duration.ofSeconds(11));
+        assertThat(cache.get("k", key -> { loads.incrementAndGet(); return Optional.of("fresh"); })).contains("fresh");
+
+        assertThat(loads).hasValue(3);
+        assertThat(cache.hitCount()).isEqualTo(2);
+        assertThat(cache.missCount()).isEqualTo(3);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-05-17T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.shared.common.cache;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-05-17T10:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void evictsDownToTheLowWaterMarkOnceTheBoundIsExceeded() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(20, clock);
+        long expiresAt = clock.millis() + 60_000;
+        for (int i = 0; i < 21; i++) {
+            cache.put(i, "v" + i, expiresAt);
+        }
+
+        assertThat(cache.size()).isEqualTo(18);
+        assertThat(cache.evictionCount()).isEqualTo(3);
+
+        cache.put(21, "v21", expiresAt);
+        cache.put(22, "v22", expiresAt);
+
+        assertThat(cache.size()).isEqualTo(20);
+        assertThat(cache.evictionCount()).isEqualTo(3);
+        assertThat(cache.get(22)).isEqualTo("v22");
+    }
+}
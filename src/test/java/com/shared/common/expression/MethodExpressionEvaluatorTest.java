@@ -0,0 +1,37 @@
+package com.shared.common.expression;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.EvaluationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MethodExpressionEvaluatorTest {
+
+    private final MethodExpressionEvaluator evaluator = new MethodExpressionEvaluator();
+
+    @Test
+    void evaluatesArgumentsAndResultAcrossRepeatedCompiledCalls() throws NoSuchMethodException {
+        Method method = OrderService.class.getDeclaredMethod("pay", String.class, int.class);
+
+        for (int i = 0; i < 200; i++) {
+            EvaluationContext context = evaluator.createContext(method, new Object[] {"order-" + i, i}, "PAID");
+
+            assertThat(evaluator.evaluate("#orderId + ':' + #result", method, OrderService.class, context, String.class))
+                    .isEqualTo("order-" + i + ":PAID");
+            assertThat(evaluator.evaluate("{'amount': #amount, 'method': #methodName}", method, OrderService.class,
+                    context, Map.class))
+                    .containsEntry("amount", i)
+                    .containsEntry("method", "pay");
+        }
+    }
+
+    static class OrderService {
+
+        String pay(String orderId, int amount) {
+            return "PAID";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.shared.entityaudit;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import com.shared.entityaudit.annotation.AuditField;
+import com.shared.entityaudit.descriptor.AbstractAuditableEntity;
+import com.shared.entityaudit.descriptor.AuditFieldState;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditFieldStateTest {
+
+    @Test
+    void auditStateUsesGeneratedExtractorWithInheritedFieldsFirst() {
+        PaidOrder order = new PaidOrder();
+        order.tenant = "acme";
+        order.status = "PAID";
+        order.total = new BigDecimal("12.50");
+        order.express = true;
+
+        Map<String, Object> state = order.auditState();
+
+        assertThat(state).isInstanceOf(AuditFieldState.class);
+        assertThat(state).containsExactly(
+                Map.entry("tenantId", "acme"),
+                Map.entry("status", "PAID"),
+                Map.entry("total", new BigDecimal("12.50")),
+                Map.entry("express", true));
+        assertThat(new Unannotated().auditState()).isEmpty();
+    }
+
+    static class TenantEntity extends AbstractAuditableEntity<Long> {
+
+        @AuditField("tenantId")
+        String tenant;
+    }
+
+    static class PaidOrder extends TenantEntity {
+
+        @AuditField
+        private String status;
+
+        @AuditField
+        BigDecimal total;
+
+        @AuditField
+        private boolean express;
+
+        private String internalNote;
+
+        public String getStatus() {
+            return status;
+        }
+
+        public boolean isExpress() {
+            return express;
+        }
+    }
+
+    static class Unannotated extends AbstractAuditableEntity<Long> {
+    }
+}
@@ -0,0 +1,112 @@
+package com.shared.entityaudit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.repository.EntityAuditRepository;
+import com.shared.entityaudit.service.BlockRecordNumberAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BlockRecordNumberAllocatorTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-05-17T10:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void leasesBlocksAndKeepsDatePrefix() {
+        AtomicLong sequence = new AtomicLong(1);
+        BlockRecordNumberAllocator allocator = new BlockRecordNumberAllocator(() -> sequence.getAndAdd(3), 3, clock);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            numbers.add(allocator.nextRecordNumber());
+        }
+
+        assertThat(numbers).containsExactly("202405171000001", "202405171000002", "202405171000003", "202405171000004");
+        assertThat(sequence.get()).isEqualTo(7);
+    }
+
+    @Test
+    void concurrentCallersNeverShareANumber() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicLong sequenceCalls = new AtomicLong();
+        BlockRecordNumberAllocator allocator = new BlockRecordNumberAllocator(() -> {
+            sequenceCalls.incrementAndGet();
+            return sequence.getAndAdd(100);
+        }, 100, clock);
+
+        int threads = 8;
+        int perThread = 5_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        seen.add(allocator.nextRecordNumber());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(seen).hasSize(threads * perThread);
+        assertThat(sequenceCalls.get()).isEqualTo(threads * perThread / 100);
+    }
+
+    @Test
+    void leasesBlocksFromTheSequenceIncrementAndRefusesASmallerOne() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try {
+            NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(database);
+            jdbcTemplate.getJdbcTemplate().execute("CREATE SEQUENCE entity_audit_record_number_seq INCREMENT BY 3");
+            EntityAuditProperties properties = new EntityAuditProperties();
+            properties.getRecordNumber().setSequence("entity_audit_record_number_seq");
+            properties.getRecordNumber().setNextValueSql("SELECT NEXT VALUE FOR %s");
+            EntityAuditRepository repository = new EntityAuditRepository(jdbcTemplate, properties);
+            long increment = repository.findRecordNumberSequenceIncrement().orElseThrow();
+
+            BlockRecordNumberAllocator first = new BlockRecordNumberAllocator(
+                    repository::nextRecordNumberSequenceValue, increment, 3, clock);
+            BlockRecordNumberAllocator second = new BlockRecordNumberAllocator(
+                    repository::nextRecordNumberSequenceValue, increment, 2, clock);
+
+            assertThat(increment).isEqualTo(3);
+            assertThat(List.of(first.nextRecordNumber(), second.nextRecordNumber(), second.nextRecordNumber(),
+                    second.nextRecordNumber(), first.nextRecordNumber()))
+                    .containsExactly("202405171000001", "202405171000004", "202405171000005",
+                            "202405171000007", "202405171000002");
+            assertThatThrownBy(() -> new BlockRecordNumberAllocator(repository::nextRecordNumberSequenceValue,
+                    increment, 4, clock))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("INCREMENT BY 4");
+        } finally {
+            database.shutdown();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.shared.entityaudit;
+
+import java.time.Clock;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.model.EntityAuditCheckpoint;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.model.EntityAuditRecord;
+import com.shared.entityaudit.model.EntityAuditVerificationReport;
+import com.shared.entityaudit.repository.EntityAuditCheckpointRepository;
+import com.shared.entityaudit.repository.EntityAuditRepository;
+import com.shared.entityaudit.service.EntityAuditChainVerifier;
+import com.shared.entityaudit.service.EntityAuditHashService;
+import com.shared.entityaudit.service.EntityAuditTrailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditChainVerifierIntegrationTest {
+
+    private EmbeddedDatabase database;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private EntityAuditProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(database);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE entity_audit_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    occurred_at TIMESTAMP(6) NOT NULL,
+                    audit_number VARCHAR(64) NOT NULL,
+                    record_number VARCHAR(64) NOT NULL,
+                    entity_type VARCHAR(64) NOT NULL,
+                    entity_id VARCHAR(128),
+                    operation VARCHAR(32) NOT NULL,
+                    performed_by VARCHAR(128),
+                    trace_id VARCHAR(64),
+                    metadata VARCHAR(4000),
+                    old_values VARCHAR(4000),
+                    new_values VARCHAR(4000),
+                    change_summary VARCHAR(512),
+                    client_ip VARCHAR(64),
+                    user_agent VARCHAR(256),
+                    prev_hash VARCHAR(64) NOT NULL,
+                    hash VARCHAR(64) NOT NULL,
+                    service_name VARCHAR(64),
+                    source_schema VARCHAR(64),
+                    source_table VARCHAR(64)
+                )
+                """);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE entity_audit_checkpoint (
+                    record_number VARCHAR(64) PRIMARY KEY,
+                    verified_id BIGINT NOT NULL,
+                    head_hash VARCHAR(64) NOT NULL,
+                    status VARCHAR(16) NOT NULL,
+                    broken_id BIGINT,
+                    checked_at TIMESTAMP NOT NULL
+                )
+                """);
+        properties = new EntityAuditProperties();
+        properties.setTableName("entity_audit_event");
+        properties.getVerification().setCheckpointTable("entity_audit_checkpoint");
+        properties.getVerification().setThreads(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void verifyNewRows_onlyRevisitsChainsWithNewRowsAndFlagsTampering() {
+        EntityAuditTrailService trailService = new EntityAuditTrailService(
+                new EntityAuditRepository(jdbcTemplate, properties), hashService(), Clock.systemUTC());
+        for (int i = 0; i < 3; i++) {
+            trailService.recordChange(request("ORDER-1", i));
+            trailService.recordChange(request("ORDER-2", i));
+        }
+        EntityAuditChainVerifier verifier = newVerifier();
+
+        EntityAuditVerificationReport first = verifier.verifyNewRows();
+
+        assertThat(first.valid()).isTrue();
+        assertThat(first.recordNumbers()).isEqualTo(2);
+        assertThat(first.rowsChecked()).isEqualTo(6);
+
+        EntityAuditRecord appended = trailService.recordChange(request("ORDER-1", 3));
+        EntityAuditVerificationReport second = verifier.verifyNewRows();
+
+        assertThat(second.valid()).isTrue();
+        assertThat(second.recordNumbers()).isEqualTo(1);
+        assertThat(second.rowsChecked()).isEqualTo(1);
+
+        EntityAuditRecord tampered = trailService.recordChange(request("ORDER-2", 3));
+        jdbcTemplate.update("UPDATE entity_audit_event SET performed_by = 'intruder' WHERE id = :id",
+                Map.of("id", tampered.getId()));
+        EntityAuditVerificationReport third = verifier.verifyNewRows();
+
+        assertThat(third.failures()).singleElement().satisfies(checkpoint -> {
+            assertThat(checkpoint.recordNumber()).isEqualTo("ORDER-2");
+            assertThat(checkpoint.status()).isEqualTo(EntityAuditCheckpoint.Status.BROKEN);
+            assertThat(checkpoint.brokenId()).isEqualTo(tampered.getId());
+        });
+        assertThat(new EntityAuditCheckpointRepository(jdbcTemplate, properties).find("ORDER-1"))
+                .hasValueSatisfying(checkpoint -> assertThat(checkpoint.verifiedId()).isEqualTo(appended.getId()));
+    }
+
+    @Test
+    void verifyNewRows_picksUpRowsCommittedBelowTheWatermark() {
+        EntityAuditTrailService trailService = new EntityAuditTrailService(
+                new EntityAuditRepository(jdbcTemplate, properties), hashService(), Clock.systemUTC());
+        trailService.recordChange(request("ORDER-1", 0));
+        EntityAuditRecord late = trailService.recordChange(request("ORDER-2", 0));
+        trailService.recordChange(request("ORDER-1", 1));
+        // Hide ORDER-2's row as if its transaction had not committed yet.
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE late_row AS SELECT * FROM entity_audit_event WHERE id = "
+                + late.getId());
+        jdbcTemplate.update("DELETE FROM entity_audit_event WHERE id = :id", Map.of("id", late.getId()));
+        EntityAuditChainVerifier verifier = newVerifier();
+
+        assertThat(verifier.verifyNewRows().recordNumbers()).isEqualTo(1);
+
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO entity_audit_event SELECT * FROM late_row");
+        EntityAuditVerificationReport report = verifier.verifyNewRows();
+
+        assertThat(report.valid()).isTrue();
+        assertThat(report.recordNumbers()).isEqualTo(1);
+        assertThat(new EntityAuditCheckpointRepository(jdbcTemplate, properties).find("ORDER-2"))
+                .hasValueSatisfying(checkpoint -> assertThat(checkpoint.verifiedId()).isEqualTo(late.getId()));
+    }
+
+    private EntityAuditChainVerifier newVerifier() {
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(database));
+        readOnly.setReadOnly(true);
+        return new EntityAuditChainVerifier(new EntityAuditRepository(jdbcTemplate, properties),
+                new EntityAuditCheckpointRepository(jdbcTemplate, properties), hashService(), readOnly,
+                properties.getVerification(), Clock.systemUTC());
+    }
+
+    private EntityAuditHashService hashService() {
+        return new EntityAuditHashService(properties, new ObjectMapper());
+    }
+
+    private EntityAuditEventRequest request(String recordNumber, int version) {
+        EntityAuditEventRequest request = new EntityAuditEventRequest();
+        request.setRecordNumber(recordNumber);
+        request.setEntityType("ORDER");
+        request.setEntityId(recordNumber);
+        request.setOperation(version == 0 ? "CREATE" : "UPDATE");
+        request.setPerformedBy("user-1");
+        request.setNewValues(Map.of("version", version));
+        return request;
+    }
+}
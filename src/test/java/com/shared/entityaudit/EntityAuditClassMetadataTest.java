@@ -0,0 +1,45 @@
+package com.shared.entityaudit;
+
+import com.shared.entityaudit.descriptor.AbstractAuditableEntity;
+import com.shared.entityaudit.descriptor.EntityAuditClassMetadata;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditClassMetadataTest {
+
+    @Test
+    void resolvesTableNameTypeAndIdOncePerClass() {
+        OrderEntity order = new OrderEntity(42L);
+
+        EntityAuditClassMetadata metadata = EntityAuditClassMetadata.forClass(OrderEntity.class);
+
+        assertThat(EntityAuditClassMetadata.forClass(OrderEntity.class)).isSameAs(metadata);
+        assertThat(metadata.tableName()).isEqualTo("sales.orders");
+        assertThat(metadata.entityType()).isEqualTo("OrderEntity");
+        assertThat(order.entityId()).isEqualTo("42");
+        assertThat(EntityAuditClassMetadata.forClass(NamedEntity.class).tableName()).isEqualTo("Named");
+        assertThat(EntityAuditClassMetadata.forClass(NamedEntity.class).readId(new NamedEntity())).isNull();
+    }
+
+    @Entity
+    @Table(schema = "sales", name = "orders")
+    static class OrderEntity extends AbstractAuditableEntity<Long> {
+
+        private final Long id;
+
+        OrderEntity(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    @Entity(name = "Named")
+    static class NamedEntity {
+    }
+}
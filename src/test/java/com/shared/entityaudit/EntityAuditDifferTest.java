@@ -0,0 +1,55 @@
+package com.shared.entityaudit;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.service.EntityAuditDiffer;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditDifferTest {
+
+    @Test
+    void keepsOnlyChangedFieldsAndSummarisesThem() {
+        EntityAuditProperties.DiffProperties properties = new EntityAuditProperties.DiffProperties();
+        properties.setAlwaysInclude(List.of("version"));
+        EntityAuditDiffer differ = new EntityAuditDiffer(properties);
+
+        EntityAuditDiffer.StateDiff diff = differ.diff(
+                state("status", "NEW", "total", 10, "version", 3, "tags", List.of("a"),
+                        "address", Map.of("city", "Pune", "zip", "411001")),
+                state("status", "PAID", "total", new BigDecimal("10.00"), "version", 3, "tags", List.of("a"),
+                        "address", Map.of("city", "Mumbai", "zip", "411001")));
+
+        assertThat(diff.oldValues()).containsOnly(
+                Map.entry("status", "NEW"), Map.entry("address", Map.of("city", "Pune")), Map.entry("version", 3));
+        assertThat(diff.newValues()).containsOnly(
+                Map.entry("status", "PAID"), Map.entry("address", Map.of("city", "Mumbai")), Map.entry("version", 3));
+        assertThat(differ.summarize(diff)).isEqualTo("status: NEW -> PAID; address.city: Pune -> Mumbai");
+    }
+
+    @Test
+    void reportsNoChangeWhenOnlyAlwaysIncludedOrEqualValuesRemain() {
+        EntityAuditProperties.DiffProperties properties = new EntityAuditProperties.DiffProperties();
+        properties.setAlwaysInclude(List.of("version"));
+        properties.setSummaryMaxLength(30);
+        EntityAuditDiffer differ = new EntityAuditDiffer(properties);
+
+        assertThat(differ.diff(Map.of("version", 1, "items", List.of(1, 2)), Map.of("version", 1, "items", List.of(1L, 2L)))
+                .isEmpty()).isTrue();
+        assertThat(differ.summarize(differ.diff(state("a", "1", "b", "2", "c", "3"), state("a", "x", "b", "y", "c", "z"))))
+                .isEqualTo("a: 1 -> x; b: 2 -> y (+1 more)");
+    }
+
+    private static Map<String, Object> state(Object... keyValuePairs) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        for (int i = 0; i < keyValuePairs.length; i += 2) {
+            state.put((String) keyValuePairs[i], keyValuePairs[i + 1]);
+        }
+        return state;
+    }
+}
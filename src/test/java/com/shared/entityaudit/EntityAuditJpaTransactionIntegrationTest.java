@@ -0,0 +1,223 @@
+package com.shared.entityaudit;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.descriptor.AbstractAuditableEntity;
+import com.shared.entityaudit.listener.EntityAuditListenerDelegate;
+import com.shared.entityaudit.listener.EntityAuditTransactionBuffer;
+import com.shared.entityaudit.listener.SharedEntityAuditListener;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.repository.EntityAuditRepository;
+import com.shared.entityaudit.service.EntityAuditDiffer;
+import com.shared.entityaudit.service.EntityAuditHashService;
+import com.shared.entityaudit.service.EntityAuditTrailService;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditJpaTransactionIntegrationTest {
+
+    private EmbeddedDatabase database;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private TransactionTemplate transactions;
+    private EntityAuditTransactionBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(database);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE entity_audit_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    occurred_at TIMESTAMP(6) NOT NULL,
+                    audit_number VARCHAR(64) NOT NULL,
+                    record_number VARCHAR(64) NOT NULL,
+                    entity_type VARCHAR(64) NOT NULL,
+                    entity_id VARCHAR(128),
+                    operation VARCHAR(32) NOT NULL,
+                    performed_by VARCHAR(128),
+                    trace_id VARCHAR(64),
+                    metadata VARCHAR(4000),
+                    old_values VARCHAR(4000),
+                    new_values VARCHAR(4000),
+                    change_summary VARCHAR(512),
+                    client_ip VARCHAR(64),
+                    user_agent VARCHAR(256),
+                    prev_hash VARCHAR(64) NOT NULL,
+                    hash VARCHAR(64) NOT NULL,
+                    service_name VARCHAR(64),
+                    source_schema VARCHAR(64),
+                    source_table VARCHAR(64)
+                )
+                """);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE SEQUENCE entity_audit_record_number_seq");
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(database);
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setManagedTypes(PersistenceManagedTypes.of(AuditedOrder.class.getName()));
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create"));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+
+        EntityAuditProperties properties = new EntityAuditProperties();
+        properties.setTableName("entity_audit_event");
+        properties.getRecordNumber().setSequence("entity_audit_record_number_seq");
+        properties.getRecordNumber().setNextValueSql("SELECT NEXT VALUE FOR %s");
+        EntityAuditHelper helper = new EntityAuditHelper(new EntityAuditTrailService(
+                new EntityAuditRepository(jdbcTemplate, properties),
+                new EntityAuditHashService(properties, new ObjectMapper()), Clock.systemUTC()));
+        EntityAuditDiffer differ = new EntityAuditDiffer(properties.getDiff());
+
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactions = new TransactionTemplate(transactionManager);
+        TransactionTemplate writerTransactions = new TransactionTemplate(transactionManager);
+        writerTransactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        buffer = new EntityAuditTransactionBuffer(helper, entityManagerFactory, writerTransactions,
+                properties.getBuffering(), differ);
+        SharedEntityAuditListener.setDelegate(new EntityAuditListenerDelegate(helper, buffer, differ));
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.close();
+        entityManagerFactory.close();
+        database.shutdown();
+    }
+
+    @Test
+    void writesChangesFirstRaisedByTheCommitFlush() {
+        // With an assigned id, PostPersist fires only when the commit flushes.
+        transactions.executeWithoutResult(status -> entityManager.persist(new AuditedOrder(1L, "NEW")));
+        // Dirty checking raises PostUpdate inside JpaTransactionManager.doCommit.
+        transactions.executeWithoutResult(status -> entityManager.find(AuditedOrder.class, 1L).status = "PAID");
+
+        assertThat(rows()).containsExactly(
+                Map.of("ENTITY_ID", "1", "OPERATION", "CREATE", "NEW_VALUES", "{\"status\":\"NEW\"}"),
+                Map.of("ENTITY_ID", "1", "OPERATION", "UPDATE",
+                        "OLD_VALUES", "{\"status\":\"NEW\"}", "NEW_VALUES", "{\"status\":\"PAID\"}"));
+    }
+
+    @Test
+    void writesChangesRegisteredAfterBeforeCommitInTheirOwnTransaction() {
+        AuditedOrder order = new AuditedOrder(2L, "NEW");
+        transactions.executeWithoutResult(status -> TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        EntityAuditEventRequest request = new EntityAuditEventRequest();
+                        request.setEntityType("AuditedOrder");
+                        request.setEntityId("2");
+                        request.setOperation("CREATE");
+                        request.setNewValues(Map.of("status", "NEW"));
+                        assertThat(buffer.buffer(order, request)).isTrue();
+                    }
+                }));
+
+        assertThat(rows()).containsExactly(
+                Map.of("ENTITY_ID", "2", "OPERATION", "CREATE", "NEW_VALUES", "{\"status\":\"NEW\"}"));
+    }
+
+    @Test
+    void mergingADetachedEntityKeepsTheStoredValuesAsOldValues() {
+        transactions.executeWithoutResult(status -> entityManager.persist(new AuditedOrder(3L, "NEW")));
+        AuditedOrder detached = new AuditedOrder(3L, "SHIPPED");
+
+        transactions.executeWithoutResult(status -> entityManager.merge(detached));
+
+        assertThat(rows()).last().isEqualTo(Map.of("ENTITY_ID", "3", "OPERATION", "UPDATE",
+                "OLD_VALUES", "{\"status\":\"NEW\"}", "NEW_VALUES", "{\"status\":\"SHIPPED\"}"));
+    }
+
+    @Test
+    void openInViewKeepsThePreviousStateAcrossTransactionsUntilTheRequestEnds() {
+        transactions.executeWithoutResult(status -> entityManager.persist(new AuditedOrder(4L, "NEW")));
+        ServletRequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        EntityManager openInView = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(openInView));
+        try {
+            AuditedOrder order = transactions.execute(status -> entityManager.find(AuditedOrder.class, 4L));
+            transactions.executeWithoutResult(status -> order.status = "PAID");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            openInView.close();
+            request.requestCompleted();
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(rows()).last().isEqualTo(Map.of("ENTITY_ID", "4", "OPERATION", "UPDATE",
+                "OLD_VALUES", "{\"status\":\"NEW\"}", "NEW_VALUES", "{\"status\":\"PAID\"}"));
+    }
+
+    private List<Map<String, Object>> rows() {
+        return jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT entity_id, operation, old_values, new_values FROM entity_audit_event ORDER BY id").stream()
+                .map(row -> {
+                    row.values().removeIf(value -> value == null);
+                    return row;
+                })
+                .toList();
+    }
+
+    @Entity
+    @EntityListeners(SharedEntityAuditListener.class)
+    static class AuditedOrder extends AbstractAuditableEntity<Long> {
+
+        @Id
+        private Long id;
+
+        private String status;
+
+        protected AuditedOrder() {
+        }
+
+        AuditedOrder(Long id, String status) {
+            this.id = id;
+            this.status = status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Map<String, Object> auditState() {
+            return auditStateOf("status", status);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.shared.entityaudit;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shared.config.EntityAuditProperties;
+import com.shared.entityaudit.descriptor.EntityAuditDescriptor;
+import com.shared.entityaudit.listener.EntityAuditTransactionBuffer;
+import com.shared.entityaudit.model.EntityAuditEventRequest;
+import com.shared.entityaudit.repository.EntityAuditRepository;
+import com.shared.entityaudit.service.EntityAuditDiffer;
+import com.shared.entityaudit.service.EntityAuditHashService;
+import com.shared.entityaudit.service.EntityAuditTrailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditTransactionBufferIntegrationTest {
+
+    private static final EntityAuditDescriptor DESCRIPTOR = new EntityAuditDescriptor() {
+        @Override
+        public String entityType() {
+            return "ORDER";
+        }
+
+        @Override
+        public String entityId() {
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> auditState() {
+            return Map.of();
+        }
+    };
+
+    private EmbeddedDatabase database;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactions;
+    private EntityAuditTransactionBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(database);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                CREATE TABLE entity_audit_event (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    occurred_at TIMESTAMP(6) NOT NULL,
+                    audit_number VARCHAR(64) NOT NULL,
+                    record_number VARCHAR(64) NOT NULL,
+                    entity_type VARCHAR(64) NOT NULL,
+                    entity_id VARCHAR(128),
+                    operation VARCHAR(32) NOT NULL,
+                    performed_by VARCHAR(128),
+                    trace_id VARCHAR(64),
+                    metadata VARCHAR(4000),
+                    old_values VARCHAR(4000),
+                    new_values VARCHAR(4000),
+                    change_summary VARCHAR(512),
+                    client_ip VARCHAR(64),
+                    user_agent VARCHAR(256),
+                    prev_hash VARCHAR(64) NOT NULL,
+                    hash VARCHAR(64) NOT NULL,
+                    service_name VARCHAR(64),
+                    source_schema VARCHAR(64),
+                    source_table VARCHAR(64)
+                )
+                """);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE SEQUENCE entity_audit_record_number_seq");
+
+        EntityAuditProperties properties = new EntityAuditProperties();
+        properties.setTableName("entity_audit_event");
+        properties.getRecordNumber().setSequence("entity_audit_record_number_seq");
+        properties.getRecordNumber().setNextValueSql("SELECT NEXT VALUE FOR %s");
+
+        EntityAuditTrailService trailService = new EntityAuditTrailService(
+                new EntityAuditRepository(jdbcTemplate, properties),
+                new EntityAuditHashService(properties, new ObjectMapper()), Clock.systemUTC());
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(database));
+        buffer = new EntityAuditTransactionBuffer(new EntityAuditHelper(trailService), null, null,
+                properties.getBuffering(), new EntityAuditDiffer(properties.getDiff()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        buffer.close();
+        database.shutdown();
+    }
+
+    @Test
+    void collapsesChangesPerEntityAndWritesNetChangesAtCommit() {
+        transactions.executeWithoutResult(status -> {
+            assertThat(buffer.buffer(DESCRIPTOR, request("1", "CREATE", null, Map.of("status", "NEW")))).isTrue();
+            buffer.buffer(DESCRIPTOR, request("1", "UPDATE", Map.of("status", "NEW"), Map.of("status", "PAID")));
+            buffer.buffer(DESCRIPTOR, request("2", "UPDATE", Map.of("amount", 10), Map.of("amount", 20)));
+            buffer.buffer(DESCRIPTOR, request("2", "UPDATE", Map.of("amount", 20), Map.of("amount", 10)));
+            buffer.buffer(DESCRIPTOR, request("3", "CREATE", null, Map.of("status", "NEW")));
+            buffer.buffer(DESCRIPTOR, request("3", "DELETE", Map.of("status", "NEW"), null));
+            buffer.buffer(DESCRIPTOR, request("4", "UPDATE", Map.of("status", "NEW"), Map.of("status", "PAID")));
+            buffer.buffer(DESCRIPTOR, request("4", "DELETE", Map.of("status", "PAID"), null));
+
+            assertThat(rows()).isEmpty();
+        });
+
+        assertThat(rows()).containsExactly(
+                Map.of("ENTITY_ID", "1", "OPERATION", "CREATE", "NEW_VALUES", "{\"status\":\"PAID\"}"),
+                Map.of("ENTITY_ID", "4", "OPERATION", "DELETE", "OLD_VALUES", "{\"status\":\"NEW\"}"));
+    }
+
+    @Test
+    void discardsBufferedChangesOnRollbackAndWritesDirectlyOutsideTransactions() {
+        transactions.executeWithoutResult(status -> {
+            buffer.buffer(DESCRIPTOR, request("1", "CREATE", null, Map.of("status", "NEW")));
+            status.setRollbackOnly();
+        });
+
+        assertThat(rows()).isEmpty();
+        assertThat(buffer.buffer(DESCRIPTOR, request("1", "CREATE", null, Map.of("status", "NEW")))).isFalse();
+    }
+
+    private List<Map<String, Object>> rows() {
+        return jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT entity_id, operation, old_values, new_values FROM entity_audit_event ORDER BY id").stream()
+                .map(row -> {
+                    row.values().removeIf(value -> value == null);
+                    return row;
+                })
+                .toList();
+    }
+
+    private static EntityAuditEventRequest request(String entityId, String operation,
+                                                   Map<String, Object> oldValues, Map<String, Object> newValues) {
+        EntityAuditEventRequest request = new EntityAuditEventRequest();
+        request.setEntityType("ORDER");
+        request.setEntityId(entityId);
+        request.setOperation(operation);
+        request.setOldValues(oldValues);
+        request.setNewValues(newValues);
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package com.shared.entityaudit.listener;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityAuditSnapshotHolderTest {
+
+    @AfterEach
+    void tearDown() {
+        EntityAuditSnapshotHolder.setMaxEntries(EntityAuditSnapshotHolder.DEFAULT_MAX_ENTRIES);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void releasesTransactionSnapshotsAtCompletion() {
+        Object order = new Object();
+        TransactionSynchronizationManager.initSynchronization();
+        EntityAuditSnapshotHolder.capture(order, Map.of("status", "NEW"));
+        assertThat(EntityAuditSnapshotHolder.get(order)).containsExactly(Map.entry("status", "NEW"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+        assertThat(EntityAuditSnapshotHolder.get(order)).isEmpty();
+    }
+
+    @Test
+    void releasesThreadSnapshotsWhenTheRequestCompletes() {
+        Object order = new Object();
+        ServletRequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        try {
+            EntityAuditSnapshotHolder.capture(order, Map.of("status", "NEW"));
+            assertThat(EntityAuditSnapshotHolder.get(order)).containsExactly(Map.entry("status", "NEW"));
+
+            request.requestCompleted();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(EntityAuditSnapshotHolder.get(order)).isEmpty();
+    }
+
+    @Test
+    void skipsCapturesBeyondTheLimitAndCountsThem() {
+        EntityAuditSnapshotHolder.setMaxEntries(1);
+        Object first = new Object();
+        Object second = new Object();
+        long overflows = EntityAuditSnapshotHolder.overflowCount();
+
+        EntityAuditSnapshotHolder.capture(first, Map.of("status", "NEW"));
+        EntityAuditSnapshotHolder.capture(second, Map.of("status", "NEW"));
+        EntityAuditSnapshotHolder.capture(first, Map.of("status", "PAID"));
+
+        assertThat(EntityAuditSnapshotHolder.get(first)).containsExactly(Map.entry("status", "PAID"));
+        assertThat(EntityAuditSnapshotHolder.get(second)).isEmpty();
+        assertThat(EntityAuditSnapshotHolder.overflowCount()).isEqualTo(overflows + 1);
+
+        EntityAuditSnapshotHolder.remove(first);
+        EntityAuditSnapshotHolder.clearIfEmpty(first);
+        assertThat(EntityAuditSnapshotHolder.get(first)).isEmpty();
+    }
+}
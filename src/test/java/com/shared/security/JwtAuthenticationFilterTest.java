@@ -0,0 +1,181 @@
+package com.shared.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.shared.config.SecurityProperties;
+import com.shared.security.client.TokenIntrospectionClient;
+import com.shared.security.client.TokenIntrospectionClient.TokenIntrospectionResult;
+import com.shared.security.client.TokenIntrospectionResponse;
+import com.shared.security.revocation.TokenRevocation;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+
+    private final MutableClock clock = new MutableClock();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void verifiedTokensAreServedFromCacheUntilTheyExpire() throws Exception {
+        JwtConfig config = config();
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), clock);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(config, null, cache);
+        String token = token(clock.instant().plus(Duration.ofMinutes(1)));
+
+        assertThat(filter(filter, token).getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("alice");
+
+        SecurityContextHolder.clearContext();
+        assertThat(filter(filter, token).getStatus()).isEqualTo(200);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("alice");
+        assertThat(cache.hitCount()).isEqualTo(1);
+
+        // Expired entries are verified again rather than served.
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(filter(filter, token).getStatus()).isEqualTo(200);
+        assertThat(cache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedTokensAreVerifiedAgainAfterTheKeyChanges() throws Exception {
+        JwtConfig config = config();
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), clock);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(config, null, cache);
+        String token = token(clock.instant().plus(Duration.ofMinutes(1)));
+
+        assertThat(filter(filter, token).getStatus()).isEqualTo(200);
+        config.setSecret(SECRET.replace('0', '1'));
+        SecurityContextHolder.clearContext();
+
+        assertThat(filter(filter, token).getStatus()).isEqualTo(401);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void introspectedTokensAreCachedNoLongerThanTheIntrospectionTtl() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), Duration.ofSeconds(30), clock);
+        AtomicInteger introspections = new AtomicInteger();
+        TokenIntrospectionResponse introspection = new TokenIntrospectionResponse();
+        introspection.setActive(true);
+        introspection.setSubject("alice");
+        TokenIntrospectionClient client = new TokenIntrospectionClient(new RestTemplate(),
+                new SecurityProperties.IntrospectionProperties()) {
+            @Override
+            public TokenIntrospectionResult introspect(String token) {
+                introspections.incrementAndGet();
+                return TokenIntrospectionResult.active(introspection);
+            }
+        };
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(config(), client, cache);
+        String token = token(clock.instant().plus(Duration.ofMinutes(10)));
+
+        filter(filter, token);
+        clock.advance(Duration.ofSeconds(20));
+        filter(filter, token);
+        assertThat(introspections).hasValue(1);
+
+        clock.advance(Duration.ofSeconds(11));
+        filter(filter, token);
+        assertThat(introspections).hasValue(2);
+
+        introspection.setExpiresAt(clock.instant().plus(Duration.ofSeconds(5)));
+        cache.clear();
+        filter(filter, token);
+        clock.advance(Duration.ofSeconds(6));
+        filter(filter, token);
+        assertThat(introspections).hasValue(4);
+    }
+
+    @Test
+    void tokensIntrospectedWhileARevocationArrivesAreNotCached() throws Exception {
+        JwtConfig config = config();
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, Duration.ofMinutes(5), clock);
+        TokenIntrospectionResponse introspection = new TokenIntrospectionResponse();
+        introspection.setActive(true);
+        introspection.setSubject("alice");
+        introspection.setTokenId("jti-1");
+        TokenIntrospectionClient client = new TokenIntrospectionClient(new RestTemplate(),
+                new SecurityProperties.IntrospectionProperties()) {
+            @Override
+            public TokenIntrospectionResult introspect(String token) {
+                // The revocation lands after the filter missed the cache and before it stores the result.
+                cache.onRevocation(TokenRevocation.ofToken("jti-1"));
+                return TokenIntrospectionResult.active(introspection);
+            }
+        };
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(config, client, cache);
+
+        assertThat(filter(filter, token(clock.instant().plus(Duration.ofMinutes(1)))).getStatus()).isEqualTo(200);
+        assertThat(cache.size()).isZero();
+    }
+
+    private static JwtConfig config() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setIssuer("auth");
+        config.setAudience("api");
+        return config;
+    }
+
+    private String token(Instant expiration) {
+        return Jwts.builder()
+                .subject("alice")
+                .issuer("auth")
+                .audience().add("api").and()
+                .expiration(Date.from(expiration))
+                .signWith(JwtTokenParser.signingKey(SECRET))
+                .compact();
+    }
+
+    private static MockHttpServletResponse filter(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.shared.security;
+
+import java.util.HexFormat;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtTokenParserTest {
+
+    private static final String HEX_SECRET = "00112233445566778899aabbccddeeff00112233445566778899aabbccddeeff";
+    private static final String TEXT_SECRET = "an-unencoded-secret-that-is-long-enough!";
+
+    @Test
+    void parsesWithCachedKeyAndRebuildsWhenTheSecretChanges() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(HEX_SECRET);
+        config.setIssuer("auth");
+        config.setAudience("api");
+        JwtTokenParser parser = new JwtTokenParser(config);
+
+        String hexSigned = token(JwtTokenParser.signingKey(HEX_SECRET).getEncoded());
+        assertThat(JwtTokenParser.signingKey(HEX_SECRET).getEncoded()).isEqualTo(HexFormat.of().parseHex(HEX_SECRET));
+        assertThat(parser.parse(hexSigned).getSubject()).isEqualTo("alice");
+        assertThat(parser.parse(hexSigned).getSubject()).isEqualTo("alice");
+
+        config.setSecret(TEXT_SECRET);
+        String textSigned = token(JwtTokenParser.signingKey(TEXT_SECRET).getEncoded());
+        assertThat(parser.parse(textSigned).getSubject()).isEqualTo("alice");
+        assertThatThrownBy(() -> parser.parse(hexSigned)).isInstanceOf(SignatureException.class);
+    }
+
+    private static String token(byte[] key) {
+        return Jwts.builder()
+                .subject("alice")
+                .issuer("auth")
+                .audience().add("api").and()
+                .signWith(Keys.hmacShaKeyFor(key))
+                .compact();
+    }
+}
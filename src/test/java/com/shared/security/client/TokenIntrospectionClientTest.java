@@ -0,0 +1,276 @@
+package com.shared.security.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.shared.config.SecurityProperties;
+import com.shared.security.client.TokenIntrospectionClient.TokenIntrospectionResult;
+import com.shared.security.revocation.InMemoryTokenRevocationFeed;
+import com.shared.security.revocation.TokenRevocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenIntrospectionClientTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void concurrentLookupsShareOneCallAndActiveResultsEndAtExpiresAt() throws Exception {
+        TokenIntrospectionResponse body = new TokenIntrospectionResponse();
+        body.setActive(true);
+        body.setSubject("alice");
+        body.setExpiresAt(clock.instant().plus(Duration.ofSeconds(10)));
+        StubRestTemplate rest = new StubRestTemplate(body);
+        rest.release = new CountDownLatch(1);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties(), clock);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TokenIntrospectionResult>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> client.introspect("token-a")));
+            }
+            assertThat(rest.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            rest.release.countDown();
+            for (Future<TokenIntrospectionResult> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(TokenIntrospectionResult.Status.ACTIVE);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(rest.calls).hasValue(1);
+
+        // Capped by expiresAt (10s) rather than max-ttl (30s).
+        clock.advance(Duration.ofSeconds(11));
+        client.introspect("token-a");
+        assertThat(rest.calls).hasValue(2);
+    }
+
+    @Test
+    void inactiveResultsAreCachedBrieflyAndErrorsNotAtAll() {
+        TokenIntrospectionResponse body = new TokenIntrospectionResponse();
+        body.setActive(false);
+        StubRestTemplate rest = new StubRestTemplate(body);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties(), clock);
+
+        assertThat(client.introspect("token-b").getStatus()).isEqualTo(TokenIntrospectionResult.Status.INACTIVE);
+        assertThat(client.introspect("token-b").getStatus()).isEqualTo(TokenIntrospectionResult.Status.INACTIVE);
+        assertThat(rest.calls).hasValue(1);
+        clock.advance(Duration.ofSeconds(6));
+        client.introspect("token-b");
+        assertThat(rest.calls).hasValue(2);
+
+        rest.status = HttpStatus.SERVICE_UNAVAILABLE;
+        assertThat(client.introspect("token-c").getStatus()).isEqualTo(TokenIntrospectionResult.Status.ERROR);
+        assertThat(client.introspect("token-c").getStatus()).isEqualTo(TokenIntrospectionResult.Status.ERROR);
+        assertThat(rest.calls).hasValue(4);
+    }
+
+    @Test
+    void revocationsEvictMatchingResults() {
+        TokenIntrospectionResponse body = new TokenIntrospectionResponse();
+        body.setActive(true);
+        body.setTokenId("jti-1");
+        body.setUserId(7L);
+        body.setPermissionVersion(2);
+        StubRestTemplate rest = new StubRestTemplate(body);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties(), clock);
+        InMemoryTokenRevocationFeed feed = new InMemoryTokenRevocationFeed();
+        feed.addListener(client);
+
+        client.introspect("token-d");
+        feed.publish(TokenRevocation.ofToken("jti-other"));
+        feed.publish(TokenRevocation.ofUser(7L, 2));
+        client.introspect("token-d");
+        assertThat(rest.calls).hasValue(1);
+
+        feed.publish(TokenRevocation.ofUser(7L, 3));
+        client.introspect("token-d");
+        assertThat(rest.calls).hasValue(2);
+        feed.publish(TokenRevocation.ofToken("jti-1"));
+        client.introspect("token-d");
+        assertThat(rest.calls).hasValue(3);
+    }
+
+    @Test
+    void resultsFetchedWhileARevocationArrivesAreNotCached() throws Exception {
+        TokenIntrospectionResponse body = new TokenIntrospectionResponse();
+        body.setActive(true);
+        body.setTokenId("jti-1");
+        StubRestTemplate rest = new StubRestTemplate(body);
+        rest.release = new CountDownLatch(1);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties(), clock);
+        InMemoryTokenRevocationFeed feed = new InMemoryTokenRevocationFeed();
+        feed.addListener(client);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<TokenIntrospectionResult> result = caller.submit(() -> client.introspect("token-e"));
+            assertThat(rest.entered.await(5, TimeUnit.SECONDS)).isTrue();
+            // Nothing is cached yet, so the revocation evicts nothing.
+            feed.publish(TokenRevocation.ofToken("jti-1"));
+            rest.release.countDown();
+            assertThat(result.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(TokenIntrospectionResult.Status.ACTIVE);
+        } finally {
+            caller.shutdownNow();
+        }
+
+        rest.release = null;
+        client.introspect("token-e");
+        assertThat(rest.calls).hasValue(2);
+        client.introspect("token-e");
+        assertThat(rest.calls).hasValue(2);
+    }
+
+    @Test
+    void concurrentLookupsOfDistinctTokensAreSentAsOneBatch() throws Exception {
+        StubRestTemplate rest = new StubRestTemplate(null);
+        SecurityProperties.IntrospectionProperties properties = properties();
+        properties.getBatch().setEnabled(true);
+        properties.getBatch().setWindow(Duration.ofSeconds(5)); // only a full batch is sent
+        properties.getBatch().setMaxSize(4);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties, clock);
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TokenIntrospectionResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String token = "token-" + i;
+                results.add(callers.submit(() -> client.introspect(token)));
+            }
+            for (int i = 0; i < 4; i++) {
+                TokenIntrospectionResult result = results.get(i).get(10, TimeUnit.SECONDS);
+                assertThat(result.getStatus()).isEqualTo(TokenIntrospectionResult.Status.ACTIVE);
+                assertThat(result.getResponse()).get().extracting(TokenIntrospectionResponse::getSubject).isEqualTo("token-" + i);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(rest.batchCalls).hasValue(1);
+        assertThat(rest.calls).hasValue(0);
+    }
+
+    @Test
+    void missingBatchEndpointFallsBackToPerTokenCalls() throws Exception {
+        TokenIntrospectionResponse body = new TokenIntrospectionResponse();
+        body.setActive(true);
+        StubRestTemplate rest = new StubRestTemplate(body);
+        rest.batchSupported = false;
+        SecurityProperties.IntrospectionProperties properties = properties();
+        properties.getBatch().setEnabled(true);
+        properties.getBatch().setWindow(Duration.ofSeconds(5));
+        properties.getBatch().setMaxSize(2);
+        TokenIntrospectionClient client = new TokenIntrospectionClient(rest, properties, clock);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<TokenIntrospectionResult> first = callers.submit(() -> client.introspect("token-e"));
+            Future<TokenIntrospectionResult> second = callers.submit(() -> client.introspect("token-f"));
+            assertThat(first.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(TokenIntrospectionResult.Status.ACTIVE);
+            assertThat(second.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(TokenIntrospectionResult.Status.ACTIVE);
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(rest.batchCalls).hasValue(1);
+        assertThat(rest.calls).hasValue(2);
+
+        // The batch endpoint is not tried again, and a lone lookup does not wait out the window.
+        client.introspect("token-g");
+        assertThat(rest.batchCalls).hasValue(1);
+        assertThat(rest.calls).hasValue(3);
+    }
+
+    private static SecurityProperties.IntrospectionProperties properties() {
+        SecurityProperties.IntrospectionProperties properties = new SecurityProperties.IntrospectionProperties();
+        properties.setUrl("http://auth/internal/introspect");
+        return properties;
+    }
+
+    private static final class StubRestTemplate extends RestTemplate {
+
+        private final TokenIntrospectionResponse body;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger batchCalls = new AtomicInteger();
+        private volatile boolean batchSupported = true;
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch release;
+        private volatile HttpStatus status = HttpStatus.OK;
+
+        private StubRestTemplate(TokenIntrospectionResponse body) {
+            this.body = body;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType, Object... uriVariables) {
+            if (responseType == TokenIntrospectionBatchResponse.class) {
+                assertThat(url).isEqualTo("http://auth/internal/introspect/batch");
+                batchCalls.incrementAndGet();
+                if (!batchSupported) {
+                    throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+                }
+                List<TokenIntrospectionResponse> results = new ArrayList<>();
+                for (String token : ((TokenIntrospectionBatchRequest) ((HttpEntity<?>) request).getBody()).getTokens()) {
+                    TokenIntrospectionResponse result = new TokenIntrospectionResponse();
+                    result.setActive(true);
+                    result.setSubject(token);
+                    results.add(result);
+                }
+                TokenIntrospectionBatchResponse batch = new TokenIntrospectionBatchResponse();
+                batch.setResults(results);
+                return (ResponseEntity<T>) new ResponseEntity<>(batch, HttpStatus.OK);
+            }
+            calls.incrementAndGet();
+            entered.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return (ResponseEntity<T>) new ResponseEntity<>(status.is2xxSuccessful() ? body : null, status);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.shared.security.revocation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.shared.config.SecurityProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class HttpTokenRevocationFeedTest {
+
+    @Test
+    void pollsSinceTheLastCursorAndDispatchesRevocations() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        SecurityProperties.RevocationProperties properties = new SecurityProperties.RevocationProperties();
+        properties.setUrl("http://auth/internal/revocations");
+        properties.setApiKey("secret");
+        HttpTokenRevocationFeed feed = new HttpTokenRevocationFeed(restTemplate, properties);
+        List<TokenRevocation> received = new ArrayList<>();
+        feed.addListener(received::add);
+
+        server.expect(requestTo("http://auth/internal/revocations"))
+                .andExpect(header("X-Internal-Api-Key", "secret"))
+                .andRespond(withSuccess("{\"cursor\":\"c1\",\"revocations\":[]}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://auth/internal/revocations?since=c1"))
+                .andRespond(withSuccess("{\"cursor\":\"c2\",\"revocations\":["
+                        + "{\"tokenId\":\"jti-1\"},{\"userId\":7,\"permissionVersion\":3}]}", MediaType.APPLICATION_JSON));
+
+        assertThat(feed.poll()).isZero();
+        assertThat(feed.poll()).isEqualTo(2);
+
+        server.verify();
+        assertThat(feed.getCursor()).isEqualTo("c2");
+        assertThat(received).containsExactly(TokenRevocation.ofToken("jti-1"), TokenRevocation.ofUser(7L, 3));
+        assertThat(received.get(1).matches("other", 7L, 2)).isTrue();
+        assertThat(received.get(1).matches("other", 7L, 3)).isFalse();
+    }
+}